@@ -3,10 +3,12 @@ package as.tobi.chidorispring;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 
 @SpringBootApplication
 @EnableCaching
+@EnableScheduling
 @EnableWebSocket
 public class ChidoriSpringApplication {
 
@@ -0,0 +1,103 @@
+package as.tobi.chidorispring.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// chidori.cache.* - cache settings, a default spec plus optional overrides per cache name
+@Data
+@ConfigurationProperties(prefix = "chidori.cache")
+public class ChidoriCacheProperties {
+    // companion cache holding the last good value of a cache with a stale-ttl
+    public static final String STALE_SUFFIX = "Stale";
+    // companion cache marking the entries of a cache with a soft-ttl that are still fresh
+    public static final String FRESH_SUFFIX = "Fresh";
+
+    // redis pub/sub channel used to drop local copies on the other nodes
+    private String invalidationChannel = "cache:invalidation";
+
+    // smile values larger than this are LZ4-compressed
+    private boolean compressionEnabled = true;
+    private DataSize compressionThreshold = DataSize.ofKilobytes(1);
+
+    // redis defaults (ttl, null values) come from spring.cache.redis.*
+    private Spec defaults = new Spec(true, 1000L, Duration.ofMinutes(5), null, null, Serializer.SMILE, null, null);
+
+    private Map<String, Spec> caches = new HashMap<>();
+
+    private SingleFlight singleFlight = new SingleFlight();
+
+    // settings of one cache, unset fields fall back to the defaults
+    public Spec spec(String cacheName) {
+        if (cacheName.endsWith(STALE_SUFFIX) && caches.containsKey(cacheName.substring(0, cacheName.length() - STALE_SUFFIX.length()))) {
+            // stale copies are only read when the upstream fails, redis alone is enough
+            Spec base = spec(cacheName.substring(0, cacheName.length() - STALE_SUFFIX.length()));
+            return new Spec(false, null, null, base.getStaleTtl(), false, base.getSerializer(), null, null);
+        }
+        if (cacheName.endsWith(FRESH_SUFFIX) && caches.containsKey(cacheName.substring(0, cacheName.length() - FRESH_SUFFIX.length()))) {
+            // freshness markers are read on every hit, so they keep the local copy (capped at the soft ttl)
+            Spec base = spec(cacheName.substring(0, cacheName.length() - FRESH_SUFFIX.length()));
+            return new Spec(base.getLocalEnabled(), base.getLocalMaxSize(), base.getLocalTtl(), base.getSoftTtl(), false,
+                    base.getSerializer(), null, null);
+        }
+
+        Spec override = caches.get(cacheName);
+        if (override == null) {
+            return defaults;
+        }
+
+        Spec spec = new Spec();
+        spec.setLocalEnabled(override.getLocalEnabled() != null ? override.getLocalEnabled() : defaults.getLocalEnabled());
+        spec.setLocalMaxSize(override.getLocalMaxSize() != null ? override.getLocalMaxSize() : defaults.getLocalMaxSize());
+        spec.setLocalTtl(override.getLocalTtl() != null ? override.getLocalTtl() : defaults.getLocalTtl());
+        spec.setTtl(override.getTtl() != null ? override.getTtl() : defaults.getTtl());
+        spec.setCacheNullValues(override.getCacheNullValues() != null ? override.getCacheNullValues() : defaults.getCacheNullValues());
+        spec.setSerializer(override.getSerializer() != null ? override.getSerializer() : defaults.getSerializer());
+        spec.setStaleTtl(override.getStaleTtl() != null ? override.getStaleTtl() : defaults.getStaleTtl());
+        spec.setSoftTtl(override.getSoftTtl() != null ? override.getSoftTtl() : defaults.getSoftTtl());
+        return spec;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Spec {
+        // in-process L1 in front of redis
+        private Boolean localEnabled;
+        private Long localMaxSize;
+        private Duration localTtl;
+        // redis L2, zero ttl keeps entries until evicted
+        private Duration ttl;
+        private Boolean cacheNullValues;
+        private Serializer serializer;
+        // keep the last good value this long in <name>Stale, served when loading a fresh one fails
+        private Duration staleTtl;
+        // entries older than this are still served but reloaded in the background, below ttl
+        private Duration softTtl;
+    }
+
+    // one upstream load per cache key at a time, see as.tobi.chidorispring.cache.SingleFlight
+    @Data
+    public static class SingleFlight {
+        // also coordinate loads between nodes with a redis lock
+        private boolean distributed = true;
+        private Duration lockTtl = Duration.ofSeconds(10);
+        private Duration pollInterval = Duration.ofMillis(100);
+    }
+
+    public enum Serializer {
+        // jackson, typed for caches with a known value type
+        JSON,
+        // compact binary jackson with a version header, see CompactRedisSerializer
+        SMILE,
+        // java serialization, values must be Serializable
+        JDK
+    }
+}
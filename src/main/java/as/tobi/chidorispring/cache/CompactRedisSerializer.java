@@ -0,0 +1,153 @@
+package as.tobi.chidorispring.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+// Compact binary cache values: a small header followed by a Smile (binary JSON) payload,
+// LZ4-compressed above a size threshold.
+//
+// header: magic (1) | version (1) | flags (1) | type length (2) | type | [original length (4)]
+//
+// Caches with a known value type write no type; the others store the top-level type once per
+// entry instead of @class metadata on every object. Entries with another magic or version
+// (including old JSON entries) read as a cache miss and are overwritten on the next put.
+@Slf4j
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+    static final byte MAGIC = (byte) 0xCB;
+    static final byte VERSION = 1;
+    private static final byte FLAG_COMPRESSED = 1;
+    private static final int HEADER_SIZE = 5;
+    // only our own and JDK value types may be named by a cache entry
+    private static final List<String> ALLOWED_TYPE_PREFIXES = List.of(
+            "as.tobi.chidorispring.", "java.lang.", "java.util.", "java.time.");
+
+    private final ObjectMapper smileMapper;
+    private final JavaType valueType;
+    private final int compressionThreshold;
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+
+    // valueType may be null to store the type with every entry, a negative threshold disables compression
+    public CompactRedisSerializer(ObjectMapper objectMapper, JavaType valueType, int compressionThreshold) {
+        this.smileMapper = objectMapper.copyWith(new SmileFactory());
+        this.valueType = valueType;
+        this.compressionThreshold = compressionThreshold;
+        LZ4Factory lz4 = LZ4Factory.fastestInstance();
+        this.compressor = lz4.fastCompressor();
+        this.decompressor = lz4.fastDecompressor();
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+
+        try {
+            JavaType type = valueType != null ? valueType : typeOf(value);
+            byte[] typeName = valueType != null ? new byte[0] : type.toCanonical().getBytes(StandardCharsets.UTF_8);
+            byte[] payload = smileMapper.writerFor(type).writeValueAsBytes(value);
+
+            byte flags = 0;
+            int originalLength = payload.length;
+            if (compressionThreshold >= 0 && payload.length > compressionThreshold) {
+                byte[] compressed = compressor.compress(payload);
+                if (compressed.length < payload.length) {
+                    payload = compressed;
+                    flags |= FLAG_COMPRESSED;
+                }
+            }
+
+            boolean compressed = (flags & FLAG_COMPRESSED) != 0;
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + typeName.length + (compressed ? 4 : 0) + payload.length)
+                    .put(MAGIC)
+                    .put(VERSION)
+                    .put(flags)
+                    .putShort((short) typeName.length)
+                    .put(typeName);
+            if (compressed) {
+                buffer.putInt(originalLength);
+            }
+            return buffer.put(payload).array();
+        } catch (IOException e) {
+            throw new SerializationException("Could not write cache value of type " + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length < HEADER_SIZE || bytes[0] != MAGIC || bytes[1] != VERSION) {
+            log.debug("Ignoring cache entry with unknown format");
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            buffer.position(2);
+            byte flags = buffer.get();
+            byte[] typeName = new byte[buffer.getShort()];
+            buffer.get(typeName);
+
+            JavaType type = valueType != null ? valueType : readType(new String(typeName, StandardCharsets.UTF_8));
+            if (type == null) {
+                return null;
+            }
+
+            byte[] payload;
+            if ((flags & FLAG_COMPRESSED) != 0) {
+                int originalLength = buffer.getInt();
+                payload = new byte[originalLength];
+                decompressor.decompress(bytes, buffer.position(), payload, 0, originalLength);
+            } else {
+                payload = new byte[buffer.remaining()];
+                buffer.get(payload);
+            }
+            return smileMapper.readValue(payload, type);
+        } catch (IOException | RuntimeException e) {
+            // a stale or corrupt entry is a miss, not an error
+            log.warn("Ignoring unreadable cache entry: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // collections are stored by interface with the element type of their first element
+    private JavaType typeOf(Object value) {
+        if (value instanceof Collection<?> collection && !collection.isEmpty()) {
+            Object first = collection.iterator().next();
+            if (first != null) {
+                Class<?> collectionType = value instanceof Set<?> ? Set.class : List.class;
+                return smileMapper.getTypeFactory().constructCollectionType(
+                        collectionType.asSubclass(Collection.class), first.getClass());
+            }
+        }
+        return smileMapper.constructType(value.getClass());
+    }
+
+    private JavaType readType(String canonical) {
+        for (String className : canonical.split("[<>,]")) {
+            String name = className.trim();
+            if (!name.isEmpty() && ALLOWED_TYPE_PREFIXES.stream().noneMatch(name::startsWith)) {
+                log.warn("Ignoring cache entry of disallowed type {}", canonical);
+                return null;
+            }
+        }
+        return smileMapper.getTypeFactory().constructFromCanonical(canonical);
+    }
+}
@@ -0,0 +1,96 @@
+package as.tobi.chidorispring.cache;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Approximate request frequencies of keys in constant memory. A count-min sketch estimates how often
+// a key was requested and a small candidate set remembers the keys with the highest estimates.
+// All counters are halved every sampleSize requests, so the ranking follows recent traffic.
+public class HotKeyTracker<K> {
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final int[][] counters;
+    private final int mask;
+    private final int capacity;
+    private final int sampleSize;
+    private final Map<K, Integer> candidates = new HashMap<>();
+    private int requests;
+
+    // width is rounded up to a power of two, capacity is the number of hot keys remembered
+    public HotKeyTracker(int width, int capacity, int sampleSize) {
+        int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+        this.counters = new int[DEPTH][size];
+        this.mask = size - 1;
+        this.capacity = capacity;
+        this.sampleSize = sampleSize;
+    }
+
+    public synchronized void record(K key) {
+        // conservative update: only the smallest counters grow, which keeps over-estimates low
+        int estimate = estimate(key) + 1;
+        int hash = key.hashCode();
+        for (int row = 0; row < DEPTH; row++) {
+            int[] rowCounters = counters[row];
+            int index = index(hash, row);
+            rowCounters[index] = Math.max(rowCounters[index], estimate);
+        }
+
+        if (candidates.containsKey(key) || candidates.size() < capacity) {
+            candidates.put(key, estimate);
+        } else {
+            Map.Entry<K, Integer> coldest = candidates.entrySet().stream()
+                    .min(Map.Entry.comparingByValue())
+                    .orElseThrow();
+            if (estimate > coldest.getValue()) {
+                candidates.remove(coldest.getKey());
+                candidates.put(key, estimate);
+            }
+        }
+
+        if (++requests >= sampleSize) {
+            age();
+        }
+    }
+
+    // the most requested keys, most requested first
+    public synchronized List<K> top(int limit) {
+        return candidates.entrySet().stream()
+                .sorted(Map.Entry.<K, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public synchronized int frequency(K key) {
+        return estimate(key);
+    }
+
+    private int estimate(K key) {
+        int hash = key.hashCode();
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters[row][index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    private void age() {
+        for (int[] rowCounters : counters) {
+            for (int i = 0; i < rowCounters.length; i++) {
+                rowCounters[i] >>>= 1;
+            }
+        }
+        candidates.replaceAll((key, count) -> count >>> 1);
+        candidates.values().removeIf(count -> count == 0);
+        requests = 0;
+    }
+
+    private int index(int hash, int row) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        return h & mask;
+    }
+}
@@ -0,0 +1,177 @@
+package as.tobi.chidorispring.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Caching for Mono-returning lookups. Unlike @Cacheable on a Mono it caches the resolved value,
+// evaluates the cacheable condition against that value, reads redis asynchronously and runs
+// the loader at most once per key at a time (see SingleFlight). Caches with a stale-ttl also keep
+// the last good value in <name>Stale and serve it when the loader fails, flagging the StaleMarker
+// in the subscriber's context. Caches with a soft-ttl are stale-while-revalidate: an entry past it
+// is still served, and reloaded in the background (its marker in <name>Fresh has expired).
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReactiveCache {
+    // reactor context key naming the cache whose miss triggered an upstream call, see UpstreamMetrics
+    public static final String CACHE_MISS_CONTEXT_KEY = "chidori.cache.miss";
+
+    private final CacheManager cacheManager;
+    private final SingleFlight singleFlight;
+
+    // returns the cached value of the given type, or loads it and caches it when cacheable accepts it
+    public <T> Mono<T> get(String cacheName,
+                           Object key,
+                           Class<?> type,
+                           Supplier<Mono<T>> loader,
+                           Predicate<T> cacheable) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return Mono.defer(loader);
+        }
+
+        Cache freshCache = companionCache(cacheName, ChidoriCacheProperties.FRESH_SUFFIX);
+        return this.<T>lookup(cache, key, type)
+                .doOnNext(value -> {
+                    if (freshCache != null) {
+                        revalidateIfDue(cache, freshCache, key, type, loader, cacheable);
+                    }
+                })
+                .switchIfEmpty(load(cache, key, type, loader, cacheable));
+    }
+
+    // loads the value and overwrites the cached one even if it has not expired yet (refresh-ahead)
+    public <T> Mono<T> refresh(String cacheName,
+                               Object key,
+                               Class<?> type,
+                               Supplier<Mono<T>> loader,
+                               Predicate<T> cacheable) {
+        Cache cache = cacheManager.getCache(cacheName);
+        return cache != null ? load(cache, key, type, loader, cacheable) : Mono.defer(loader);
+    }
+
+    // the cached value of the given type, empty on a miss; never loads
+    public <T> Mono<T> getIfPresent(String cacheName, Object key, Class<?> type) {
+        Cache cache = cacheManager.getCache(cacheName);
+        return cache != null ? lookup(cache, key, type) : Mono.empty();
+    }
+
+    // whether an entry is missing or goes stale within the window: past its soft ttl when the cache has one,
+    // else past its ttl. True when that cannot be told, refresh-ahead then reloads as it would anyway
+    public boolean isDueWithin(String cacheName, Object key, Duration window) {
+        if (!(cacheManager instanceof TwoLevelCacheManager twoLevelCacheManager)) {
+            return true;
+        }
+        String markerCache = companionCache(cacheName, ChidoriCacheProperties.FRESH_SUFFIX) != null
+                ? cacheName + ChidoriCacheProperties.FRESH_SUFFIX
+                : cacheName;
+        try {
+            return twoLevelCacheManager.timeToLive(markerCache, key)
+                    .map(ttl -> ttl.compareTo(window) <= 0)
+                    .orElse(true);
+        } catch (DataAccessException e) {
+            log.debug("Could not read the ttl of key {} in {}: {}", key, markerCache, e.getMessage());
+            return true;
+        }
+    }
+
+    private <T> Mono<T> load(Cache cache,
+                             Object key,
+                             Class<?> type,
+                             Supplier<Mono<T>> loader,
+                             Predicate<T> cacheable) {
+        String cacheName = cache.getName();
+        Cache staleCache = companionCache(cacheName, ChidoriCacheProperties.STALE_SUFFIX);
+        Cache freshCache = companionCache(cacheName, ChidoriCacheProperties.FRESH_SUFFIX);
+        return singleFlight.execute(cacheName, key, () -> Mono.defer(loader)
+                        .flatMap(value -> cacheable.test(value)
+                                ? store(cache, key, value)
+                                        .then(store(staleCache, key, value))
+                                        .then(store(freshCache, key, Boolean.TRUE))
+                                        .thenReturn(value)
+                                : Mono.just(value))
+                        .contextWrite(Context.of(CACHE_MISS_CONTEXT_KEY, cacheName)))
+                // outside the shared load, so every waiting subscriber gets its stale flag
+                .onErrorResume(e -> staleCache != null
+                        ? this.<T>lookup(staleCache, key, type)
+                                .doOnNext(value -> log.warn("Serving stale {} for key {}: {}", cacheName, key, e.getMessage()))
+                                .flatMap(value -> Mono.deferContextual(context -> {
+                                    context.<StaleMarker>getOrEmpty(StaleMarker.CONTEXT_KEY).ifPresent(StaleMarker::markStale);
+                                    return Mono.just(value);
+                                }))
+                                .switchIfEmpty(Mono.error(e))
+                        : Mono.error(e));
+    }
+
+    // reloads an entry past its soft ttl without holding up the caller
+    private <T> void revalidateIfDue(Cache cache,
+                                     Cache freshCache,
+                                     Object key,
+                                     Class<?> type,
+                                     Supplier<Mono<T>> loader,
+                                     Predicate<T> cacheable) {
+        lookup(freshCache, key, Boolean.class)
+                .hasElement()
+                .filter(fresh -> !fresh)
+                .flatMap(due -> {
+                    log.debug("Revalidating key {} in {}", key, cache.getName());
+                    return load(cache, key, type, loader, cacheable);
+                })
+                .subscribe(value -> {
+                }, e -> log.debug("Background refresh of key {} in {} failed: {}", key, cache.getName(), e.getMessage()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> lookup(Cache cache, Object key, Class<?> type) {
+        return Mono.defer(() -> {
+                    CompletableFuture<?> cached = cache.retrieve(key);
+                    return cached != null ? Mono.fromFuture(cached) : Mono.empty();
+                })
+                .mapNotNull(value -> value instanceof Cache.ValueWrapper wrapper ? wrapper.get() : value)
+                .filter(value -> {
+                    if (type.isInstance(value)) {
+                        return true;
+                    }
+                    log.debug("Ignoring cached {} for key {} in {}", value.getClass().getSimpleName(), key, cache.getName());
+                    return false;
+                })
+                .map(value -> (T) value)
+                .onErrorResume(e -> {
+                    // an unavailable cache is a miss, not a failed request
+                    log.warn("Cache lookup failed for key {} in {}: {}", key, cache.getName(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    // <name>Stale and <name>Fresh only exist for caches configured with a stale-ttl or soft-ttl,
+    // getCache would create them on demand
+    private Cache companionCache(String cacheName, String suffix) {
+        String companionName = cacheName + suffix;
+        return cacheManager.getCacheNames().contains(companionName) ? cacheManager.getCache(companionName) : null;
+    }
+
+    // cache writers block, keep them off the event loop
+    private Mono<Void> store(Cache cache, Object key, Object value) {
+        if (cache == null) {
+            return Mono.empty();
+        }
+        return Mono.<Void>fromRunnable(() -> cache.put(key, value))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    log.warn("Cache write failed for key {} in {}: {}", key, cache.getName(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,98 @@
+package as.tobi.chidorispring.cache;
+
+import as.tobi.chidorispring.utils.RedisLocks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+// Request coalescing for cache misses: concurrent loads of the same cache key share one upstream call.
+// Within a node callers subscribe to the same Mono; across nodes the first one takes a redis lock
+// and the others poll the cache for its result, loading themselves only if it never shows up.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SingleFlight {
+    private static final String LOCK_KEY_PREFIX = "lock:";
+
+    private final ConcurrentMap<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+    private final CacheManager cacheManager;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ChidoriCacheProperties properties;
+
+    // key must equal the key the result is cached under, so other nodes can find it
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String cacheName, Object key, Supplier<Mono<T>> loader) {
+        String flightKey = cacheName + "::" + key;
+        return Mono.defer(() -> (Mono<T>) inFlight.computeIfAbsent(flightKey, k -> {
+            Mono<T> load = properties.getSingleFlight().isDistributed()
+                    ? loadWithLock(cacheName, key, k, loader)
+                    : Mono.defer(loader);
+            return load
+                    .doFinally(signal -> inFlight.remove(k))
+                    .cache();
+        }));
+    }
+
+    private <T> Mono<T> loadWithLock(String cacheName, Object key, String flightKey, Supplier<Mono<T>> loader) {
+        String lockKey = LOCK_KEY_PREFIX + flightKey;
+        String token = UUID.randomUUID().toString();
+        ChidoriCacheProperties.SingleFlight settings = properties.getSingleFlight();
+
+        return redisTemplate.opsForValue().setIfAbsent(lockKey, token, settings.getLockTtl())
+                .onErrorResume(e -> {
+                    // without redis every node loads on its own
+                    log.warn("Single-flight lock unavailable for {}: {}", flightKey, e.getMessage());
+                    return Mono.just(true);
+                })
+                .flatMap(acquired -> {
+                    if (acquired) {
+                        return Mono.defer(loader).doFinally(signal -> release(lockKey, token));
+                    }
+                    log.debug("Waiting for another node to load {}", flightKey);
+                    return this.<T>awaitCached(cacheName, key, settings)
+                            .switchIfEmpty(Mono.defer(loader));
+                });
+    }
+
+    // polls the cache until the lock holder has stored the value, empty when it does not within the lock TTL
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> awaitCached(String cacheName, Object key, ChidoriCacheProperties.SingleFlight settings) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return Mono.empty();
+        }
+        long attempts = Math.max(1, settings.getLockTtl().toMillis() / settings.getPollInterval().toMillis());
+
+        return Flux.interval(settings.getPollInterval())
+                .take(attempts)
+                .concatMap(tick -> Mono.defer(() -> {
+                    CompletableFuture<?> cached = cache.retrieve(key);
+                    return cached != null ? Mono.fromFuture(cached) : Mono.empty();
+                }))
+                .mapNotNull(value -> (T) (value instanceof Cache.ValueWrapper wrapper ? wrapper.get() : value))
+                .next();
+    }
+
+    private void release(String lockKey, String token) {
+        redisTemplate.execute(RedisLocks.RELEASE_SCRIPT, List.of(lockKey), List.of(token))
+                .onErrorResume(e -> {
+                    // the lock expires on its own
+                    log.warn("Failed to release single-flight lock {}: {}", lockKey, e.getMessage());
+                    return Mono.empty();
+                })
+                .subscribe();
+    }
+}
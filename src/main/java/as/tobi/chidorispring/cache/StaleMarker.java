@@ -0,0 +1,17 @@
+package as.tobi.chidorispring.cache;
+
+// Tells a caller that ReactiveCache answered with a stale copy. The caller puts a marker into the
+// reactor context under CONTEXT_KEY and checks it once the value arrived.
+public class StaleMarker {
+    public static final String CONTEXT_KEY = "chidori.cache.stale";
+
+    private volatile boolean stale;
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    void markStale() {
+        stale = true;
+    }
+}
@@ -0,0 +1,195 @@
+package as.tobi.chidorispring.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// A cache with a bounded in-process L1 (Caffeine) in front of a shared L2 (Redis).
+// Reads hit L1 first and fill it from L2; writes and evictions go to L2 and are announced
+// to the other nodes through the invalidation publisher so they drop their local copy.
+@Slf4j
+public class TwoLevelCache implements Cache {
+    private final String name;
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+    // (cache name, local key) of a changed entry, null key for the whole cache
+    private final BiConsumer<String, String> invalidationPublisher;
+    // L2 values of several keys in one round trip, in key order with null for a miss
+    private final Function<List<?>, List<ValueWrapper>> remoteMultiGet;
+
+    public TwoLevelCache(String name,
+                         Cache remote,
+                         com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local,
+                         BiConsumer<String, String> invalidationPublisher) {
+        this(name, remote, local, invalidationPublisher, keys -> keys.stream().map(remote::get).toList());
+    }
+
+    public TwoLevelCache(String name,
+                         Cache remote,
+                         com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local,
+                         BiConsumer<String, String> invalidationPublisher,
+                         Function<List<?>, List<ValueWrapper>> remoteMultiGet) {
+        this.name = name;
+        this.remote = remote;
+        this.local = local;
+        this.invalidationPublisher = invalidationPublisher;
+        this.remoteMultiGet = remoteMultiGet;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        ValueWrapper cached = local.getIfPresent(localKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        ValueWrapper value = remote.get(key);
+        if (value != null) {
+            local.put(localKey, value);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    // values of the given keys in key order, null for a miss; keys missing from L1 are read from L2 together
+    public List<ValueWrapper> getAll(List<?> keys) {
+        List<ValueWrapper> values = new ArrayList<>(keys.size());
+        List<Integer> missing = new ArrayList<>();
+        for (Object key : keys) {
+            ValueWrapper cached = local.getIfPresent(localKey(key));
+            if (cached == null) {
+                missing.add(values.size());
+            }
+            values.add(cached);
+        }
+        if (missing.isEmpty()) {
+            return values;
+        }
+
+        List<ValueWrapper> remoteValues = remoteMultiGet.apply(missing.stream().map(keys::get).toList());
+        for (int i = 0; i < missing.size(); i++) {
+            ValueWrapper value = remoteValues.get(i);
+            if (value != null) {
+                int position = missing.get(i);
+                local.put(localKey(keys.get(position)), value);
+                values.set(position, value);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        ValueWrapper cached = local.getIfPresent(localKey);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        T value = remote.get(key, valueLoader);
+        local.put(localKey, new SimpleValueWrapper(value));
+        return value;
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        String localKey = localKey(key);
+        ValueWrapper cached = local.getIfPresent(localKey);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<?> future = remote.retrieve(key);
+        if (future == null) {
+            return null;
+        }
+        return future.thenApply(value -> {
+            if (value != null) {
+                local.put(localKey, value instanceof ValueWrapper wrapper ? wrapper : new SimpleValueWrapper(value));
+            }
+            return value;
+        });
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        String localKey = localKey(key);
+        ValueWrapper cached = local.getIfPresent(localKey);
+        if (cached != null) {
+            return CompletableFuture.completedFuture((T) cached.get());
+        }
+
+        return remote.retrieve(key, valueLoader).thenApply(value -> {
+            local.put(localKey, new SimpleValueWrapper(value));
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        String localKey = localKey(key);
+        local.put(localKey, new SimpleValueWrapper(value));
+        invalidationPublisher.accept(name, localKey);
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        invalidationPublisher.accept(name, localKey);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationPublisher.accept(name, null);
+    }
+
+    // drops local copies only, called when another node changed the entry
+    void invalidateLocal(String localKey) {
+        if (localKey == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(localKey);
+        }
+    }
+
+    // keys are compared across nodes, so L1 is keyed by their string form
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
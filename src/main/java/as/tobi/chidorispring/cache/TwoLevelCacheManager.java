@@ -0,0 +1,155 @@
+package as.tobi.chidorispring.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Wraps the redis CacheManager and puts a Caffeine L1 in front of every cache that has it enabled.
+// Local copies on other nodes are dropped through redis pub/sub; messages are best effort,
+// so the L1 TTL bounds how long a node can serve an entry another node has changed.
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager {
+    private static final String SEPARATOR = "|";
+    private static final String CLEAR_KEY = "";
+
+    private final CacheManager remoteCacheManager;
+    private final ChidoriCacheProperties properties;
+    private final StringRedisTemplate redisTemplate;
+    // tells our own invalidation messages apart from the other nodes'
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                ChidoriCacheProperties properties,
+                                StringRedisTemplate redisTemplate) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    // message format: nodeId|cacheName|key, an empty key clears the whole cache
+    public void onInvalidation(String message) {
+        String[] parts = message.split("\\" + SEPARATOR, 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+
+        if (caches.get(parts[1]) instanceof TwoLevelCache cache) {
+            cache.invalidateLocal(CLEAR_KEY.equals(parts[2]) ? null : parts[2]);
+        }
+    }
+
+    private Cache createCache(String name) {
+        Cache remote = remoteCacheManager.getCache(name);
+        ChidoriCacheProperties.Spec spec = properties.spec(name);
+        if (remote == null || !Boolean.TRUE.equals(spec.getLocalEnabled())) {
+            return remote;
+        }
+
+        // a local copy never outlives the redis entry
+        Duration ttl = spec.getTtl();
+        boolean expiresSooner = ttl != null && !ttl.isZero() && !ttl.isNegative() && ttl.compareTo(spec.getLocalTtl()) < 0;
+        Duration localTtl = expiresSooner ? ttl : spec.getLocalTtl();
+        log.debug("Creating two-level cache {} with local size {} and TTL {}", name, spec.getLocalMaxSize(), localTtl);
+        return new TwoLevelCache(name, remote,
+                Caffeine.newBuilder()
+                        .maximumSize(spec.getLocalMaxSize())
+                        .expireAfterWrite(localTtl)
+                        .build(),
+                this::publishInvalidation,
+                remote instanceof RedisCache redisCache
+                        ? keys -> multiGet(redisCache, keys)
+                        : keys -> keys.stream().map(remote::get).toList());
+    }
+
+    // remaining lifetime of the redis copy of an entry: empty when it is missing (or not in redis),
+    // FOREVER when it has no expiry
+    public Optional<Duration> timeToLive(String cacheName, Object key) {
+        if (!(remoteCacheManager.getCache(cacheName) instanceof RedisCache cache)) {
+            return Optional.empty();
+        }
+        byte[] rawKey = rawKey(cache, key);
+        Long millis = redisTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands().pTtl(rawKey));
+        if (millis == null || millis == -2) {
+            return Optional.empty();
+        }
+        return Optional.of(millis == -1 ? ChronoUnit.FOREVER.getDuration() : Duration.ofMillis(millis));
+    }
+
+    // one MGET for several entries, keys and values handled the way RedisCache itself does
+    private List<Cache.ValueWrapper> multiGet(RedisCache cache, List<?> keys) {
+        RedisCacheConfiguration configuration = cache.getCacheConfiguration();
+        byte[][] rawKeys = keys.stream()
+                .map(key -> rawKey(cache, key))
+                .toArray(byte[][]::new);
+
+        List<byte[]> rawValues = redisTemplate.execute(
+                (RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(rawKeys));
+        List<Cache.ValueWrapper> values = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] rawValue = rawValues != null ? rawValues.get(i) : null;
+            if (rawValue == null) {
+                values.add(null);
+                continue;
+            }
+            // an unreadable entry reads as null and is a miss, as in RedisCache.get; only a cached null is a hit
+            Object value = configuration.getValueSerializationPair().read(ByteBuffer.wrap(rawValue));
+            if (value == null) {
+                values.add(null);
+            } else {
+                values.add(new SimpleValueWrapper(value instanceof NullValue ? null : value));
+            }
+        }
+        return values;
+    }
+
+    private static byte[] rawKey(RedisCache cache, Object key) {
+        RedisCacheConfiguration configuration = cache.getCacheConfiguration();
+        String cacheKey = key instanceof String string
+                ? string
+                : configuration.getConversionService().convert(key, String.class);
+        if (configuration.usePrefix()) {
+            cacheKey = configuration.getKeyPrefixFor(cache.getName()) + cacheKey;
+        }
+        return ByteUtils.getBytes(configuration.getKeySerializationPair().write(cacheKey));
+    }
+
+    private void publishInvalidation(String cacheName, String localKey) {
+        try {
+            redisTemplate.convertAndSend(properties.getInvalidationChannel(),
+                    nodeId + SEPARATOR + cacheName + SEPARATOR + (localKey != null ? localKey : CLEAR_KEY));
+        } catch (DataAccessException e) {
+            log.warn("Failed to publish invalidation for cache {}: {}", cacheName, e.getMessage());
+        }
+    }
+}
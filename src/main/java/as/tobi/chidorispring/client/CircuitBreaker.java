@@ -0,0 +1,58 @@
+package as.tobi.chidorispring.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+// Consecutive-failure circuit breaker. Once open, requests fail fast for openDuration, then a single
+// trial request decides whether it closes again.
+@Slf4j
+public class CircuitBreaker {
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int failures;
+    // when the circuit opened or the trial request started
+    private long changedAt;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    // false while open; a trial that never reports back is replaced after another openDuration
+    public synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (now - changedAt < openNanos) {
+            return false;
+        }
+        state = State.HALF_OPEN;
+        changedAt = now;
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuit {} closed", name);
+        }
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            log.warn("Circuit {} opened after {} failures", name, failures);
+            state = State.OPEN;
+            changedAt = System.nanoTime();
+        }
+    }
+}
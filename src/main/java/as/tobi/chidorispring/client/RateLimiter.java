@@ -0,0 +1,84 @@
+package as.tobi.chidorispring.client;
+
+import as.tobi.chidorispring.config.UpstreamProperties;
+import as.tobi.chidorispring.exceptions.AnimeViolationException;
+import as.tobi.chidorispring.exceptions.AnimeViolationType;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+// Token buckets for one upstream, shared by every request in the JVM. A request reserves a token
+// from each bucket and waits until the last of them is due instead of being rejected, unless
+// that wait would exceed maxQueueWait.
+public class RateLimiter {
+    private final List<Bucket> buckets;
+    private final long maxWaitNanos;
+    // set from a Retry-After, nothing is sent before it
+    private volatile long pausedUntilNanos = System.nanoTime();
+
+    public RateLimiter(List<UpstreamProperties.RateLimit> limits, Duration maxQueueWait) {
+        this.buckets = limits.stream()
+                .map(limit -> new Bucket(limit.getPermits(), limit.getPeriod()))
+                .toList();
+        this.maxWaitNanos = maxQueueWait.toNanos();
+    }
+
+    // completes when the request may be sent, fails with UPSTREAM_RATE_LIMITED when the queue is too long
+    public Mono<Void> acquire() {
+        return Mono.defer(() -> {
+            long waitNanos = reserve();
+            if (waitNanos < 0) {
+                return Mono.error(new AnimeViolationException(AnimeViolationType.UPSTREAM_RATE_LIMITED));
+            }
+            return waitNanos == 0 ? Mono.empty() : Mono.delay(Duration.ofNanos(waitNanos)).then();
+        });
+    }
+
+    // the upstream asked us to back off, hold every request until then
+    public void pause(Duration duration) {
+        long until = System.nanoTime() + duration.toNanos();
+        if (until - pausedUntilNanos > 0) {
+            pausedUntilNanos = until;
+        }
+    }
+
+    // nanos to wait, -1 when a token is not due within maxWaitNanos (nothing is reserved then)
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        long waitNanos = Math.max(0, pausedUntilNanos - now);
+        for (Bucket bucket : buckets) {
+            waitNanos = Math.max(waitNanos, bucket.waitNanos(now));
+        }
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        buckets.forEach(Bucket::take);
+        return waitNanos;
+    }
+
+    private static class Bucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(int permits, Duration period) {
+            this.capacity = permits;
+            this.tokensPerNano = permits / (double) period.toNanos();
+            this.tokens = permits;
+            this.refilledAt = System.nanoTime();
+        }
+
+        // tokens may go negative, that is the queue of reservations already handed out
+        long waitNanos(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        void take() {
+            tokens -= 1;
+        }
+    }
+}
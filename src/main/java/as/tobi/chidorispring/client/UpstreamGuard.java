@@ -0,0 +1,160 @@
+package as.tobi.chidorispring.client;
+
+import as.tobi.chidorispring.config.UpstreamProperties;
+import as.tobi.chidorispring.exceptions.AnimeViolationException;
+import as.tobi.chidorispring.exceptions.AnimeViolationType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+// WebClient filter protecting one upstream API: shared rate limit, per-attempt timeout, jittered
+// retries of GETs on 429/5xx/timeouts honouring Retry-After, and a circuit breaker that fails fast
+// with UPSTREAM_UNAVAILABLE while the upstream keeps failing.
+// A response still failing after the last retry is passed on, callers map its status as before.
+@Slf4j
+public class UpstreamGuard implements ExchangeFilterFunction {
+    // AtomicBoolean set when the attempt's timeout fires, read by filters inside the guard (UpstreamMetrics)
+    public static final String TIMED_OUT_CONTEXT_KEY = "chidori.upstream.timedOut";
+
+    private final String name;
+    private final UpstreamProperties.Upstream settings;
+    private final RateLimiter rateLimiter;
+    private final CircuitBreaker circuitBreaker;
+
+    public UpstreamGuard(String name, UpstreamProperties.Upstream settings) {
+        this.name = name;
+        this.settings = settings;
+        this.rateLimiter = new RateLimiter(settings.getRateLimits(), settings.getMaxQueueWait());
+        this.circuitBreaker = new CircuitBreaker(name, settings.getCircuitBreaker().getFailureThreshold(),
+                settings.getCircuitBreaker().getOpenDuration());
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                log.debug("Circuit {} is open, rejecting {}", name, request.url());
+                return Mono.error(new AnimeViolationException(AnimeViolationType.UPSTREAM_UNAVAILABLE));
+            }
+            return attempt(request, next, 1)
+                    .doOnNext(response -> {
+                        if (isRetryable(response.statusCode())) {
+                            circuitBreaker.onFailure();
+                        } else {
+                            circuitBreaker.onSuccess();
+                        }
+                    })
+                    .onErrorMap(e -> !(e instanceof AnimeViolationException), e -> {
+                        circuitBreaker.onFailure();
+                        log.warn("{} request {} failed: {}", name, request.url(), e.toString());
+                        return new AnimeViolationException(AnimeViolationType.UPSTREAM_UNAVAILABLE);
+                    });
+        });
+    }
+
+    // the map steps only pick what to do next, so a retry's own failures are not retried again here
+    private Mono<ClientResponse> attempt(ClientRequest request, ExchangeFunction next, int attempt) {
+        return rateLimiter.acquire()
+                .then(Mono.defer(() -> {
+                    AtomicBoolean timedOut = new AtomicBoolean();
+                    // flagged before the timeout cancels the exchange, so inner filters see a timeout, not a cancel
+                    return next.exchange(request)
+                            .timeout(Mono.delay(settings.getTimeout()).doOnNext(tick -> timedOut.set(true)))
+                            .contextWrite(Context.of(TIMED_OUT_CONTEXT_KEY, timedOut));
+                }))
+                .map(response -> onResponse(request, next, response, attempt))
+                .onErrorResume(this::isRetryable, e -> Mono.just(onError(request, next, e, attempt)))
+                .flatMap(Function.identity());
+    }
+
+    private Mono<ClientResponse> onResponse(ClientRequest request, ExchangeFunction next,
+                                            ClientResponse response, int attempt) {
+        if (!isRetryable(response.statusCode()) || !canRetry(request, attempt)) {
+            return Mono.just(response);
+        }
+
+        Duration retryAfter = retryAfter(response.headers().asHttpHeaders());
+        if (retryAfter != null) {
+            if (response.statusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                rateLimiter.pause(retryAfter);
+            }
+            if (retryAfter.compareTo(settings.getRetry().getMaxRetryAfter()) > 0) {
+                log.warn("{} asked to retry {} after {}, giving up", name, request.url(), retryAfter);
+                return Mono.just(response);
+            }
+        }
+
+        Duration delay = retryAfter != null ? retryAfter : backoff(attempt);
+        log.debug("{} returned {} for {}, retry {} in {}", name, response.statusCode(), request.url(), attempt, delay);
+        return response.releaseBody()
+                .then(Mono.delay(delay))
+                .then(Mono.defer(() -> attempt(request, next, attempt + 1)));
+    }
+
+    private Mono<ClientResponse> onError(ClientRequest request, ExchangeFunction next, Throwable error, int attempt) {
+        if (!canRetry(request, attempt)) {
+            return Mono.error(error);
+        }
+        Duration delay = backoff(attempt);
+        log.debug("{} request {} failed ({}), retry {} in {}", name, request.url(), error.toString(), attempt, delay);
+        return Mono.delay(delay).then(Mono.defer(() -> attempt(request, next, attempt + 1)));
+    }
+
+    private boolean canRetry(ClientRequest request, int attempt) {
+        return attempt < settings.getRetry().getMaxAttempts()
+                && (request.method() == HttpMethod.GET || request.method() == HttpMethod.HEAD);
+    }
+
+    private boolean isRetryable(HttpStatusCode status) {
+        return status.is5xxServerError() || status.value() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private boolean isRetryable(Throwable error) {
+        return error instanceof TimeoutException || error instanceof WebClientRequestException;
+    }
+
+    // exponential, with a random half of the step added so retrying callers spread out
+    private Duration backoff(int attempt) {
+        UpstreamProperties.Retry retry = settings.getRetry();
+        long base = retry.getMinBackoff().toMillis() << Math.min(attempt - 1, 20);
+        long capped = Math.min(base, retry.getMaxBackoff().toMillis());
+        return Duration.ofMillis(capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1));
+    }
+
+    // Retry-After is either delay seconds or an HTTP date
+    private Duration retryAfter(HttpHeaders headers) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                Duration until = Duration.between(ZonedDateTime.now(),
+                        ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return until.isNegative() ? Duration.ZERO : until;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package as.tobi.chidorispring.client;
+
+import as.tobi.chidorispring.cache.ReactiveCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// WebClient filter recording every upstream attempt in Micrometer:
+//   chidori.upstream.requests       timer (latency histogram) per upstream, status and outcome
+//   chidori.upstream.response.size  decoded response bytes per upstream
+//   cache tag                       the cache whose miss caused the call, "none" outside ReactiveCache
+// A sample of the requests is logged at debug level; nothing here blocks the event loop.
+@Slf4j
+public class UpstreamMetrics implements ExchangeFilterFunction {
+    private static final String NO_CACHE = "none";
+
+    private final String upstream;
+    private final MeterRegistry meterRegistry;
+    private final double debugLogSampleRate;
+
+    public UpstreamMetrics(String upstream, MeterRegistry meterRegistry, double debugLogSampleRate) {
+        this.upstream = upstream;
+        this.meterRegistry = meterRegistry;
+        this.debugLogSampleRate = debugLogSampleRate;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.deferContextual(context -> {
+            String cache = context.getOrDefault(ReactiveCache.CACHE_MISS_CONTEXT_KEY, NO_CACHE);
+            AtomicBoolean timedOut = context.getOrDefault(UpstreamGuard.TIMED_OUT_CONTEXT_KEY, null);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return next.exchange(request)
+                    .map(response -> {
+                        String status = String.valueOf(response.statusCode().value());
+                        String outcome = response.statusCode().is2xxSuccessful() ? "SUCCESS"
+                                : response.statusCode().is4xxClientError() ? "CLIENT_ERROR" : "SERVER_ERROR";
+                        long nanos = sample.stop(timer(request, cache, status, outcome));
+                        logSampled(request, status, nanos, cache);
+                        return countBytes(response);
+                    })
+                    .doOnError(e -> {
+                        String status = e instanceof TimeoutException ? "TIMEOUT" : "IO_ERROR";
+                        long nanos = sample.stop(timer(request, cache, status, "UNKNOWN"));
+                        logSampled(request, status, nanos, cache);
+                    })
+                    // the guard's timeout cancels us rather than erroring, it flags the cancel as a timeout
+                    .doOnCancel(() -> {
+                        String status = timedOut != null && timedOut.get() ? "TIMEOUT" : "CANCELLED";
+                        long nanos = sample.stop(timer(request, cache, status, "UNKNOWN"));
+                        logSampled(request, status, nanos, cache);
+                    });
+        });
+    }
+
+    private Timer timer(ClientRequest request, String cache, String status, String outcome) {
+        return Timer.builder("chidori.upstream.requests")
+                .description("Requests to the upstream anime APIs")
+                .tags(Tags.of("upstream", upstream, "method", request.method().name(),
+                        "status", status, "outcome", outcome, "cache", cache))
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // counts the body as it streams through, whoever consumes it
+    private ClientResponse countBytes(ClientResponse response) {
+        DistributionSummary size = DistributionSummary.builder("chidori.upstream.response.size")
+                .description("Decoded response body size of upstream anime API calls")
+                .baseUnit("bytes")
+                .tags("upstream", upstream)
+                .register(meterRegistry);
+        AtomicLong bytes = new AtomicLong();
+        return response.mutate()
+                .body(body -> body
+                        .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))
+                        .doOnComplete(() -> size.record(bytes.get())))
+                .build();
+    }
+
+    private void logSampled(ClientRequest request, String status, long nanos, String cache) {
+        if (log.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < debugLogSampleRate) {
+            log.debug("{} {} {} -> {} in {} ms (cache miss: {})", upstream, request.method(), request.url(),
+                    status, nanos / 1_000_000, cache);
+        }
+    }
+}
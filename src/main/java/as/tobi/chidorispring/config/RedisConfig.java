@@ -1,25 +1,171 @@
 package as.tobi.chidorispring.config;
 
+import as.tobi.chidorispring.cache.ChidoriCacheProperties;
+import as.tobi.chidorispring.cache.CompactRedisSerializer;
+import as.tobi.chidorispring.cache.TwoLevelCacheManager;
+import as.tobi.chidorispring.dto.characterPost.CharacterPostDTO;
+import as.tobi.chidorispring.service.PostCacheService;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+@Slf4j
 @Configuration
+@EnableConfigurationProperties({ChidoriCacheProperties.class, CacheProperties.class})
 public class RedisConfig {
 
     private final ObjectMapper objectMapper;
+    // caches read back with typed lookups get a typed serializer
+    private final Map<String, JavaType> typedCaches;
 
     public RedisConfig(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
+        this.typedCaches = Map.of(
+                PostCacheService.POST_CACHE, objectMapper.constructType(CharacterPostDTO.class),
+                PostCacheService.POSTS_CACHE, objectMapper.getTypeFactory().constructCollectionType(List.class, Long.class));
     }
 
+    // defaults for every cache, taken from spring.cache.redis.*
     @Bean
-    public RedisCacheConfiguration cacheConfiguration() {
-        return RedisCacheConfiguration.defaultCacheConfig()
+    public RedisCacheConfiguration cacheConfiguration(CacheProperties cacheProperties,
+                                                      ChidoriCacheProperties chidoriCacheProperties) {
+        CacheProperties.Redis redis = cacheProperties.getRedis();
+        RedisCacheConfiguration configuration = RedisCacheConfiguration.defaultCacheConfig()
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
-                        new GenericJackson2JsonRedisSerializer(objectMapper)));
+                        serializer(chidoriCacheProperties.getDefaults().getSerializer(), null, chidoriCacheProperties)));
+        if (redis.getTimeToLive() != null) {
+            configuration = configuration.entryTtl(redis.getTimeToLive());
+        }
+        if (redis.getKeyPrefix() != null) {
+            configuration = configuration.prefixCacheNameWith(redis.getKeyPrefix());
+        }
+        if (!redis.isCacheNullValues()) {
+            configuration = configuration.disableCachingNullValues();
+        }
+        if (!redis.isUseKeyPrefix()) {
+            configuration = configuration.disableKeyPrefix();
+        }
+        return configuration;
+    }
+
+    // per-cache ttl, null caching and serializer from chidori.cache.caches
+    @Bean
+    public RedisCacheManagerBuilderCustomizer cacheSpecCustomizer(RedisCacheConfiguration cacheConfiguration,
+                                                                  ChidoriCacheProperties cacheProperties) {
+        return builder -> {
+            Set<String> cacheNames = new TreeSet<>(cacheProperties.getCaches().keySet());
+            cacheNames.addAll(typedCaches.keySet());
+            for (String cacheName : List.copyOf(cacheNames)) {
+                if (cacheProperties.spec(cacheName).getStaleTtl() != null) {
+                    cacheNames.add(cacheName + ChidoriCacheProperties.STALE_SUFFIX);
+                }
+                if (cacheProperties.spec(cacheName).getSoftTtl() != null) {
+                    cacheNames.add(cacheName + ChidoriCacheProperties.FRESH_SUFFIX);
+                }
+            }
+            for (String cacheName : cacheNames) {
+                builder.withCacheConfiguration(cacheName,
+                        cacheConfiguration(cacheName, cacheConfiguration, cacheProperties));
+            }
+        };
+    }
+
+    private RedisCacheConfiguration cacheConfiguration(String cacheName,
+                                                       RedisCacheConfiguration defaults,
+                                                       ChidoriCacheProperties cacheProperties) {
+        ChidoriCacheProperties.Spec spec = cacheProperties.spec(cacheName);
+        boolean cacheNullValues = spec.getCacheNullValues() != null
+                ? spec.getCacheNullValues()
+                : defaults.getAllowCacheNullValues();
+
+        RedisCacheConfiguration configuration = defaults;
+        if (cacheNullValues && !defaults.getAllowCacheNullValues()) {
+            // null caching can only be switched off, so start over from a fresh configuration
+            configuration = RedisCacheConfiguration.defaultCacheConfig()
+                    .entryTtl(defaults.getTtlFunction())
+                    .computePrefixWith(defaults::getKeyPrefixFor);
+            if (!defaults.usePrefix()) {
+                configuration = configuration.disableKeyPrefix();
+            }
+        } else if (!cacheNullValues) {
+            configuration = configuration.disableCachingNullValues();
+        }
+        if (spec.getTtl() != null) {
+            configuration = configuration.entryTtl(spec.getTtl());
+        }
+
+        RedisSerializer<?> serializer = serializer(spec.getSerializer(), typedCaches.get(cacheName), cacheProperties);
+        log.debug("Cache {}: ttl={}, nullValues={}, serializer={}", cacheName,
+                spec.getTtl(), cacheNullValues, spec.getSerializer());
+        return configuration.serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer));
+    }
+
+    // valueType is null for caches holding values of different types
+    private RedisSerializer<?> serializer(ChidoriCacheProperties.Serializer serializer,
+                                          JavaType valueType,
+                                          ChidoriCacheProperties cacheProperties) {
+        return switch (serializer) {
+            case JDK -> new JdkSerializationRedisSerializer();
+            case SMILE -> new CompactRedisSerializer(objectMapper, valueType, cacheProperties.isCompressionEnabled()
+                    ? (int) cacheProperties.getCompressionThreshold().toBytes()
+                    : -1);
+            case JSON -> valueType != null
+                    ? new Jackson2JsonRedisSerializer<>(objectMapper, valueType)
+                    : new GenericJackson2JsonRedisSerializer(objectMapper);
+        };
+    }
+
+    // redis stays the shared L2, a Caffeine L1 per node sits in front of it
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     RedisCacheConfiguration cacheConfiguration,
+                                     ObjectProvider<RedisCacheManagerBuilderCustomizer> customizers,
+                                     ChidoriCacheProperties cacheProperties,
+                                     StringRedisTemplate redisTemplate) {
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(cacheConfiguration);
+        customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+        RedisCacheManager redisCacheManager = builder.build();
+        redisCacheManager.initializeCaches();
+
+        return new TwoLevelCacheManager(redisCacheManager, cacheProperties, redisTemplate);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                   CacheManager cacheManager,
+                                                                   ChidoriCacheProperties cacheProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (cacheManager instanceof TwoLevelCacheManager twoLevelCacheManager) {
+            container.addMessageListener(
+                    (message, pattern) -> twoLevelCacheManager.onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+                    new ChannelTopic(cacheProperties.getInvalidationChannel()));
+        }
+        return container;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,105 @@
+package as.tobi.chidorispring.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// chidori.upstream.* - how hard we may hit the Kitsu and Jikan APIs
+@Data
+@ConfigurationProperties(prefix = "chidori.upstream")
+public class UpstreamProperties {
+    private Upstream kitsu = new Upstream(new Search(10, 4),
+            List.of(new RateLimit(10, Duration.ofSeconds(1))));
+    // jikan allows 3 requests per second and 60 per minute
+    private Upstream jikan = new Upstream(new Search(10, 2),
+            List.of(new RateLimit(3, Duration.ofSeconds(1)), new RateLimit(60, Duration.ofMinutes(1))));
+
+    // share of upstream requests logged at debug level, see as.tobi.chidorispring.client.UpstreamMetrics
+    private double debugLogSampleRate = 0.01;
+
+    // guard settings of one upstream, see as.tobi.chidorispring.client.UpstreamGuard
+    @Data
+    @NoArgsConstructor
+    public static class Upstream {
+        private Search search = new Search(10, 4);
+        // every request takes a token from each limit, shared by all callers in this JVM
+        private List<RateLimit> rateLimits = new ArrayList<>();
+        // requests that would wait longer than this for a token fail right away
+        private Duration maxQueueWait = Duration.ofSeconds(5);
+        // per attempt, until the response headers arrive
+        private Duration timeout = Duration.ofSeconds(10);
+        private Retry retry = new Retry();
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+        private Connection connection = new Connection();
+
+        public Upstream(Search search, List<RateLimit> rateLimits) {
+            this.search = search;
+            this.rateLimits = new ArrayList<>(rateLimits);
+        }
+    }
+
+    // multi-page search, see as.tobi.chidorispring.utils.PagedSearch
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Search {
+        // pages fetched per search at most, including the first one
+        private int maxPages;
+        // pages requested at the same time after the first one
+        private int concurrency;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RateLimit {
+        private int permits;
+        private Duration period;
+    }
+
+    // retries of GET requests on 429, 5xx, timeouts and connection errors
+    @Data
+    public static class Retry {
+        // including the first attempt
+        private int maxAttempts = 3;
+        // exponential backoff with jitter between these, unless the upstream sends Retry-After
+        private Duration minBackoff = Duration.ofMillis(200);
+        private Duration maxBackoff = Duration.ofSeconds(2);
+        // a longer Retry-After is not waited for, the request fails instead
+        private Duration maxRetryAfter = Duration.ofSeconds(5);
+    }
+
+    // reactor netty connection pool and codec settings
+    @Data
+    public static class Connection {
+        private int maxConnections = 50;
+        // requests waiting for a free connection, beyond this they fail
+        private int pendingAcquireMaxCount = 500;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(10);
+        // keep warm connections around, but drop them before the server or a proxy does
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInterval = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        // Accept-Encoding: gzip and transparent decompression
+        private boolean compress = true;
+        // negotiated through ALPN, falls back to HTTP/1.1
+        private boolean http2 = true;
+        // largest response body decoded in memory
+        private DataSize maxInMemorySize = DataSize.ofMegabytes(4);
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        // consecutive failed requests (after retries) that open the circuit
+        private int failureThreshold = 5;
+        // how long requests fail fast before one trial request is let through
+        private Duration openDuration = Duration.ofSeconds(30);
+    }
+}
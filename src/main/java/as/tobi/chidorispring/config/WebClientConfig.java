@@ -1,37 +1,69 @@
 package as.tobi.chidorispring.config;
 
+import as.tobi.chidorispring.client.UpstreamGuard;
+import as.tobi.chidorispring.client.UpstreamMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
+@EnableConfigurationProperties(UpstreamProperties.class)
 public class WebClientConfig {
     @Bean
-    public WebClient kitsuWebClient() {
-        return WebClient.builder()
+    public WebClient kitsuWebClient(UpstreamProperties upstreamProperties, MeterRegistry meterRegistry) {
+        return upstreamClient("kitsu", upstreamProperties.getKitsu())
                 .baseUrl("https://kitsu.io/api/edge")
                 .defaultHeader("Accept", "application/vnd.api+json")
                 .defaultHeader("Content-Type", "application/vnd.api+json")
                 .defaultHeader("User-Agent", "AnimeApp/1.0")
-                .filter(ExchangeFilterFunction.ofRequestProcessor(clientRequest -> {
-                    System.out.println("Request: " + clientRequest.url());
-                    return Mono.just(clientRequest);
-                }))
+                .filter(new UpstreamGuard("kitsu", upstreamProperties.getKitsu()))
+                // inside the guard, so every attempt is measured on its own
+                .filter(new UpstreamMetrics("kitsu", meterRegistry, upstreamProperties.getDebugLogSampleRate()))
                 .build();
     }
 
     @Bean
-    public WebClient jikanWebClient() {
-        return WebClient.builder()
+    public WebClient jikanWebClient(UpstreamProperties upstreamProperties, MeterRegistry meterRegistry) {
+        return upstreamClient("jikan", upstreamProperties.getJikan())
                 .baseUrl("https://api.jikan.moe/v4")
                 .defaultHeader("Accept", "application/json")
                 .defaultHeader("User-Agent", "AnimeApp/1.0")
-                .filter(ExchangeFilterFunction.ofRequestProcessor(clientRequest -> {
-                    System.out.println("Request: " + clientRequest.url());
-                    return Mono.just(clientRequest);
-                }))
+                .filter(new UpstreamGuard("jikan", upstreamProperties.getJikan()))
+                // inside the guard, so every attempt is measured on its own
+                .filter(new UpstreamMetrics("jikan", meterRegistry, upstreamProperties.getDebugLogSampleRate()))
+                .build();
+    }
+
+    // own connection pool per upstream, so one slow API cannot starve the other
+    private WebClient.Builder upstreamClient(String name, UpstreamProperties.Upstream settings) {
+        UpstreamProperties.Connection connection = settings.getConnection();
+        ConnectionProvider provider = ConnectionProvider.builder(name)
+                .maxConnections(connection.getMaxConnections())
+                .pendingAcquireMaxCount(connection.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(connection.getPendingAcquireTimeout())
+                .maxIdleTime(connection.getMaxIdleTime())
+                .maxLifeTime(connection.getMaxLifeTime())
+                .evictInBackground(connection.getEvictInterval())
                 .build();
+
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connection.getConnectTimeout().toMillis())
+                .compress(connection.isCompress());
+        if (connection.isHttp2()) {
+            // h2 needs TLS with ALPN, servers without it get HTTP/1.1
+            httpClient = httpClient.secure().protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // kitsu pages with include=categories are larger than the 256KB default
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) connection.getMaxInMemorySize().toBytes()));
     }
-}
\ No newline at end of file
+}
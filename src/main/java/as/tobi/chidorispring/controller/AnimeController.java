@@ -1,14 +1,21 @@
 package as.tobi.chidorispring.controller;
 
+import as.tobi.chidorispring.cache.StaleMarker;
+import as.tobi.chidorispring.dto.catalog.AggregatedSearchResponse;
 import as.tobi.chidorispring.dto.kitsu.response.AnimeFullInfoResponse;
 import as.tobi.chidorispring.dto.kitsu.response.AnimeSimpleResponse;
 import as.tobi.chidorispring.dto.kitsu.response.PaginatedAnimeResponse;
+import as.tobi.chidorispring.service.AnimeCacheWarmer;
+import as.tobi.chidorispring.service.AnimeCatalogService;
 import as.tobi.chidorispring.service.JikanService;
 import as.tobi.chidorispring.service.KitsuService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
 import java.util.List;
 
@@ -16,49 +23,97 @@ import java.util.List;
 @RequestMapping("/api/anime")
 @RequiredArgsConstructor
 public class AnimeController {
+    private static final String STALE_HEADER = "X-Cache-Stale";
+
     private final KitsuService kitsuService;
     private final JikanService jikanService;
+    private final AnimeCatalogService animeCatalogService;
+    private final AnimeCacheWarmer animeCacheWarmer;
 
     @GetMapping
-    public Mono<PaginatedAnimeResponse> getAnime(
+    public Mono<ResponseEntity<PaginatedAnimeResponse>> getAnime(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size) {
-        return kitsuService.getAnimeWithGenres(page, size);
+        return withStaleHeader(kitsuService.getAnimeWithGenres(page, size));
     }
 
     @GetMapping("/search")
-    public Mono<List<AnimeSimpleResponse>> searchAnime(
+    public Mono<ResponseEntity<List<AnimeSimpleResponse>>> searchAnime(
             @RequestParam String query) {
-        return kitsuService.searchAnimeAcrossAllPages(query);
+        return withStaleHeader(kitsuService.searchAnimeAcrossAllPages(query));
+    }
+
+    // results as they arrive from upstream, as NDJSON or server-sent events depending on Accept
+    @GetMapping(value = "/search/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<AnimeSimpleResponse> streamSearchAnime(
+            @RequestParam String query) {
+        return kitsuService.streamAnimeSearch(query);
+    }
+
+    // suggestions while typing, never calls kitsu
+    @GetMapping("/autocomplete")
+    public Mono<List<AnimeSimpleResponse>> autocompleteAnime(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        return kitsuService.autocomplete(query, limit);
     }
 
     @GetMapping("/search/full-info")
-    public Mono<List<AnimeFullInfoResponse>> searchAnime(
+    public Mono<ResponseEntity<List<AnimeFullInfoResponse>>> searchAnime(
             @RequestParam String query,
             @RequestParam(defaultValue = "5") int limit) {
-        return kitsuService.getAnimeFullInfoByTitle(query, limit);
+        return withStaleHeader(kitsuService.getAnimeFullInfoByTitle(query, limit));
     }
 
     @GetMapping("/jikan")
-    public Mono<as.tobi.chidorispring.dto.jikan.response.PaginatedAnimeResponse> getAnimeJikan(
+    public Mono<ResponseEntity<as.tobi.chidorispring.dto.jikan.response.PaginatedAnimeResponse>> getAnimeJikan(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size) {
-        return jikanService.getAnimeWithGenres(page, size);
+        return withStaleHeader(jikanService.getAnimeWithGenres(page, size));
     }
 
     @GetMapping("/jikan/search")
-    public Mono<List<as.tobi.chidorispring.dto.jikan.response.AnimeSimpleResponse>> searchAnimeJikan(
+    public Mono<ResponseEntity<List<as.tobi.chidorispring.dto.jikan.response.AnimeSimpleResponse>>> searchAnimeJikan(
+            @RequestParam String query) {
+        return withStaleHeader(jikanService.searchAnimeAcrossAllPages(query));
+    }
+
+    @GetMapping(value = "/jikan/search/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<as.tobi.chidorispring.dto.jikan.response.AnimeSimpleResponse> streamSearchAnimeJikan(
             @RequestParam String query) {
-        return jikanService.searchAnimeAcrossAllPages(query);
+        return jikanService.streamAnimeSearch(query);
+    }
+
+    @GetMapping("/jikan/autocomplete")
+    public Mono<List<as.tobi.chidorispring.dto.jikan.response.AnimeSimpleResponse>> autocompleteAnimeJikan(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        return jikanService.autocomplete(query, limit);
     }
 
     @GetMapping("/jikan/search/full-info")
-    public Mono<List<as.tobi.chidorispring.dto.jikan.response.AnimeFullInfoResponse>> searchAnimeFullInfoJikan(
+    public Mono<ResponseEntity<List<as.tobi.chidorispring.dto.jikan.response.AnimeFullInfoResponse>>> searchAnimeFullInfoJikan(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "5") int limit) {
+        return withStaleHeader(jikanService.getAnimeFullInfoByTitle(query, limit));
+    }
+
+    // kitsu and jikan results in one response, partial when a provider is slow or down
+    @GetMapping("/catalog/search")
+    public Mono<ResponseEntity<AggregatedSearchResponse>> searchAnimeCatalog(
             @RequestParam String query,
             @RequestParam(defaultValue = "5") int limit) {
-        return jikanService.getAnimeFullInfoByTitle(query, limit);
+        return withStaleHeader(animeCatalogService.searchByTitle(query, limit));
     }
 
+    // reloads the hot cache entries in the background instead of wiping the caches
+    @PostMapping("/refresh")
+    public ResponseEntity<String> refreshCache() {
+        animeCacheWarmer.refreshInBackground();
+        return ResponseEntity.accepted().body("Cache refresh started");
+    }
+
+    // wipes both anime caches, every following request goes upstream until they are filled again
     @PostMapping("/clear")
     public ResponseEntity<String> clearCache() {
         kitsuService.evictAllCache();
@@ -66,4 +121,15 @@ public class AnimeController {
         return ResponseEntity.ok("All caches cleared successfully");
     }
 
-}
\ No newline at end of file
+    // cache-backed responses say when they were served from a stale copy because the upstream failed
+    private <T> Mono<ResponseEntity<T>> withStaleHeader(Mono<T> body) {
+        return Mono.defer(() -> {
+            StaleMarker staleMarker = new StaleMarker();
+            return body
+                    .map(value -> staleMarker.isStale()
+                            ? ResponseEntity.ok().header(STALE_HEADER, "true").body(value)
+                            : ResponseEntity.ok(value))
+                    .contextWrite(Context.of(StaleMarker.CONTEXT_KEY, staleMarker));
+        });
+    }
+}
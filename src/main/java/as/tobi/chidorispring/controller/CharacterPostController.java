@@ -23,6 +23,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import as.tobi.chidorispring.dto.characterPost.CharacterPostCommentDTO;
 import as.tobi.chidorispring.dto.characterPost.CharacterPostDTO;
+import as.tobi.chidorispring.dto.characterPost.CharacterPostPageDTO;
 import as.tobi.chidorispring.dto.characterPost.CommentRequestDTO;
 import as.tobi.chidorispring.entity.CharacterPost;
 import as.tobi.chidorispring.exceptions.InternalViolationException;
@@ -72,6 +73,17 @@ public class CharacterPostController {
         return ResponseEntity.ok(posts);
     }
 
+    @GetMapping("/feed")
+    @Transactional(readOnly = true)
+    public ResponseEntity<CharacterPostPageDTO> getPostsFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String anime,
+            Principal principal) {
+        String userEmail = principal != null ? principal.getName() : null;
+        return ResponseEntity.ok(postService.findPostsPage(cursor, size, userEmail, anime));
+    }
+
     @GetMapping("/{postId}")
     @Transactional(readOnly = true)
     public ResponseEntity<CharacterPostDTO> getPostById(
@@ -189,4 +201,13 @@ public class CharacterPostController {
         return ResponseEntity.ok(posts);
     }
 
+    @GetMapping("/recommended/feed")
+    @Transactional(readOnly = true)
+    public ResponseEntity<CharacterPostPageDTO> getRecommendedPostsFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            Principal principal) {
+        return ResponseEntity.ok(postService.getRecommendedPostsPage(principal.getName(), cursor, size));
+    }
+
 }
\ No newline at end of file
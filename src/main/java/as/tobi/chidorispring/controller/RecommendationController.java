@@ -2,46 +2,80 @@ package as.tobi.chidorispring.controller;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import as.tobi.chidorispring.dto.RecommendationJobDTO;
 import as.tobi.chidorispring.dto.characterPost.CharacterPostDTO;
 import as.tobi.chidorispring.dto.userProfile.UserProfileShortDTO;
 import as.tobi.chidorispring.entity.CharacterPost;
-import as.tobi.chidorispring.service.RecommendationService;
+import as.tobi.chidorispring.service.RecommendationEngine;
+import as.tobi.chidorispring.service.UserService;
 
 @RestController
 @RequestMapping("/api/recommendations")
 public class RecommendationController {
-    private final RecommendationService recommendationService;
+    private final RecommendationEngine recommendationEngine;
+    private final UserService userService;
 
-    public RecommendationController(RecommendationService recommendationService) {
-        this.recommendationService = recommendationService;
+    public RecommendationController(RecommendationEngine recommendationEngine, UserService userService) {
+        this.recommendationEngine = recommendationEngine;
+        this.userService = userService;
     }
 
+    // Served from the stored results, 202 with an empty list while the first ones are computed, 404 for unknown users
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<CharacterPostDTO>> getRecommendationsForUser(@PathVariable Long userId) {
-        List<CharacterPost> recommendations = recommendationService.getRecommendationsForUser(userId);
-        List<CharacterPostDTO> dtos = recommendations.stream()
+        Optional<List<CharacterPost>> recommendations = recommendationEngine.getRecommendations(userId);
+        if (recommendations.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(List.of());
+        }
+        List<CharacterPostDTO> dtos = recommendations.get().stream()
             .map(this::convertToDto)
             .collect(Collectors.toList());
         return ResponseEntity.ok(dtos);
     }
 
+    // Only the user themselves or an admin can queue a run
+    @PostMapping("/user/{userId}/refresh")
+    public ResponseEntity<RecommendationJobDTO> refreshRecommendations(@PathVariable Long userId,
+                                                                       Authentication authentication) {
+        if (!isSelfOrAdmin(userId, authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(recommendationEngine.requestRefresh(userId));
+    }
+
+    // Job details are the user's own, same rule as refresh
+    @GetMapping("/user/{userId}/status")
+    public ResponseEntity<RecommendationJobDTO> getRecommendationStatus(@PathVariable Long userId,
+                                                                        Authentication authentication) {
+        if (!isSelfOrAdmin(userId, authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return recommendationEngine.getStatus(userId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private boolean isSelfOrAdmin(Long userId, Authentication authentication) {
+        boolean isAdmin = authentication.getAuthorities().stream()
+            .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"));
+        return isAdmin || userService.getUserByEmail(authentication.getName()).getId().equals(userId);
+    }
+
     private CharacterPostDTO convertToDto(CharacterPost post) {
-        // Diagnostic logging
-        System.out.println("Processing post ID: " + post.getId());
-        System.out.println("Post character name: " + post.getCharacterName());
-        System.out.println("Post anime: " + post.getAnime());
-        
         // Ensure genres are never null
         List<String> genres = post.getAnimeGenre() != null ? post.getAnimeGenre() : new ArrayList<>();
-        System.out.println("Genres for post " + post.getId() + ": " + genres);
 
         return CharacterPostDTO.builder()
             .id(post.getId())
@@ -59,8 +93,8 @@ public class RecommendationController {
                 : null)
             .createdAt(post.getCreatedAt())
             .updatedAt(post.getUpdatedAt())
-            .likeCount(post.getLikes().size())
-            .commentCount(post.getComments().size())
+            .likeCount(post.getLikeCount())
+            .commentCount(post.getCommentCount())
             .isLiked(false)
             .isFavorited(false)
             .build();
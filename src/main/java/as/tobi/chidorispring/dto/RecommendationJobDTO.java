@@ -0,0 +1,24 @@
+package as.tobi.chidorispring.dto;
+
+import java.time.LocalDateTime;
+
+import as.tobi.chidorispring.enums.RecommendationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Status of a user's recommendation job, see RecommendationEngine
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationJobDTO {
+    private Long userId;
+    private RecommendationStatus status;
+    private int recommendationCount;
+    private LocalDateTime requestedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime computedAt;
+    private String error;
+}
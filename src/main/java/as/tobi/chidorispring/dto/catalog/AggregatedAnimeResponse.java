@@ -0,0 +1,32 @@
+package as.tobi.chidorispring.dto.catalog;
+
+import as.tobi.chidorispring.enums.AnimeSource;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+// One anime as known to Kitsu, Jikan or both
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AggregatedAnimeResponse implements Serializable {
+    private String title;
+    private String englishTitle;
+    private String japaneseTitle;
+    private Integer year;
+    private String synopsis;
+    private List<String> genres;
+    private String type;
+    private Integer episodeCount;
+    private String status;
+    private Double score; // MyAnimeList score, jikan only
+    private String posterImage;
+    private String kitsuId;
+    private Long malId;
+    private List<AnimeSource> sources;
+}
@@ -0,0 +1,21 @@
+package as.tobi.chidorispring.dto.catalog;
+
+import as.tobi.chidorispring.enums.AnimeSource;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AggregatedSearchResponse implements Serializable {
+    private List<AggregatedAnimeResponse> results;
+    // true when a provider failed or timed out and its results are missing
+    private boolean partial;
+    private List<AnimeSource> unavailableSources;
+}
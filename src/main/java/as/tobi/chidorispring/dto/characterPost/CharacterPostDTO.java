@@ -2,15 +2,19 @@ package as.tobi.chidorispring.dto.characterPost;
 
 
 import as.tobi.chidorispring.dto.userProfile.UserProfileShortDTO;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
 public class CharacterPostDTO implements Serializable {
     private Long id;
     private String characterName;
@@ -0,0 +1,15 @@
+package as.tobi.chidorispring.dto.characterPost;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+public class CharacterPostPageDTO implements Serializable {
+    private List<CharacterPostDTO> posts;
+    private String nextCursor; // null when there are no more posts
+    private boolean hasNext;
+}
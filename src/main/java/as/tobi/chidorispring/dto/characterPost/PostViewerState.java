@@ -0,0 +1,27 @@
+package as.tobi.chidorispring.dto.characterPost;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Set;
+
+// Like/favorite flags of a single viewer for a batch of posts
+@Getter
+@AllArgsConstructor
+public class PostViewerState {
+    private final Set<Long> likedPostIds;
+    private final Set<Long> favoritedPostIds;
+
+    public static PostViewerState empty() {
+        return new PostViewerState(Collections.emptySet(), Collections.emptySet());
+    }
+
+    public boolean isLiked(Long postId) {
+        return likedPostIds.contains(postId);
+    }
+
+    public boolean isFavorited(Long postId) {
+        return favoritedPostIds.contains(postId);
+    }
+}
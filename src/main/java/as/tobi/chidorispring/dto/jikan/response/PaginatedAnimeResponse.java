@@ -1,13 +1,17 @@
 package as.tobi.chidorispring.dto.jikan.response;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
 import java.util.List;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class PaginatedAnimeResponse implements Serializable {
     private List<AnimeSimpleResponse> data;
     private int currentPage;
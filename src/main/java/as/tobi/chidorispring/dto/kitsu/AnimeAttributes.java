@@ -11,7 +11,9 @@ public class AnimeAttributes {
     private PosterImage posterImage;
     private Map<String, String> titles;
     private Integer episodeCount;
+    private String startDate; // yyyy-MM-dd
     private String status;
     private String ageRating;
     private String ageRatingGuide;
+    private String updatedAt; // ISO-8601 instant
 }
\ No newline at end of file
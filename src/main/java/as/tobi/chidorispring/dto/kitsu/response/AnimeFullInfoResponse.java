@@ -16,7 +16,9 @@ public class AnimeFullInfoResponse implements Serializable {
     private PosterImage posterImages;
     private List<String> genres;
     private Integer episodeCount;
+    private String startDate;
     private String status;
     private String ageRating;
     private String ageRatingGuide;
+    private String updatedAt;
 }
\ No newline at end of file
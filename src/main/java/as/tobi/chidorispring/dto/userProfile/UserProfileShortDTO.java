@@ -1,13 +1,17 @@
 package as.tobi.chidorispring.dto.userProfile;
 
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class UserProfileShortDTO implements Serializable {
     private Long id;
     private String username;
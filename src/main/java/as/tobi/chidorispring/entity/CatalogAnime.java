@@ -0,0 +1,92 @@
+package as.tobi.chidorispring.entity;
+
+import as.tobi.chidorispring.enums.AnimeSource;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Local copy of one upstream anime, kept up to date by CatalogSyncService
+@Entity
+@Table(name = "catalog_anime",
+        uniqueConstraints = @UniqueConstraint(name = "uk_catalog_anime_source_external_id", columnNames = {"source", "external_id"}))
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogAnime {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private AnimeSource source;
+
+    // kitsu id or MyAnimeList id, also the catalogue order
+    @Column(name = "external_id", nullable = false)
+    private Long externalId;
+
+    // canonical title (kitsu) or default title (jikan)
+    @Column(length = 500)
+    private String title;
+
+    @Column(length = 500)
+    private String englishTitle;
+
+    @Column(length = 500)
+    private String japaneseTitle;
+
+    @Column(columnDefinition = "TEXT")
+    private String synopsis;
+
+    private String type;
+    private String status;
+    private Integer episodeCount;
+    private Double score;
+    private String ageRating;
+    private String ageRatingGuide;
+    // start date (kitsu) or formatted airing period (jikan)
+    private String aired;
+
+    private String trailerYoutubeId;
+    private String trailerUrl;
+    private String trailerEmbedUrl;
+
+    // every known title, searched by the mirror
+    @ElementCollection
+    @CollectionTable(name = "catalog_anime_titles", joinColumns = @JoinColumn(name = "anime_id"))
+    @Column(name = "title", length = 500)
+    @BatchSize(size = 100)
+    @Builder.Default
+    private Set<String> titles = new LinkedHashSet<>();
+
+    @ElementCollection
+    @CollectionTable(name = "catalog_anime_genres", joinColumns = @JoinColumn(name = "anime_id"))
+    @Column(name = "genre")
+    @BatchSize(size = 100)
+    @Builder.Default
+    private List<String> genres = new ArrayList<>();
+
+    // image url by kind, e.g. "medium" (kitsu poster) or "jpg_large" (jikan)
+    @ElementCollection
+    @CollectionTable(name = "catalog_anime_images", joinColumns = @JoinColumn(name = "anime_id"))
+    @MapKeyColumn(name = "kind", length = 32)
+    @Column(name = "url", length = 1000)
+    @BatchSize(size = 100)
+    @Builder.Default
+    private Map<String, String> images = new HashMap<>();
+
+    @Column(name = "synced_at", nullable = false)
+    private LocalDateTime syncedAt;
+}
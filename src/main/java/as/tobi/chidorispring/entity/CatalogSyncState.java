@@ -0,0 +1,44 @@
+package as.tobi.chidorispring.entity;
+
+import as.tobi.chidorispring.enums.AnimeSource;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+// Where the catalogue sync of one source stopped
+@Entity
+@Table(name = "catalog_sync_state")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogSyncState {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private AnimeSource source;
+
+    // next upstream page to fetch, 1 starts a new pass
+    @Column(name = "next_page", nullable = false)
+    private int nextPage;
+
+    @Column(name = "last_synced_at")
+    private LocalDateTime lastSyncedAt;
+
+    // end of the last complete pass, the mirror is served once this is set
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    // upstream updatedAt the mirror has caught up with, sources paged newest-updated first stop there
+    @Column(name = "watermark")
+    private Instant watermark;
+
+    // newest updatedAt of the pass in progress, becomes the watermark once the pass ends
+    @Column(name = "next_watermark")
+    private Instant nextWatermark;
+}
@@ -7,13 +7,17 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "character_posts")
+@Table(name = "character_posts", indexes = {
+        @Index(name = "idx_character_posts_created_at_id", columnList = "created_at DESC, id DESC"),
+        @Index(name = "idx_character_posts_user_created_at_id", columnList = "user_id, created_at DESC, id DESC")
+})
 @Data
 @Builder
 @AllArgsConstructor
@@ -62,6 +66,17 @@ public class CharacterPost {
     @Builder.Default
     private List<CharacterPostComment> comments = new ArrayList<>();
 
+    // Denormalized counters, changed only through atomic updates in CharacterPostRepository
+    @Column(name = "like_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private long likeCount = 0;
+
+    @Column(name = "comment_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private long commentCount = 0;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
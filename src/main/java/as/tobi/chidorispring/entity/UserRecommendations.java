@@ -0,0 +1,51 @@
+package as.tobi.chidorispring.entity;
+
+import as.tobi.chidorispring.enums.RecommendationStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Precomputed recommendations of one user and the state of the job computing them
+@Entity
+@Table(name = "user_recommendations")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserRecommendations {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private RecommendationStatus status;
+
+    // best first, kept from the last successful run while a new one is pending
+    @Builder.Default
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "user_recommendation_posts", joinColumns = @JoinColumn(name = "user_id"))
+    @OrderColumn(name = "position")
+    @Column(name = "post_id", nullable = false)
+    private List<Long> postIds = new ArrayList<>();
+
+    @Column(name = "requested_at")
+    private LocalDateTime requestedAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    // end of the last successful run, null until the first one
+    @Column(name = "computed_at")
+    private LocalDateTime computedAt;
+
+    // exception class of the last failed run, never its message
+    @Column(length = 500)
+    private String error;
+}
@@ -0,0 +1,6 @@
+package as.tobi.chidorispring.enums;
+
+public enum AnimeSource {
+    KITSU,
+    JIKAN
+}
@@ -0,0 +1,9 @@
+package as.tobi.chidorispring.enums;
+
+// State of a user's recommendation job
+public enum RecommendationStatus {
+    PENDING,
+    RUNNING,
+    READY,
+    FAILED
+}
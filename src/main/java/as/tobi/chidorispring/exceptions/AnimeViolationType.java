@@ -14,7 +14,9 @@ public enum AnimeViolationType {
     KITSU_API_ERROR(20005, "Kitsu API service unavailable", HttpStatus.SERVICE_UNAVAILABLE),
     JIKAN_API_ERROR(20005, "Jikan API service unavailable", HttpStatus.SERVICE_UNAVAILABLE),
     INVALID_KITSU_RESPONSE_FORMAT(20006, "Invalid response format from Kitsu API", HttpStatus.INTERNAL_SERVER_ERROR),
-    INVALID_JIKAN_RESPONSE_FORMAT(20006, "Invalid response format from Jikan API", HttpStatus.INTERNAL_SERVER_ERROR);
+    INVALID_JIKAN_RESPONSE_FORMAT(20006, "Invalid response format from Jikan API", HttpStatus.INTERNAL_SERVER_ERROR),
+    UPSTREAM_RATE_LIMITED(20007, "Too many anime requests, try again later", HttpStatus.TOO_MANY_REQUESTS),
+    UPSTREAM_UNAVAILABLE(20008, "Anime API temporarily unavailable", HttpStatus.SERVICE_UNAVAILABLE);
 
     private final int code;
     private final String message;
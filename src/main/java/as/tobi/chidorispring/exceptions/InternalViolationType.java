@@ -27,7 +27,9 @@ public enum InternalViolationType {
     COMMENT_NOT_FOUND(10015, "Comment not found", HttpStatus.NOT_FOUND),
     INVALID_CHAT_ROOM(10016, "Invalid chat room" , HttpStatus.BAD_REQUEST),
     CHAT_ROOM_ALREADY_EXISTS(10017, "Chat room already exists" , HttpStatus.BAD_REQUEST),
-    CHAT_ROOM_NOT_FOUND(10018, "Chat room not found" , HttpStatus.BAD_REQUEST);
+    CHAT_ROOM_NOT_FOUND(10018, "Chat room not found" , HttpStatus.BAD_REQUEST),
+    INVALID_CURSOR(10019, "Invalid page cursor", HttpStatus.BAD_REQUEST),
+    USER_NOT_FOUND(10020, "User not found", HttpStatus.NOT_FOUND);
 
 
     private final int code;
@@ -10,7 +10,9 @@ import as.tobi.chidorispring.dto.kitsu.response.PaginatedAnimeResponse;
 import org.springframework.stereotype.Component;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -21,9 +23,7 @@ public class AnimeMapper {
     // converts kitsu api response to paginated response with anime list and metadata
     public PaginatedAnimeResponse toPaginatedResponse(KitsuResponse kitsuResponse, int page, int size) {
         // map each anime data to simple response dto
-        List<AnimeSimpleResponse> animeList = kitsuResponse.getData().stream()
-                .map(anime -> toAnimeSimpleResponse(anime, kitsuResponse.getIncluded()))
-                .collect(Collectors.toList());
+        List<AnimeSimpleResponse> animeList = toAnimeSimpleResponses(kitsuResponse.getData(), kitsuResponse.getIncluded());
 
         // build pagination response
         PaginatedAnimeResponse response = new PaginatedAnimeResponse();
@@ -36,29 +36,32 @@ public class AnimeMapper {
         return response;
     }
 
+    // converts anime of one kitsu response, resolving genres through one index of its included list
+    public List<AnimeSimpleResponse> toAnimeSimpleResponses(List<AnimeData> animeList, List<Included> included) {
+        Map<String, String> genresById = genresById(included);
+        return animeList.stream()
+                .map(anime -> toAnimeSimpleResponse(anime, genresById))
+                .collect(Collectors.toList());
+    }
+
+    public List<AnimeFullInfoResponse> toAnimeFullInfoResponses(List<AnimeData> animeList, List<Included> included) {
+        Map<String, String> genresById = genresById(included);
+        return animeList.stream()
+                .map(anime -> toAnimeFullInfoResponse(anime, genresById))
+                .collect(Collectors.toList());
+    }
+
     // converts anime data to simplified response with title and genres
-    public AnimeSimpleResponse toAnimeSimpleResponse(AnimeData animeData, List<Included> included) {
+    // genresById comes from genresById(response.getIncluded()), built once per kitsu response
+    public AnimeSimpleResponse toAnimeSimpleResponse(AnimeData animeData, Map<String, String> genresById) {
         AnimeSimpleResponse dto = new AnimeSimpleResponse();
         dto.setTitle(animeData.getAttributes().getCanonicalTitle());
-
-        // safely map genres if relationships exist
-        if (animeData.getRelationships() != null
-                && animeData.getRelationships().getCategories() != null
-                && animeData.getRelationships().getCategories().getData() != null) {
-
-            dto.setGenres(animeData.getRelationships().getCategories().getData().stream()
-                    .map(categoryLink -> findGenreName(included, categoryLink.getId()))
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList()));
-        } else {
-            dto.setGenres(Collections.emptyList());
-        }
-
+        dto.setGenres(findGenres(animeData, genresById));
         return dto;
     }
 
     // converts anime data to full detailed response with all available information
-    public AnimeFullInfoResponse toAnimeFullInfoResponse(AnimeData animeData, List<Included> included) {
+    public AnimeFullInfoResponse toAnimeFullInfoResponse(AnimeData animeData, Map<String, String> genresById) {
         AnimeFullInfoResponse response = new AnimeFullInfoResponse();
 
         // basic info mapping
@@ -84,44 +87,54 @@ public class AnimeMapper {
         }
 
         // map genres from included relationships
-        if (animeData.getRelationships() != null
-                && animeData.getRelationships().getCategories() != null
-                && animeData.getRelationships().getCategories().getData() != null) {
-
-            response.setGenres(animeData.getRelationships().getCategories().getData().stream()
-                    .map(link -> findGenreName(included, link.getId()))
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList()));
-        } else {
-            response.setGenres(Collections.emptyList());
-        }
+        response.setGenres(findGenres(animeData, genresById));
 
         // additional metadata mapping
         response.setEpisodeCount(animeData.getAttributes().getEpisodeCount());
+        response.setStartDate(animeData.getAttributes().getStartDate());
         response.setStatus(animeData.getAttributes().getStatus());
         response.setAgeRating(animeData.getAttributes().getAgeRating());
         response.setAgeRatingGuide(animeData.getAttributes().getAgeRatingGuide());
+        response.setUpdatedAt(animeData.getAttributes().getUpdatedAt());
 
         return response;
     }
 
-    // helper method to find genre name by category id in included data
-    private String findGenreName(List<Included> included, String categoryId) {
-        if (included == null) return null;
-
-        return included.stream()
-                // filter valid category items
-                .filter(item -> item != null && "categories".equals(item.getType()))
-                // match by category id
-                .filter(item -> categoryId.equals(item.getId()))
-                .findFirst()
-                // prefer title attribute, fallback to name
-                .map(item -> {
-                    if (item.getAttributes() == null) return null;
-                    return item.getAttributes().getTitle() != null ?
-                            item.getAttributes().getTitle() :
-                            item.getAttributes().getName();
-                })
-                .orElse(null);
+    // category id -> genre name of the categories in a response's included list
+    public Map<String, String> genresById(List<Included> included) {
+        if (included == null) return Collections.emptyMap();
+
+        Map<String, String> genres = new HashMap<>();
+        for (Included item : included) {
+            // only valid category items with a name
+            if (item == null || !"categories".equals(item.getType())
+                    || item.getId() == null || item.getAttributes() == null) {
+                continue;
+            }
+            // prefer title attribute, fallback to name
+            String name = item.getAttributes().getTitle() != null ?
+                    item.getAttributes().getTitle() :
+                    item.getAttributes().getName();
+            if (name != null) {
+                // the first occurrence wins, like the lookup this replaces
+                genres.putIfAbsent(item.getId(), GenreNames.intern(name));
+            }
+        }
+        return genres;
+    }
+
+    // genre names of the anime's category links, unknown categories are skipped
+    private List<String> findGenres(AnimeData animeData, Map<String, String> genresById) {
+        // safely map genres if relationships exist
+        if (animeData.getRelationships() == null
+                || animeData.getRelationships().getCategories() == null
+                || animeData.getRelationships().getCategories().getData() == null) {
+            return Collections.emptyList();
+        }
+
+        return animeData.getRelationships().getCategories().getData().stream()
+                .map(categoryLink -> genresById.get(categoryLink.getId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 }
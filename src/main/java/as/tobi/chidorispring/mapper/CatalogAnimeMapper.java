@@ -0,0 +1,193 @@
+package as.tobi.chidorispring.mapper;
+
+import as.tobi.chidorispring.dto.jikan.JikanTrailer;
+import as.tobi.chidorispring.dto.jikan.images.JikanImageFormat;
+import as.tobi.chidorispring.dto.jikan.images.JikanImages;
+import as.tobi.chidorispring.dto.kitsu.PosterImage;
+import as.tobi.chidorispring.dto.kitsu.response.AnimeFullInfoResponse;
+import as.tobi.chidorispring.dto.kitsu.response.AnimeSimpleResponse;
+import as.tobi.chidorispring.entity.CatalogAnime;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+// Converts between upstream responses and the local catalogue mirror
+@Component
+public class CatalogAnimeMapper {
+
+    // copies a kitsu anime into a new or existing catalogue row
+    public void updateFromKitsu(CatalogAnime target, AnimeFullInfoResponse anime) {
+        target.setExternalId(Long.parseLong(anime.getId()));
+        target.setTitle(anime.getCanonicalTitle());
+        target.setEnglishTitle(anime.getEnglishTitle());
+        target.setJapaneseTitle(anime.getJapaneseTitle());
+        target.setSynopsis(anime.getDescription());
+        target.setEpisodeCount(anime.getEpisodeCount());
+        target.setStatus(anime.getStatus());
+        target.setAgeRating(anime.getAgeRating());
+        target.setAgeRatingGuide(anime.getAgeRatingGuide());
+        target.setAired(anime.getStartDate());
+        replaceTitles(target, anime.getCanonicalTitle(), anime.getEnglishTitle(), anime.getJapaneseTitle());
+        replaceGenres(target, anime.getGenres());
+
+        target.getImages().clear();
+        PosterImage poster = anime.getPosterImages();
+        if (poster != null) {
+            putImage(target, "tiny", poster.getTiny());
+            putImage(target, "small", poster.getSmall());
+            putImage(target, "medium", poster.getMedium());
+            putImage(target, "large", poster.getLarge());
+            putImage(target, "original", poster.getOriginal());
+        }
+        target.setSyncedAt(LocalDateTime.now());
+    }
+
+    // copies a jikan anime into a new or existing catalogue row
+    public void updateFromJikan(CatalogAnime target, as.tobi.chidorispring.dto.jikan.response.AnimeFullInfoResponse anime) {
+        target.setExternalId(anime.getId());
+        target.setTitle(anime.getTitle());
+        target.setJapaneseTitle(anime.getJapaneseTitle());
+        target.setSynopsis(anime.getSynopsis());
+        target.setType(anime.getType());
+        target.setEpisodeCount(anime.getEpisodes());
+        target.setScore(anime.getScore());
+        target.setStatus(anime.getStatus());
+        target.setAired(anime.getAired());
+        replaceTitles(target, anime.getTitle(), anime.getJapaneseTitle());
+        replaceGenres(target, anime.getGenres());
+
+        JikanTrailer trailer = anime.getTrailer();
+        target.setTrailerYoutubeId(trailer != null ? trailer.getYoutubeId() : null);
+        target.setTrailerUrl(trailer != null ? trailer.getUrl() : null);
+        target.setTrailerEmbedUrl(trailer != null ? trailer.getEmbedUrl() : null);
+
+        target.getImages().clear();
+        if (anime.getImages() != null) {
+            putImageFormat(target, "jpg", anime.getImages().getJpg());
+            putImageFormat(target, "webp", anime.getImages().getWebp());
+        }
+        target.setSyncedAt(LocalDateTime.now());
+    }
+
+    public AnimeSimpleResponse toKitsuSimpleResponse(CatalogAnime anime) {
+        AnimeSimpleResponse dto = new AnimeSimpleResponse();
+        dto.setId(String.valueOf(anime.getExternalId()));
+        dto.setTitle(anime.getTitle());
+        dto.setGenres(new ArrayList<>(anime.getGenres()));
+        return dto;
+    }
+
+    public AnimeFullInfoResponse toKitsuFullInfoResponse(CatalogAnime anime) {
+        AnimeFullInfoResponse response = new AnimeFullInfoResponse();
+        response.setId(String.valueOf(anime.getExternalId()));
+        response.setCanonicalTitle(anime.getTitle());
+        response.setEnglishTitle(anime.getEnglishTitle());
+        response.setJapaneseTitle(anime.getJapaneseTitle());
+        response.setDescription(anime.getSynopsis());
+        response.setGenres(new ArrayList<>(anime.getGenres()));
+        response.setEpisodeCount(anime.getEpisodeCount());
+        response.setStatus(anime.getStatus());
+        response.setAgeRating(anime.getAgeRating());
+        response.setAgeRatingGuide(anime.getAgeRatingGuide());
+        response.setStartDate(anime.getAired());
+
+        Map<String, String> images = anime.getImages();
+        if (!images.isEmpty()) {
+            PosterImage poster = new PosterImage();
+            poster.setTiny(images.get("tiny"));
+            poster.setSmall(images.get("small"));
+            poster.setMedium(images.get("medium"));
+            poster.setLarge(images.get("large"));
+            poster.setOriginal(images.get("original"));
+            response.setPosterImages(poster);
+        }
+        return response;
+    }
+
+    public as.tobi.chidorispring.dto.jikan.response.AnimeSimpleResponse toJikanSimpleResponse(CatalogAnime anime) {
+        return as.tobi.chidorispring.dto.jikan.response.AnimeSimpleResponse.builder()
+                .id(anime.getExternalId())
+                .title(anime.getTitle())
+                .genres(new ArrayList<>(anime.getGenres()))
+                .build();
+    }
+
+    // trailer thumbnails are not mirrored
+    public as.tobi.chidorispring.dto.jikan.response.AnimeFullInfoResponse toJikanFullInfoResponse(CatalogAnime anime) {
+        JikanTrailer trailer = null;
+        if (anime.getTrailerUrl() != null || anime.getTrailerYoutubeId() != null) {
+            trailer = new JikanTrailer();
+            trailer.setYoutubeId(anime.getTrailerYoutubeId());
+            trailer.setUrl(anime.getTrailerUrl());
+            trailer.setEmbedUrl(anime.getTrailerEmbedUrl());
+        }
+
+        JikanImages images = null;
+        if (!anime.getImages().isEmpty()) {
+            images = new JikanImages();
+            images.setJpg(imageFormat(anime, "jpg"));
+            images.setWebp(imageFormat(anime, "webp"));
+        }
+
+        return as.tobi.chidorispring.dto.jikan.response.AnimeFullInfoResponse.builder()
+                .id(anime.getExternalId())
+                .title(anime.getTitle())
+                .japaneseTitle(anime.getJapaneseTitle())
+                .synopsis(anime.getSynopsis())
+                .genres(new ArrayList<>(anime.getGenres()))
+                .type(anime.getType())
+                .episodes(anime.getEpisodeCount())
+                .score(anime.getScore())
+                .status(anime.getStatus())
+                .aired(anime.getAired())
+                .images(images)
+                .trailer(trailer)
+                .build();
+    }
+
+    private void replaceTitles(CatalogAnime target, String... titles) {
+        target.getTitles().clear();
+        Stream.of(titles)
+                .filter(Objects::nonNull)
+                .filter(title -> !title.isBlank())
+                .forEach(target.getTitles()::add);
+    }
+
+    private void replaceGenres(CatalogAnime target, List<String> genres) {
+        target.getGenres().clear();
+        if (genres != null) {
+            target.getGenres().addAll(genres);
+        }
+    }
+
+    private void putImage(CatalogAnime target, String kind, String url) {
+        if (url != null) {
+            target.getImages().put(kind, url);
+        }
+    }
+
+    private void putImageFormat(CatalogAnime target, String prefix, JikanImageFormat format) {
+        if (format != null) {
+            putImage(target, prefix, format.getImageUrl());
+            putImage(target, prefix + "_small", format.getSmallImageUrl());
+            putImage(target, prefix + "_large", format.getLargeImageUrl());
+        }
+    }
+
+    private JikanImageFormat imageFormat(CatalogAnime anime, String prefix) {
+        Map<String, String> images = anime.getImages();
+        if (!images.containsKey(prefix) && !images.containsKey(prefix + "_large")) {
+            return null;
+        }
+        JikanImageFormat format = new JikanImageFormat();
+        format.setImageUrl(images.get(prefix));
+        format.setSmallImageUrl(images.get(prefix + "_small"));
+        format.setLargeImageUrl(images.get(prefix + "_large"));
+        return format;
+    }
+}
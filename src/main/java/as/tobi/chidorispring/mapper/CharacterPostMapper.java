@@ -2,34 +2,46 @@ package as.tobi.chidorispring.mapper;
 
 import as.tobi.chidorispring.dto.characterPost.CharacterPostCommentDTO;
 import as.tobi.chidorispring.dto.characterPost.CharacterPostDTO;
+import as.tobi.chidorispring.dto.characterPost.PostViewerState;
 import as.tobi.chidorispring.dto.characterPost.UpdateCharacterPostDTO;
 import as.tobi.chidorispring.dto.userProfile.UserProfileShortCommentDTO;
 import as.tobi.chidorispring.dto.userProfile.UserProfileShortDTO;
 import as.tobi.chidorispring.entity.CharacterPost;
 import as.tobi.chidorispring.entity.CharacterPostComment;
 import as.tobi.chidorispring.entity.UserProfile;
-import as.tobi.chidorispring.repository.UserFavoritePostRepository;
-import as.tobi.chidorispring.repository.LikeRepository;
+import as.tobi.chidorispring.service.PostViewerStateService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Component
 public class CharacterPostMapper {
     @Autowired
     private ObjectMapper objectMapper;
 
     @Autowired
-    private UserFavoritePostRepository userFavoritePostRepository;
-
-    @Autowired
-    private LikeRepository likeRepository;
+    private PostViewerStateService viewerStateService;
 
     public CharacterPostDTO toDto(CharacterPost post, Long currentUserId) {
-        boolean isFavorited = currentUserId != null && userFavoritePostRepository.existsByUserIdAndCharacterPostId(currentUserId, post.getId());
-        boolean isLiked = currentUserId != null && likeRepository.existsByCharacterPostIdAndUserId(post.getId(), currentUserId);
+        return toDto(post, viewerStateService.resolve(Collections.singletonList(post.getId()), currentUserId));
+    }
 
+    // Maps a whole page, resolving viewer flags with one batched lookup instead of two queries per post
+    public List<CharacterPostDTO> toDtoList(List<CharacterPost> posts, Long currentUserId) {
+        PostViewerState viewerState = viewerStateService.resolve(
+                posts.stream().map(CharacterPost::getId).toList(), currentUserId);
+
+        return posts.stream()
+                .map(post -> toDto(post, viewerState))
+                .collect(Collectors.toList());
+    }
+
+    public CharacterPostDTO toDto(CharacterPost post, PostViewerState viewerState) {
         return CharacterPostDTO.builder()
                 .id(post.getId())
                 .characterName(post.getCharacterName())
@@ -40,16 +52,37 @@ public class CharacterPostMapper {
                 .author(toUserShortDto(post.getUser()))
                 .createdAt(post.getCreatedAt())
                 .updatedAt(post.getUpdatedAt())
-                .likeCount(post.getLikes().size()) // Calculate like count
-                .commentCount(post.getComments().size()) // Calculate comment count
-                .isFavorited(isFavorited)
-                .isLiked(isLiked)
+                .likeCount(post.getLikeCount())
+                .commentCount(post.getCommentCount())
+                .isFavorited(viewerState.isFavorited(post.getId()))
+                .isLiked(viewerState.isLiked(post.getId()))
+                .build();
+    }
+
+    // Stamps the viewer's like/favorite flags onto viewer-independent (cached) post copies
+    public List<CharacterPostDTO> applyViewerState(List<CharacterPostDTO> posts, Long currentUserId) {
+        PostViewerState viewerState = viewerStateService.resolve(
+                posts.stream().map(CharacterPostDTO::getId).toList(), currentUserId);
+
+        return posts.stream()
+                .map(post -> applyViewerState(post, viewerState))
+                .collect(Collectors.toList());
+    }
+
+    public CharacterPostDTO applyViewerState(CharacterPostDTO post, Long currentUserId) {
+        return applyViewerState(post, viewerStateService.resolve(Collections.singletonList(post.getId()), currentUserId));
+    }
+
+    private CharacterPostDTO applyViewerState(CharacterPostDTO post, PostViewerState viewerState) {
+        return post.toBuilder()
+                .isFavorited(viewerState.isFavorited(post.getId()))
+                .isLiked(viewerState.isLiked(post.getId()))
                 .build();
     }
 
     // Overload for cases where currentUserId is not provided
     public CharacterPostDTO toDto(CharacterPost post) {
-        return toDto(post, null);
+        return toDto(post, PostViewerState.empty());
     }
 
     public CharacterPostCommentDTO toCommentDto(CharacterPostComment comment) {
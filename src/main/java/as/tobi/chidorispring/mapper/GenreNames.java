@@ -0,0 +1,31 @@
+package as.tobi.chidorispring.mapper;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Canonical instances of genre names. Every mapped anime carries a few of the same couple of hundred
+// genres, so responses held in the local caches share one string per genre instead of one per anime.
+public final class GenreNames {
+    // upstream genres are a small fixed set, the bound only guards against unexpected data
+    private static final int MAX_SIZE = 2_000;
+
+    private static final ConcurrentMap<String, String> NAMES = new ConcurrentHashMap<>();
+
+    private GenreNames() {
+    }
+
+    public static String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        String canonical = NAMES.get(name);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (NAMES.size() >= MAX_SIZE) {
+            return name;
+        }
+        canonical = NAMES.putIfAbsent(name, name);
+        return canonical != null ? canonical : name;
+    }
+}
@@ -34,6 +34,7 @@ public class JikanAnimeMapper {
                 .title(anime.getTitle())
                 .genres(anime.getGenres().stream()
                         .map(JikanGenre::getName)
+                        .map(GenreNames::intern)
                         .collect(Collectors.toList()))
                 .build();
     }
@@ -52,6 +53,7 @@ public class JikanAnimeMapper {
                 .synopsis(anime.getSynopsis())
                 .genres(anime.getGenres().stream()
                         .map(JikanGenre::getName)
+                        .map(GenreNames::intern)
                         .collect(Collectors.toList()))
                 .type(anime.getType())
                 .episodes(anime.getEpisodes())
@@ -2,12 +2,14 @@ package as.tobi.chidorispring.mapper;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import as.tobi.chidorispring.dto.auth.RegisterRequest;
+import as.tobi.chidorispring.dto.characterPost.PostViewerState;
 import as.tobi.chidorispring.dto.characterPost.UserCharacterPostDTO;
 import as.tobi.chidorispring.dto.userProfile.UserProfileDTO;
 import as.tobi.chidorispring.dto.userProfile.UserProfileShortDTO;
@@ -15,8 +17,8 @@ import as.tobi.chidorispring.dto.userProfile.UserProfileWithPostsDTO;
 import as.tobi.chidorispring.entity.CharacterPost;
 import as.tobi.chidorispring.entity.UserProfile;
 import as.tobi.chidorispring.enums.UserRole;
-import as.tobi.chidorispring.repository.UserFavoritePostRepository;
-import as.tobi.chidorispring.repository.LikeRepository;
+import as.tobi.chidorispring.entity.UserFavoritePost;
+import as.tobi.chidorispring.service.PostViewerStateService;
 import lombok.extern.slf4j.Slf4j;
 
 @Component
@@ -24,16 +26,14 @@ import lombok.extern.slf4j.Slf4j;
 public class UserMapper {
 
     private final PasswordEncoder passwordEncoder;
-    private final UserFavoritePostRepository userFavoritePostRepository;
-    private final LikeRepository likeRepository;
+    private final PostViewerStateService viewerStateService;
 
     private final String pfp = "https://res.cloudinary.com/djmpkplp1/image/upload/v1746816860/ChatGPT_Image_9_%D1%82%D1%80%D0%B0%D0%B2._2025_%D1%80._20_41_06_myu8yb.png";
 
     @Autowired
-    public UserMapper(PasswordEncoder passwordEncoder, UserFavoritePostRepository userFavoritePostRepository, LikeRepository likeRepository) {
+    public UserMapper(PasswordEncoder passwordEncoder, PostViewerStateService viewerStateService) {
         this.passwordEncoder = passwordEncoder;
-        this.userFavoritePostRepository = userFavoritePostRepository;
-        this.likeRepository = likeRepository;
+        this.viewerStateService = viewerStateService;
     }
 
     public UserProfile toUserEntity(RegisterRequest request) {
@@ -68,12 +68,22 @@ public class UserMapper {
     }
 
     public UserProfileWithPostsDTO toUserProfileWithPostsDto(UserProfile user) {
-        List<UserCharacterPostDTO> postDtos = user.getCharacterPosts().stream()
-                .map(post -> toCharacterPostDto(post, user.getId()))
+        List<CharacterPost> posts = user.getCharacterPosts();
+        List<CharacterPost> favoritePosts = user.getFavoritePosts().stream()
+                .map(UserFavoritePost::getCharacterPost)
                 .toList();
 
-        List<UserCharacterPostDTO> favoritePostDtos = user.getFavoritePosts().stream()
-                .map(favoritePost -> toCharacterPostDto(favoritePost.getCharacterPost(), user.getId()))
+        // one lookup for the flags of both lists
+        PostViewerState viewerState = viewerStateService.resolve(
+                Stream.concat(posts.stream(), favoritePosts.stream()).map(CharacterPost::getId).toList(),
+                user.getId());
+
+        List<UserCharacterPostDTO> postDtos = posts.stream()
+                .map(post -> toCharacterPostDto(post, viewerState))
+                .toList();
+
+        List<UserCharacterPostDTO> favoritePostDtos = favoritePosts.stream()
+                .map(post -> toCharacterPostDto(post, viewerState))
                 .toList();
 
         return UserProfileWithPostsDTO.builder()
@@ -93,10 +103,7 @@ public class UserMapper {
                 .build();
     }
 
-    private UserCharacterPostDTO toCharacterPostDto(CharacterPost post, Long currentUserId) {
-        boolean isFavorited = userFavoritePostRepository.existsByUserIdAndCharacterPostId(currentUserId, post.getId());
-        boolean isLiked = likeRepository.existsByCharacterPostIdAndUserId(post.getId(), currentUserId);
-
+    private UserCharacterPostDTO toCharacterPostDto(CharacterPost post, PostViewerState viewerState) {
         return UserCharacterPostDTO.builder()
                 .id(post.getId())
                 .characterName(post.getCharacterName())
@@ -106,10 +113,10 @@ public class UserMapper {
                 .characterImageUrl(post.getCharacterImageUrl())
                 .createdAt(post.getCreatedAt())
                 .updatedAt(post.getUpdatedAt())
-                .likeCount(post.getLikes().size()) // Calculate like count
-                .commentCount(post.getComments().size()) // Calculate comment count
-                .isFavorited(isFavorited)
-                .isLiked(isLiked)
+                .likeCount(post.getLikeCount())
+                .commentCount(post.getCommentCount())
+                .isFavorited(viewerState.isFavorited(post.getId()))
+                .isLiked(viewerState.isLiked(post.getId()))
                 .build();
     }
 
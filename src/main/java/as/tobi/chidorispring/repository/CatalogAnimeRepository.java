@@ -0,0 +1,43 @@
+package as.tobi.chidorispring.repository;
+
+import as.tobi.chidorispring.entity.CatalogAnime;
+import as.tobi.chidorispring.enums.AnimeSource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface CatalogAnimeRepository extends JpaRepository<CatalogAnime, Long> {
+    Page<CatalogAnime> findBySource(AnimeSource source, Pageable pageable);
+
+    List<CatalogAnime> findBySourceAndExternalIdIn(AnimeSource source, Collection<Long> externalIds);
+
+    // pattern is a lower-case LIKE pattern escaped with '\'
+    @Query("SELECT a FROM CatalogAnime a WHERE a.source = :source AND EXISTS (" +
+            "SELECT 1 FROM CatalogAnime b JOIN b.titles t WHERE b.id = a.id AND LOWER(t) LIKE :pattern ESCAPE '\\') " +
+            "ORDER BY a.externalId")
+    List<CatalogAnime> searchByTitle(@Param("source") AnimeSource source,
+                                     @Param("pattern") String pattern,
+                                     Pageable pageable);
+
+    // every title of every anime, loaded by AnimeTitleIndex
+    @Query("SELECT a.id AS id, a.source AS source, t AS title FROM CatalogAnime a JOIN a.titles t")
+    List<TitleRow> findAllTitles();
+
+    // changes whenever a sync run writes rows
+    @Query("SELECT MAX(a.syncedAt) FROM CatalogAnime a")
+    LocalDateTime findLatestSyncedAt();
+
+    interface TitleRow {
+        Long getId();
+
+        AnimeSource getSource();
+
+        String getTitle();
+    }
+}
@@ -0,0 +1,8 @@
+package as.tobi.chidorispring.repository;
+
+import as.tobi.chidorispring.entity.CatalogSyncState;
+import as.tobi.chidorispring.enums.AnimeSource;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CatalogSyncStateRepository extends JpaRepository<CatalogSyncState, AnimeSource> {
+}
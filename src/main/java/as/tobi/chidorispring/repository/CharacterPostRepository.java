@@ -1,16 +1,21 @@
 package as.tobi.chidorispring.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import as.tobi.chidorispring.entity.CharacterPost;
+import as.tobi.chidorispring.utils.PostCursor;
 
 @Repository
 public interface CharacterPostRepository extends JpaRepository<CharacterPost, Long> {
@@ -24,36 +29,125 @@ public interface CharacterPostRepository extends JpaRepository<CharacterPost, Lo
     // Check if there is a post with such ID
     boolean existsByIdAndUserId(Long postId, Long userId);
 
-    // Find the top-n posts by the number of likes (via jpql)
-    @Query("SELECT p FROM CharacterPost p LEFT JOIN p.likes l GROUP BY p ORDER BY COUNT(l) DESC")
+    // Find the top-n posts by the number of likes (via the denormalized counter)
+    @Query("SELECT p FROM CharacterPost p ORDER BY p.likeCount DESC")
     List<CharacterPost> findTopPopularPosts(Pageable pageable);
 
-    @Query("SELECT p FROM CharacterPost p LEFT JOIN FETCH p.likes")
-    Page<CharacterPost> findAllWithLikesAndComments(Pageable pageable);
+    @Query("SELECT p.id FROM CharacterPost p WHERE p.id NOT IN :excludedIds ORDER BY p.likeCount DESC, p.id DESC")
+    List<Long> findTopPopularPostIdsExcluding(@Param("excludedIds") Collection<Long> excludedIds, Pageable pageable);
 
-    @Query("SELECT p FROM CharacterPost p LEFT JOIN FETCH p.likes WHERE p IN (SELECT f.characterPost FROM UserFavoritePost f WHERE f.user.id = :userId)")
+    // Two-phase page loading: page over ids in SQL (no count query), then hydrate that page in one query
+    @Query("SELECT p.id FROM CharacterPost p")
+    List<Long> findPostIds(Pageable pageable);
+
+    @Query("SELECT p.id FROM CharacterPost p WHERE LOWER(p.anime) LIKE LOWER(CONCAT('%', :anime, '%'))")
+    List<Long> findPostIdsByAnime(@Param("anime") String anime, Pageable pageable);
+
+    @Query("SELECT DISTINCT p FROM CharacterPost p JOIN FETCH p.user LEFT JOIN FETCH p.animeGenre WHERE p.id IN :ids")
+    List<CharacterPost> findAllWithAuthorAndGenresByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p FROM CharacterPost p JOIN FETCH p.user WHERE p IN (SELECT f.characterPost FROM UserFavoritePost f WHERE f.user.id = :userId)")
     List<CharacterPost> findFavoritePostsByUserId(@Param("userId") Long userId);
 
     Page<CharacterPost> findByUserIdInOrderByCreatedAtDesc(List<Long> userIds, Pageable pageable);
 
     Page<CharacterPost> findByUserIdNotInOrderByCreatedAtDesc(List<Long> userIds, Pageable pageable);
 
-    List<CharacterPost> findTop10ByUserIdOrderByCreatedAtDesc(Long userId);
+    @Query("SELECT p.id FROM CharacterPost p WHERE p.user.id = :userId")
+    List<Long> findPostIdsByUserId(@Param("userId") Long userId);
 
-    @Query("SELECT cp FROM CharacterPost cp WHERE cp.anime IN :animeList")
-    List<CharacterPost> findByAnimeIn(@org.springframework.data.repository.query.Param("animeList") List<String> animeList);
+    // Recommendation features of all posts, see PostFeatureIndex
+    @Query("SELECT p.id AS id, p.anime AS anime, p.characterName AS characterName FROM CharacterPost p")
+    List<FeatureRow> findAllFeatureRows();
 
-    @Query("SELECT cp FROM CharacterPost cp JOIN cp.animeGenre g WHERE g IN :genres")
-    List<CharacterPost> findByAnimeGenreIn(@org.springframework.data.repository.query.Param("genres") List<String> genres);
+    @Query("SELECT p.id AS postId, g AS genre FROM CharacterPost p JOIN p.animeGenre g")
+    List<GenreRow> findAllGenreRows();
 
-    @Query("SELECT cp FROM CharacterPost cp WHERE cp.characterName IN :characterNames")
-    List<CharacterPost> findByCharacterNameIn(@org.springframework.data.repository.query.Param("characterNames") List<String> characterNames);
+    // changes whenever a post is edited
+    @Query("SELECT MAX(p.updatedAt) FROM CharacterPost p")
+    LocalDateTime findLatestUpdatedAt();
 
     @Query("SELECT cp FROM CharacterPost cp " +
             "LEFT JOIN FETCH cp.animeGenre " +
             "WHERE cp.id = :id")
     Optional<CharacterPost> findByIdWithGenres(@Param("id") Long id);
 
-    @Query(value = "SELECT g.anime_genre FROM character_post_genres g WHERE g.character_post_id = :postId", nativeQuery = true)
-    List<String> findGenresByCharacterPostId(@Param("postId") Long postId);
-}
\ No newline at end of file
+    // Keyset (seek) pagination in (createdAt DESC, id DESC) order, no count query
+    @Query("SELECT p FROM CharacterPost p JOIN FETCH p.user ORDER BY p.createdAt DESC, p.id DESC")
+    List<CharacterPost> findFeedFirstPage(Limit limit);
+
+    @Query("SELECT p FROM CharacterPost p JOIN FETCH p.user " +
+            "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<CharacterPost> findFeedPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT p FROM CharacterPost p JOIN FETCH p.user WHERE LOWER(p.anime) LIKE LOWER(CONCAT('%', :anime, '%')) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<CharacterPost> findFeedFirstPageByAnime(@Param("anime") String anime, Limit limit);
+
+    @Query("SELECT p FROM CharacterPost p JOIN FETCH p.user WHERE LOWER(p.anime) LIKE LOWER(CONCAT('%', :anime, '%')) " +
+            "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<CharacterPost> findFeedPageAfterByAnime(@Param("anime") String anime, @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") Long id, Limit limit);
+
+    // (createdAt, id) positions for home timelines, seeking past the given position
+    @Query("SELECT new as.tobi.chidorispring.utils.PostCursor(p.createdAt, p.id) FROM CharacterPost p " +
+            "WHERE p.user.id IN :userIds " +
+            "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostCursor> findFeedPositionsByUserIds(@Param("userIds") Collection<Long> userIds, @Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") Long id, Limit limit);
+
+    @Query("SELECT new as.tobi.chidorispring.utils.PostCursor(p.createdAt, p.id) FROM CharacterPost p " +
+            "WHERE p.user.id IN (SELECT ur.following.id FROM UserRelationship ur WHERE ur.follower.id = :followerId) " +
+            "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostCursor> findFollowedFeedPositions(@Param("followerId") Long followerId, @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id, Limit limit);
+
+    @Modifying
+    @Query("UPDATE CharacterPost p SET p.likeCount = p.likeCount + 1 WHERE p.id = :postId")
+    int incrementLikeCount(@Param("postId") Long postId);
+
+    @Modifying
+    @Query("UPDATE CharacterPost p SET p.likeCount = p.likeCount - 1 WHERE p.id = :postId AND p.likeCount > 0")
+    int decrementLikeCount(@Param("postId") Long postId);
+
+    @Modifying
+    @Query("UPDATE CharacterPost p SET p.commentCount = p.commentCount + 1 WHERE p.id = :postId")
+    int incrementCommentCount(@Param("postId") Long postId);
+
+    @Modifying
+    @Query("UPDATE CharacterPost p SET p.commentCount = p.commentCount - 1 WHERE p.id = :postId AND p.commentCount > 0")
+    int decrementCommentCount(@Param("postId") Long postId);
+
+    // Repair counters that drifted from the like/comment tables, returns the number of fixed posts
+    @Modifying
+    @Query(value = "UPDATE character_posts p SET like_count = c.cnt FROM (" +
+            "SELECT cp.id AS post_id, COUNT(l.id) AS cnt FROM character_posts cp " +
+            "LEFT JOIN character_post_likes l ON l.character_post_id = cp.id GROUP BY cp.id) c " +
+            "WHERE p.id = c.post_id AND p.like_count <> c.cnt", nativeQuery = true)
+    int reconcileLikeCounts();
+
+    @Modifying
+    @Query(value = "UPDATE character_posts p SET comment_count = c.cnt FROM (" +
+            "SELECT cp.id AS post_id, COUNT(cm.id) AS cnt FROM character_posts cp " +
+            "LEFT JOIN character_post_comments cm ON cm.character_post_id = cp.id GROUP BY cp.id) c " +
+            "WHERE p.id = c.post_id AND p.comment_count <> c.cnt", nativeQuery = true)
+    int reconcileCommentCounts();
+
+    interface FeatureRow {
+        Long getId();
+
+        String getAnime();
+
+        String getCharacterName();
+    }
+
+    interface GenreRow {
+        Long getPostId();
+
+        String getGenre();
+    }
+}
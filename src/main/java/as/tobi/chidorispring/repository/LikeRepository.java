@@ -2,8 +2,19 @@ package as.tobi.chidorispring.repository;
 
 import as.tobi.chidorispring.entity.CharacterPostLike;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface LikeRepository extends JpaRepository<CharacterPostLike, Long> {
     boolean existsByCharacterPostIdAndUserId(Long characterPostId, Long userId);
     void deleteByCharacterPostIdAndUserId(Long characterPostId, Long userId);
-}
\ No newline at end of file
+
+    @Query("SELECT l.characterPost.id FROM CharacterPostLike l WHERE l.user.id = :userId AND l.characterPost.id IN :postIds")
+    List<Long> findLikedPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+
+    @Query("SELECT l.characterPost.id FROM CharacterPostLike l WHERE l.user.id = :userId")
+    List<Long> findAllLikedPostIds(@Param("userId") Long userId);
+}
@@ -1,10 +1,11 @@
 package as.tobi.chidorispring.repository;
 
 import as.tobi.chidorispring.entity.UserFavoritePost;
-import io.lettuce.core.dynamic.annotation.Param;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface UserFavoritePostRepository extends JpaRepository<UserFavoritePost, Long> {
@@ -13,4 +14,10 @@ public interface UserFavoritePostRepository extends JpaRepository<UserFavoritePo
     List<UserFavoritePost> findByUserId(Long userId);
 
     void deleteByCharacterPostId(Long postId);
-}
\ No newline at end of file
+
+    @Query("SELECT f.characterPost.id FROM UserFavoritePost f WHERE f.user.id = :userId AND f.characterPost.id IN :postIds")
+    List<Long> findFavoritedPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+
+    @Query("SELECT f.characterPost.id FROM UserFavoritePost f WHERE f.user.id = :userId")
+    List<Long> findAllFavoritedPostIds(@Param("userId") Long userId);
+}
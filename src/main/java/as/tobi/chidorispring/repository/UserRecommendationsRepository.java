@@ -0,0 +1,77 @@
+package as.tobi.chidorispring.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import as.tobi.chidorispring.entity.UserRecommendations;
+import jakarta.persistence.LockModeType;
+
+public interface UserRecommendationsRepository extends JpaRepository<UserRecommendations, Long> {
+
+    // Creates the pending row of a user's first request, 1 if it did not exist yet
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO user_recommendations (user_id, status, requested_at) VALUES (:userId, 'PENDING', :now) " +
+            "ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // Queues a finished or failed job again, 0 if it is already pending or running
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserRecommendations r SET r.status = as.tobi.chidorispring.enums.RecommendationStatus.PENDING, " +
+            "r.requestedAt = :now WHERE r.userId = :userId AND r.status IN " +
+            "(as.tobi.chidorispring.enums.RecommendationStatus.READY, as.tobi.chidorispring.enums.RecommendationStatus.FAILED)")
+    int requeue(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // Notes a request that came in while the job runs, the job stays pending when it finishes
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserRecommendations r SET r.requestedAt = :now " +
+            "WHERE r.userId = :userId AND r.status = as.tobi.chidorispring.enums.RecommendationStatus.RUNNING")
+    int requestWhileRunning(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // Locks the row while a finished run stores its outcome
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM UserRecommendations r WHERE r.userId = :userId")
+    Optional<UserRecommendations> findByIdForUpdate(@Param("userId") Long userId);
+
+    // Atomically takes a pending job, only one worker across all nodes gets 1
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserRecommendations r SET r.status = as.tobi.chidorispring.enums.RecommendationStatus.RUNNING, " +
+            "r.startedAt = :now WHERE r.userId = :userId AND r.status = as.tobi.chidorispring.enums.RecommendationStatus.PENDING")
+    int claim(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT r.userId FROM UserRecommendations r " +
+            "WHERE r.status = as.tobi.chidorispring.enums.RecommendationStatus.PENDING AND r.requestedAt < :before " +
+            "ORDER BY r.requestedAt")
+    List<Long> findPendingUserIds(@Param("before") LocalDateTime before, Limit limit);
+
+    // Results computed before the cutoff and failed runs started before the retry cutoff are queued again
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserRecommendations r SET r.status = as.tobi.chidorispring.enums.RecommendationStatus.PENDING, " +
+            "r.requestedAt = :now " +
+            "WHERE (r.status = as.tobi.chidorispring.enums.RecommendationStatus.READY AND r.computedAt < :outdatedBefore) " +
+            "OR (r.status = as.tobi.chidorispring.enums.RecommendationStatus.FAILED AND r.startedAt < :failedBefore)")
+    int requeueOutdated(@Param("outdatedBefore") LocalDateTime outdatedBefore,
+                        @Param("failedBefore") LocalDateTime failedBefore,
+                        @Param("now") LocalDateTime now);
+
+    // Jobs of a node that stopped while running them are queued again
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserRecommendations r SET r.status = as.tobi.chidorispring.enums.RecommendationStatus.PENDING, " +
+            "r.requestedAt = :now WHERE r.status = as.tobi.chidorispring.enums.RecommendationStatus.RUNNING " +
+            "AND r.startedAt < :before")
+    int requeueAbandoned(@Param("before") LocalDateTime before, @Param("now") LocalDateTime now);
+}
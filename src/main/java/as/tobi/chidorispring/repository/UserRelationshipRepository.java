@@ -1,10 +1,13 @@
 package as.tobi.chidorispring.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import as.tobi.chidorispring.entity.UserProfile;
@@ -23,4 +26,19 @@ public interface UserRelationshipRepository extends JpaRepository<UserRelationsh
     List<UserProfile> findFollowersByUser(UserProfile user);
     
     void deleteByFollowerAndFollowing(UserProfile follower, UserProfile following);
+
+    long countByFollowingId(Long followingId);
+
+    @Query("SELECT ur.follower.id FROM UserRelationship ur WHERE ur.following.id = :userId")
+    List<Long> findFollowerIdsByFollowingId(@Param("userId") Long userId);
+
+    // which of the given authors the user follows
+    @Query("SELECT ur.following.id FROM UserRelationship ur WHERE ur.follower.id = :userId AND ur.following.id IN :authorIds")
+    List<Long> findFollowingIdsAmong(@Param("userId") Long userId, @Param("authorIds") Collection<Long> authorIds);
+
+    @Query("SELECT ur.following.id FROM UserRelationship ur GROUP BY ur.following.id HAVING COUNT(ur) > :threshold")
+    List<Long> findFollowingIdsWithMoreFollowersThan(@Param("threshold") long threshold);
+
+    @Query("SELECT DISTINCT ur.follower.id FROM UserRelationship ur ORDER BY ur.follower.id")
+    List<Long> findDistinctFollowerIds(Pageable pageable);
 } 
\ No newline at end of file
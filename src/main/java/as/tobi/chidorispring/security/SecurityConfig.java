@@ -2,6 +2,7 @@ package as.tobi.chidorispring.security;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -29,11 +30,16 @@ class SecurityConfig {
                     return corsConfig;
                 }))
                 .authorizeHttpRequests(auth -> auth
+                        // Anime cache maintenance, matched before the public anime endpoints
+                        .requestMatchers("/api/anime/refresh", "/api/anime/clear").hasRole("ADMIN")
+
                         // Public endpoints
                         .requestMatchers("/api/anime/**").permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/chat/**").permitAll()
                         .requestMatchers("/ws-chat/**").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/recommendations/**").authenticated()
+                        .requestMatchers("/api/recommendations/user/*/status").authenticated()
                         .requestMatchers("/api/recommendations/**").permitAll()
 
                         // Admin only endpoints
@@ -0,0 +1,181 @@
+package as.tobi.chidorispring.service;
+
+import as.tobi.chidorispring.cache.ReactiveCache;
+import as.tobi.chidorispring.enums.AnimeSource;
+import as.tobi.chidorispring.service.AnimeRequestTracker.AnimeRequest;
+import as.tobi.chidorispring.utils.RedisLocks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+// Refresh-ahead for animeCache and jikanAnimeCache: the first catalogue pages and the most requested
+// pages and searches are reloaded before they go stale, shortly after startup and then on a schedule.
+// Only entries that are missing or would go stale before the next run are reloaded, the rest are left alone.
+// Entries are refreshed one at a time with a pause in between, so warming only takes a small share of
+// the upstream rate limits. Hot keys are shared through redis, a new node warms what was popular before.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnimeCacheWarmer {
+    private static final String LOCK_KEY = "cache:warmup:lock";
+    private static final String HOT_KEYS = "cache:warmup:hot";
+
+    private final AnimeRequestTracker animeRequestTracker;
+    private final KitsuService kitsuService;
+    private final JikanService jikanService;
+    private final ReactiveCache reactiveCache;
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${chidori.cache.warmup.enabled:true}")
+    private boolean enabled;
+
+    // the run after this one must find the entries still fresh
+    @Value("${chidori.cache.warmup.interval:30m}")
+    private Duration interval;
+
+    @Value("${chidori.cache.warmup.max-keys:50}")
+    private int maxKeys;
+
+    // pages 1..seed-pages of each catalogue are always warm
+    @Value("${chidori.cache.warmup.seed-pages:3}")
+    private int seedPages;
+
+    @Value("${chidori.cache.warmup.seed-page-size:10}")
+    private int seedPageSize;
+
+    @Value("${chidori.cache.warmup.pause:1s}")
+    private Duration pause;
+
+    @Value("${chidori.cache.warmup.lock-ttl:30m}")
+    private Duration lockTtl;
+
+    @Value("${chidori.cache.warmup.hot-keys-ttl:7d}")
+    private Duration hotKeysTtl;
+
+    @Scheduled(initialDelayString = "${chidori.cache.warmup.initial-delay:30s}",
+            fixedDelayString = "${chidori.cache.warmup.interval:30m}")
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        refresh(false);
+    }
+
+    // replaces wiping the caches: every hot entry is overwritten as it reloads, readers never see a miss
+    public void refreshInBackground() {
+        Schedulers.boundedElastic().schedule(() -> refresh(true));
+    }
+
+    // reloads the hot entries that are due, or all of them when forced; returns how many were refreshed
+    public int refresh(boolean force) {
+        // one node warms at a time, the caches are shared
+        String token = UUID.randomUUID().toString();
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, lockTtl))) {
+                log.debug("Cache warm-up is running on another node");
+                return 0;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Cache warm-up lock unavailable, skipping this run: {}", e.getMessage());
+            return 0;
+        }
+
+        try {
+            List<AnimeRequest> requests = hotRequests();
+            int refreshed = 0;
+            int due = 0;
+            for (AnimeRequest request : requests) {
+                if (!force && !reactiveCache.isDueWithin(cacheName(request), request.cacheKey(), interval)) {
+                    continue;
+                }
+                due++;
+                try {
+                    refresh(request).block();
+                    refreshed++;
+                } catch (RuntimeException e) {
+                    // the entry stays as it is and expires normally
+                    log.debug("Could not refresh {}: {}", request.encode(), e.getMessage());
+                }
+
+                try {
+                    Thread.sleep(pause.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            log.info("Refreshed {} of {} hot anime cache entries, {} were due", refreshed, requests.size(), due);
+            return refreshed;
+        } finally {
+            if (!RedisLocks.release(redisTemplate, LOCK_KEY, token)) {
+                log.warn("Cache warm-up lock was lost or could not be released, it expires on its own");
+            }
+        }
+    }
+
+    private Mono<Void> refresh(AnimeRequest request) {
+        if (request.source() == AnimeSource.KITSU) {
+            return request.isSearch()
+                    ? kitsuService.refreshSearch(request.query()).then()
+                    : kitsuService.refreshAnimePage(request.page(), request.size()).then();
+        }
+        return request.isSearch()
+                ? jikanService.refreshSearch(request.query()).then()
+                : jikanService.refreshAnimePage(request.page(), request.size()).then();
+    }
+
+    private static String cacheName(AnimeRequest request) {
+        return request.source() == AnimeSource.KITSU ? KitsuService.CACHE_NAME : JikanService.CACHE_NAME;
+    }
+
+    // the first catalogue pages, then this node's hottest requests, then those other nodes shared
+    private List<AnimeRequest> hotRequests() {
+        Set<AnimeRequest> requests = new LinkedHashSet<>();
+        for (AnimeSource source : AnimeSource.values()) {
+            for (int page = 1; page <= seedPages; page++) {
+                requests.add(AnimeRequest.page(source, page, seedPageSize));
+            }
+        }
+
+        List<AnimeRequest> local = animeRequestTracker.top(maxKeys);
+        requests.addAll(local);
+        try {
+            publish(local);
+            Set<String> shared = redisTemplate.opsForZSet().reverseRange(HOT_KEYS, 0, maxKeys - 1);
+            if (shared != null) {
+                shared.stream()
+                        .map(AnimeRequest::decode)
+                        .filter(Objects::nonNull)
+                        .forEach(requests::add);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Shared hot cache keys unavailable, warming local ones only: {}", e.getMessage());
+        }
+        return requests.stream().limit(maxKeys).toList();
+    }
+
+    // ranked by position in this node's list, the set is trimmed to max-keys
+    private void publish(List<AnimeRequest> local) {
+        if (local.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < local.size(); i++) {
+            redisTemplate.opsForZSet().add(HOT_KEYS, local.get(i).encode(), local.size() - i);
+        }
+        redisTemplate.opsForZSet().removeRange(HOT_KEYS, 0, -(maxKeys + 1));
+        redisTemplate.expire(HOT_KEYS, hotKeysTtl);
+    }
+}
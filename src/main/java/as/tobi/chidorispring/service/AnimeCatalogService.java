@@ -0,0 +1,212 @@
+package as.tobi.chidorispring.service;
+
+import as.tobi.chidorispring.dto.catalog.AggregatedAnimeResponse;
+import as.tobi.chidorispring.dto.catalog.AggregatedSearchResponse;
+import as.tobi.chidorispring.dto.kitsu.response.AnimeFullInfoResponse;
+import as.tobi.chidorispring.enums.AnimeSource;
+import as.tobi.chidorispring.exceptions.AnimeViolationException;
+import as.tobi.chidorispring.exceptions.AnimeViolationType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Anime from Kitsu and Jikan in one response. Both providers are queried concurrently, each within
+// its own timeout, and one that fails or is too slow is left out instead of failing the request.
+// Results describing the same anime (a shared title, and the same year when both know it) are merged.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnimeCatalogService {
+    private final KitsuService kitsuService;
+    private final JikanService jikanService;
+
+    @Value("${chidori.catalog.aggregate.provider-timeout:3s}")
+    private Duration providerTimeout;
+
+    // the best matches of both providers by title, interleaved by their rank at each provider
+    public Mono<AggregatedSearchResponse> searchByTitle(String query, int limit) {
+        // validated here, a provider rejecting the input would otherwise just look unavailable
+        if (query == null || query.trim().isEmpty()) {
+            return Mono.error(new AnimeViolationException(AnimeViolationType.SEARCH_QUERY_EMPTY));
+        }
+        if (limit <= 0 || limit > 20) {
+            return Mono.error(new AnimeViolationException(AnimeViolationType.INVALID_LIMIT));
+        }
+
+        return Mono.zip(
+                        fromProvider(AnimeSource.KITSU, kitsuService.getAnimeFullInfoByTitle(query, limit)),
+                        fromProvider(AnimeSource.JIKAN, jikanService.getAnimeFullInfoByTitle(query, limit)))
+                .flatMap(results -> merge(results.getT1(), results.getT2(), limit));
+    }
+
+    private <T> Mono<ProviderResult<T>> fromProvider(AnimeSource source, Mono<List<T>> search) {
+        return search
+                .timeout(providerTimeout)
+                .map(items -> new ProviderResult<T>(source, items, true))
+                .defaultIfEmpty(new ProviderResult<>(source, List.of(), true))
+                .onErrorResume(e -> {
+                    // no match is an answer, anything else leaves the provider out
+                    if (e instanceof AnimeViolationException violation
+                            && violation.getType() == AnimeViolationType.ANIME_NOT_FOUND) {
+                        return Mono.just(new ProviderResult<>(source, List.of(), true));
+                    }
+                    log.warn("Answering without {}, its search failed: {}", source, e.toString());
+                    return Mono.just(new ProviderResult<>(source, List.of(), false));
+                });
+    }
+
+    private Mono<AggregatedSearchResponse> merge(ProviderResult<AnimeFullInfoResponse> kitsu,
+                                                 ProviderResult<as.tobi.chidorispring.dto.jikan.response.AnimeFullInfoResponse> jikan,
+                                                 int limit) {
+        List<MergedAnime> merged = new ArrayList<>();
+        for (int i = 0; i < kitsu.items().size(); i++) {
+            merged.add(MergedAnime.fromKitsu(kitsu.items().get(i), i));
+        }
+        for (int i = 0; i < jikan.items().size(); i++) {
+            MergedAnime candidate = MergedAnime.fromJikan(jikan.items().get(i), i);
+            merged.stream()
+                    .filter(existing -> existing.malId() == null && existing.sameAnime(candidate))
+                    .findFirst()
+                    .ifPresentOrElse(existing -> existing.addJikan(candidate), () -> merged.add(candidate));
+        }
+
+        List<AnimeSource> unavailable = Stream.of(kitsu, jikan)
+                .filter(result -> !result.available())
+                .map(ProviderResult::source)
+                .toList();
+        if (merged.isEmpty()) {
+            return Mono.error(new AnimeViolationException(unavailable.isEmpty()
+                    ? AnimeViolationType.ANIME_NOT_FOUND
+                    : AnimeViolationType.UPSTREAM_UNAVAILABLE));
+        }
+
+        return Mono.just(AggregatedSearchResponse.builder()
+                .results(merged.stream()
+                        .sorted(Comparator.comparingInt(MergedAnime::rank))
+                        .limit(limit)
+                        .map(MergedAnime::response)
+                        .collect(Collectors.toList()))
+                .partial(!unavailable.isEmpty())
+                .unavailableSources(unavailable)
+                .build());
+    }
+
+    // first four characters of a yyyy-MM-dd date or a jikan airing period
+    static Integer yearOf(String date) {
+        if (date == null || date.length() < 4 || !date.substring(0, 4).chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        return Integer.parseInt(date.substring(0, 4));
+    }
+
+    private record ProviderResult<T>(AnimeSource source, List<T> items, boolean available) {
+    }
+
+    // a result being merged, with the normalized titles it is matched by
+    private static final class MergedAnime {
+        private final AggregatedAnimeResponse response;
+        private final Set<String> titles;
+        private int rank;
+
+        private MergedAnime(AggregatedAnimeResponse response, int rank, String... titles) {
+            this.response = response;
+            this.rank = rank;
+            this.titles = Stream.of(titles)
+                    .map(AnimeTitleIndex::normalize)
+                    .filter(title -> !title.isEmpty())
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+
+        static MergedAnime fromKitsu(AnimeFullInfoResponse anime, int rank) {
+            return new MergedAnime(AggregatedAnimeResponse.builder()
+                    .title(anime.getCanonicalTitle())
+                    .englishTitle(anime.getEnglishTitle())
+                    .japaneseTitle(anime.getJapaneseTitle())
+                    .year(yearOf(anime.getStartDate()))
+                    .synopsis(anime.getDescription())
+                    .genres(anime.getGenres() != null ? new ArrayList<>(anime.getGenres()) : new ArrayList<>())
+                    .episodeCount(anime.getEpisodeCount())
+                    .status(anime.getStatus())
+                    .posterImage(anime.getPosterImages() != null ? anime.getPosterImages().getMedium() : null)
+                    .kitsuId(anime.getId())
+                    .sources(new ArrayList<>(List.of(AnimeSource.KITSU)))
+                    .build(),
+                    rank, anime.getCanonicalTitle(), anime.getEnglishTitle(), anime.getJapaneseTitle());
+        }
+
+        static MergedAnime fromJikan(as.tobi.chidorispring.dto.jikan.response.AnimeFullInfoResponse anime, int rank) {
+            return new MergedAnime(AggregatedAnimeResponse.builder()
+                    .title(anime.getTitle())
+                    .japaneseTitle(anime.getJapaneseTitle())
+                    .year(yearOf(anime.getAired()))
+                    .synopsis(anime.getSynopsis())
+                    .genres(anime.getGenres() != null ? new ArrayList<>(anime.getGenres()) : new ArrayList<>())
+                    .type(anime.getType())
+                    .episodeCount(anime.getEpisodes())
+                    .status(anime.getStatus())
+                    .score(anime.getScore())
+                    .posterImage(anime.getImages() != null && anime.getImages().getJpg() != null
+                            ? anime.getImages().getJpg().getImageUrl() : null)
+                    .malId(anime.getId())
+                    .sources(new ArrayList<>(List.of(AnimeSource.JIKAN)))
+                    .build(),
+                    rank, anime.getTitle(), anime.getJapaneseTitle());
+        }
+
+        boolean sameAnime(MergedAnime other) {
+            Integer year = response.getYear();
+            Integer otherYear = other.response.getYear();
+            if (year != null && otherYear != null && !year.equals(otherYear)) {
+                return false;
+            }
+            return other.titles.stream().anyMatch(titles::contains);
+        }
+
+        // kitsu values win, jikan fills the gaps and adds what only it has
+        void addJikan(MergedAnime jikan) {
+            AggregatedAnimeResponse other = jikan.response;
+            response.setMalId(other.getMalId());
+            response.setScore(other.getScore());
+            response.setType(other.getType());
+            response.setJapaneseTitle(firstNonNull(response.getJapaneseTitle(), other.getJapaneseTitle()));
+            response.setYear(firstNonNull(response.getYear(), other.getYear()));
+            response.setSynopsis(firstNonNull(response.getSynopsis(), other.getSynopsis()));
+            response.setEpisodeCount(firstNonNull(response.getEpisodeCount(), other.getEpisodeCount()));
+            response.setStatus(firstNonNull(response.getStatus(), other.getStatus()));
+            response.setPosterImage(firstNonNull(response.getPosterImage(), other.getPosterImage()));
+            other.getGenres().stream()
+                    .filter(genre -> response.getGenres().stream().noneMatch(genre::equalsIgnoreCase))
+                    .forEach(response.getGenres()::add);
+            response.getSources().add(AnimeSource.JIKAN);
+            titles.addAll(jikan.titles);
+            rank = Math.min(rank, jikan.rank);
+        }
+
+        private static <T> T firstNonNull(T value, T fallback) {
+            return value != null ? value : fallback;
+        }
+
+        AggregatedAnimeResponse response() {
+            return response;
+        }
+
+        int rank() {
+            return rank;
+        }
+
+        Long malId() {
+            return response.getMalId();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package as.tobi.chidorispring.service;
+
+import as.tobi.chidorispring.cache.HotKeyTracker;
+import as.tobi.chidorispring.enums.AnimeSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// The anime pages and searches this node is asked for most, the refresh-ahead candidates of AnimeCacheWarmer
+@Component
+public class AnimeRequestTracker {
+    private static final String SEPARATOR = "|";
+
+    private final HotKeyTracker<AnimeRequest> tracker;
+
+    public AnimeRequestTracker(@Value("${chidori.cache.warmup.tracked-keys:200}") int trackedKeys) {
+        // a sketch far wider than the candidate set keeps collisions rare, aged every 100 requests per key
+        this.tracker = new HotKeyTracker<>(trackedKeys * 64, trackedKeys, trackedKeys * 100);
+    }
+
+    public void recordPage(AnimeSource source, int page, int size) {
+        tracker.record(AnimeRequest.page(source, page, size));
+    }
+
+    public void recordSearch(AnimeSource source, String query) {
+        tracker.record(AnimeRequest.search(source, query));
+    }
+
+    // most requested first
+    public List<AnimeRequest> top(int limit) {
+        return tracker.top(limit);
+    }
+
+    // a cached page (query is null) or full search
+    public record AnimeRequest(AnimeSource source, String query, int page, int size) {
+
+        public static AnimeRequest page(AnimeSource source, int page, int size) {
+            return new AnimeRequest(source, null, page, size);
+        }
+
+        public static AnimeRequest search(AnimeSource source, String query) {
+            return new AnimeRequest(source, query, 0, 0);
+        }
+
+        // the keys KitsuService and JikanService cache pages and searches under
+        public static List<Object> pageKey(int page, int size) {
+            return List.of("page", page, "size", size);
+        }
+
+        public static List<Object> searchKey(String query) {
+            return List.of("search", query);
+        }
+
+        public boolean isSearch() {
+            return query != null;
+        }
+
+        public List<Object> cacheKey() {
+            return isSearch() ? searchKey(query) : pageKey(page, size);
+        }
+
+        // KITSU|page|1|10 or KITSU|search|naruto, as shared through redis
+        public String encode() {
+            return isSearch()
+                    ? String.join(SEPARATOR, source.name(), "search", query)
+                    : String.join(SEPARATOR, source.name(), "page", String.valueOf(page), String.valueOf(size));
+        }
+
+        // null for anything encode did not write
+        public static AnimeRequest decode(String value) {
+            String[] parts = value.split("\\|", 3);
+            try {
+                AnimeSource source = AnimeSource.valueOf(parts[0]);
+                if ("search".equals(parts[1])) {
+                    return search(source, parts[2]);
+                }
+                if ("page".equals(parts[1])) {
+                    String[] pageAndSize = parts[2].split("\\|");
+                    return page(source, Integer.parseInt(pageAndSize[0]), Integer.parseInt(pageAndSize[1]));
+                }
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                // falls through to null
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package as.tobi.chidorispring.service;
+
+import as.tobi.chidorispring.enums.AnimeSource;
+import as.tobi.chidorispring.repository.CatalogAnimeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+// In-memory title index over the local catalogue, so title searches and autocomplete never call
+// upstream. Titles are normalized (case, accents, full-width forms, punctuation) and matched by
+// word prefix, then by trigram overlap for typos. CJK text has no word breaks and short words,
+// so it is indexed by character bigrams instead. The index is rebuilt whenever a sync run wrote rows.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnimeTitleIndex {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // whole title, title prefix and word prefix matches rank above any fuzzy match
+    private static final double EXACT_SCORE = 1.0;
+    private static final double TITLE_PREFIX_SCORE = 0.9;
+    private static final double WORD_PREFIX_SCORE = 0.8;
+    private static final double FUZZY_SCORE = 0.7;
+
+    private final CatalogAnimeRepository animeRepository;
+
+    @Value("${chidori.catalog.search.enabled:true}")
+    private boolean enabled;
+
+    // share of the query's grams a title must contain to match fuzzily
+    @Value("${chidori.catalog.search.min-similarity:0.5}")
+    private double minSimilarity;
+
+    private volatile Map<AnimeSource, SourceIndex> indexes = Map.of();
+    private volatile LocalDateTime indexedVersion;
+
+    // false until the first build, callers then search the database instead
+    public boolean isReady(AnimeSource source) {
+        return enabled && indexes.containsKey(source);
+    }
+
+    // catalogue ids of the best matching anime, best first
+    public List<Long> search(AnimeSource source, String query, int limit) {
+        SourceIndex index = indexes.get(source);
+        String normalized = normalize(query);
+        if (index == null || normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        return index.search(normalized, limit, minSimilarity);
+    }
+
+    @Scheduled(initialDelayString = "${chidori.catalog.search.initial-delay:0s}",
+            fixedDelayString = "${chidori.catalog.search.refresh-interval:1m}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            LocalDateTime version = animeRepository.findLatestSyncedAt();
+            if (version == null || version.equals(indexedVersion)) {
+                return;
+            }
+
+            long started = System.nanoTime();
+            Map<AnimeSource, SourceIndex.Builder> builders = new EnumMap<>(AnimeSource.class);
+            List<CatalogAnimeRepository.TitleRow> rows = animeRepository.findAllTitles();
+            for (CatalogAnimeRepository.TitleRow row : rows) {
+                builders.computeIfAbsent(row.getSource(), source -> new SourceIndex.Builder())
+                        .add(row.getId(), normalize(row.getTitle()));
+            }
+
+            Map<AnimeSource, SourceIndex> built = new EnumMap<>(AnimeSource.class);
+            builders.forEach((source, builder) -> built.put(source, builder.build()));
+            indexes = built;
+            indexedVersion = version;
+            log.info("Indexed {} catalogue titles in {} ms", rows.size(), (System.nanoTime() - started) / 1_000_000);
+        } catch (DataAccessException e) {
+            // searches keep using the previous index, or the database
+            log.warn("Failed to rebuild the anime title index: {}", e.getMessage());
+        }
+    }
+
+    // lower case without accents, compatibility forms folded (full-width latin, half-width kana), words separated by one space
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("");
+        return SEPARATORS.matcher(Normalizer.normalize(decomposed, Normalizer.Form.NFC).toLowerCase())
+                .replaceAll(" ")
+                .trim();
+    }
+
+    // pg_trgm-style padded trigrams per word, bigrams for words with CJK characters
+    static Set<String> grams(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : normalized.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (isCjk(word)) {
+                if (word.length() == 1) {
+                    grams.add(word);
+                }
+                for (int i = 0; i + 2 <= word.length(); i++) {
+                    grams.add(word.substring(i, i + 2));
+                }
+            } else {
+                String padded = "  " + word + " ";
+                for (int i = 0; i + 3 <= padded.length(); i++) {
+                    grams.add(padded.substring(i, i + 3));
+                }
+            }
+        }
+        return grams;
+    }
+
+    private static boolean isCjk(String word) {
+        return word.codePoints().anyMatch(codePoint -> switch (Character.UnicodeScript.of(codePoint)) {
+            case HAN, HIRAGANA, KATAKANA, HANGUL -> true;
+            default -> false;
+        });
+    }
+
+    // immutable, replaced as a whole on every rebuild
+    private static final class SourceIndex {
+        private final long[] animeIds;
+        private final String[] titles;
+        private final int[] gramCounts;
+        private final Map<String, int[]> gramPostings;
+        private final NavigableMap<String, int[]> wordPostings;
+
+        private SourceIndex(long[] animeIds, String[] titles, int[] gramCounts,
+                            Map<String, int[]> gramPostings, NavigableMap<String, int[]> wordPostings) {
+            this.animeIds = animeIds;
+            this.titles = titles;
+            this.gramCounts = gramCounts;
+            this.gramPostings = gramPostings;
+            this.wordPostings = wordPostings;
+        }
+
+        List<Long> search(String query, int limit, double minSimilarity) {
+            Map<Integer, Double> scores = new HashMap<>();
+
+            // every query word is the prefix of a title word, the last one usually still being typed
+            Set<Integer> prefixMatches = null;
+            for (String word : query.split(" ")) {
+                Set<Integer> matches = new HashSet<>();
+                for (int[] postings : wordPostings.subMap(word, true, word + Character.MAX_VALUE, true).values()) {
+                    for (int title : postings) {
+                        matches.add(title);
+                    }
+                }
+                if (prefixMatches == null) {
+                    prefixMatches = matches;
+                } else {
+                    prefixMatches.retainAll(matches);
+                }
+            }
+            for (int title : prefixMatches) {
+                scores.put(title, titles[title].equals(query) ? EXACT_SCORE
+                        : titles[title].startsWith(query) ? TITLE_PREFIX_SCORE
+                        : WORD_PREFIX_SCORE);
+            }
+
+            // typo tolerance: titles containing most of the query's grams
+            Set<String> queryGrams = grams(query);
+            Map<Integer, Integer> shared = new HashMap<>();
+            for (String gram : queryGrams) {
+                int[] postings = gramPostings.get(gram);
+                if (postings != null) {
+                    for (int title : postings) {
+                        shared.merge(title, 1, Integer::sum);
+                    }
+                }
+            }
+            shared.forEach((title, count) -> {
+                double containment = (double) count / queryGrams.size();
+                if (containment >= minSimilarity) {
+                    double jaccard = (double) count / (queryGrams.size() + gramCounts[title] - count);
+                    scores.merge(title, FUZZY_SCORE * (0.7 * containment + 0.3 * jaccard), Math::max);
+                }
+            });
+
+            // best title per anime, ties go to the shorter title
+            Map<Long, Integer> bestTitle = new HashMap<>();
+            Comparator<Integer> ranking = Comparator.<Integer>comparingDouble(scores::get).reversed()
+                    .thenComparingInt(title -> titles[title].length())
+                    .thenComparingLong(title -> animeIds[title]);
+            scores.keySet().forEach(title -> bestTitle.merge(animeIds[title], title,
+                    (current, candidate) -> ranking.compare(candidate, current) < 0 ? candidate : current));
+
+            return bestTitle.values().stream()
+                    .sorted(ranking)
+                    .limit(limit)
+                    .map(title -> animeIds[title])
+                    .toList();
+        }
+
+        private static final class Builder {
+            private final List<Long> animeIds = new ArrayList<>();
+            private final List<String> titles = new ArrayList<>();
+            private final List<Integer> gramCounts = new ArrayList<>();
+            private final Map<String, List<Integer>> gramPostings = new HashMap<>();
+            private final Map<String, List<Integer>> wordPostings = new HashMap<>();
+
+            void add(Long animeId, String title) {
+                if (animeId == null || title.isEmpty()) {
+                    return;
+                }
+                int index = titles.size();
+                animeIds.add(animeId);
+                titles.add(title);
+
+                Set<String> grams = grams(title);
+                gramCounts.add(grams.size());
+                grams.forEach(gram -> gramPostings.computeIfAbsent(gram, key -> new ArrayList<>()).add(index));
+                for (String word : new LinkedHashSet<>(List.of(title.split(" ")))) {
+                    wordPostings.computeIfAbsent(word, key -> new ArrayList<>()).add(index);
+                }
+            }
+
+            SourceIndex build() {
+                return new SourceIndex(
+                        animeIds.stream().mapToLong(Long::longValue).toArray(),
+                        titles.toArray(String[]::new),
+                        gramCounts.stream().mapToInt(Integer::intValue).toArray(),
+                        toArrays(new HashMap<>(), gramPostings),
+                        toArrays(new TreeMap<>(), wordPostings));
+            }
+
+            private static <M extends Map<String, int[]>> M toArrays(M target, Map<String, List<Integer>> postings) {
+                postings.forEach((key, titles) -> target.put(key,
+                        titles.stream().mapToInt(Integer::intValue).toArray()));
+                return target;
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package as.tobi.chidorispring.service;
+
+import as.tobi.chidorispring.dto.kitsu.response.AnimeFullInfoResponse;
+import as.tobi.chidorispring.dto.kitsu.response.AnimeSimpleResponse;
+import as.tobi.chidorispring.dto.kitsu.response.PaginatedAnimeResponse;
+import as.tobi.chidorispring.entity.CatalogAnime;
+import as.tobi.chidorispring.enums.AnimeSource;
+import as.tobi.chidorispring.mapper.CatalogAnimeMapper;
+import as.tobi.chidorispring.repository.CatalogAnimeRepository;
+import as.tobi.chidorispring.repository.CatalogSyncStateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Reads and writes of the local anime catalogue. Reads are empty until a source has been
+// synced completely once (or when the database fails), callers then go to the upstream API.
+@Slf4j
+@Service
+public class CatalogMirrorService {
+    private static final Sort CATALOGUE_ORDER = Sort.by("externalId");
+
+    private final CatalogAnimeRepository animeRepository;
+    private final CatalogSyncStateRepository syncStateRepository;
+    private final CatalogAnimeMapper catalogAnimeMapper;
+    private final AnimeTitleIndex titleIndex;
+    private final TransactionTemplate readTransaction;
+
+    @Value("${chidori.catalog.mirror.enabled:true}")
+    private boolean enabled;
+
+    public CatalogMirrorService(CatalogAnimeRepository animeRepository,
+                                CatalogSyncStateRepository syncStateRepository,
+                                CatalogAnimeMapper catalogAnimeMapper,
+                                AnimeTitleIndex titleIndex,
+                                PlatformTransactionManager transactionManager) {
+        this.animeRepository = animeRepository;
+        this.syncStateRepository = syncStateRepository;
+        this.catalogAnimeMapper = catalogAnimeMapper;
+        this.titleIndex = titleIndex;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    public Mono<PaginatedAnimeResponse> kitsuPage(int page, int size) {
+        return read(AnimeSource.KITSU, () -> {
+            Page<CatalogAnime> result = animeRepository.findBySource(AnimeSource.KITSU, PageRequest.of(page - 1, size, CATALOGUE_ORDER));
+            PaginatedAnimeResponse response = new PaginatedAnimeResponse();
+            response.setData(result.getContent().stream().map(catalogAnimeMapper::toKitsuSimpleResponse).collect(Collectors.toList()));
+            response.setCurrentPage(page);
+            response.setPageSize(size);
+            response.setTotalItems(result.getTotalElements());
+            response.setTotalPages(result.getTotalPages());
+            return response;
+        });
+    }
+
+    // empty when nothing matches, so the fuzzier upstream search still gets a chance
+    public Mono<List<AnimeSimpleResponse>> kitsuSearch(String query, int limit) {
+        return search(AnimeSource.KITSU, query, limit, catalogAnimeMapper::toKitsuSimpleResponse);
+    }
+
+    public Mono<List<AnimeFullInfoResponse>> kitsuFullInfo(String partialTitle, int limit) {
+        return search(AnimeSource.KITSU, partialTitle, limit, catalogAnimeMapper::toKitsuFullInfoResponse);
+    }
+
+    public Mono<as.tobi.chidorispring.dto.jikan.response.PaginatedAnimeResponse> jikanPage(int page, int size) {
+        return read(AnimeSource.JIKAN, () -> {
+            Page<CatalogAnime> result = animeRepository.findBySource(AnimeSource.JIKAN, PageRequest.of(page - 1, size, CATALOGUE_ORDER));
+            return as.tobi.chidorispring.dto.jikan.response.PaginatedAnimeResponse.builder()
+                    .data(result.getContent().stream().map(catalogAnimeMapper::toJikanSimpleResponse).collect(Collectors.toList()))
+                    .currentPage(page)
+                    .pageSize(size)
+                    .totalPages(result.getTotalPages())
+                    .totalItems(result.getTotalElements())
+                    .build();
+        });
+    }
+
+    public Mono<List<as.tobi.chidorispring.dto.jikan.response.AnimeSimpleResponse>> jikanSearch(String query, int limit) {
+        return search(AnimeSource.JIKAN, query, limit, catalogAnimeMapper::toJikanSimpleResponse);
+    }
+
+    public Mono<List<as.tobi.chidorispring.dto.jikan.response.AnimeFullInfoResponse>> jikanFullInfo(String partialTitle, int limit) {
+        return search(AnimeSource.JIKAN, partialTitle, limit, catalogAnimeMapper::toJikanFullInfoResponse);
+    }
+
+    // inserts new anime and overwrites the ones we already have, returns how many were written
+    @Transactional
+    public int upsertKitsu(List<AnimeFullInfoResponse> anime) {
+        return upsert(AnimeSource.KITSU, anime, item -> Long.parseLong(item.getId()), catalogAnimeMapper::updateFromKitsu);
+    }
+
+    @Transactional
+    public int upsertJikan(List<as.tobi.chidorispring.dto.jikan.response.AnimeFullInfoResponse> anime) {
+        return upsert(AnimeSource.JIKAN, anime,
+                as.tobi.chidorispring.dto.jikan.response.AnimeFullInfoResponse::getId,
+                catalogAnimeMapper::updateFromJikan);
+    }
+
+    private <T> int upsert(AnimeSource source, List<T> items, Function<T, Long> externalId,
+                           BiConsumer<CatalogAnime, T> update) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        Map<Long, CatalogAnime> existing = animeRepository
+                .findBySourceAndExternalIdIn(source, items.stream().map(externalId).toList())
+                .stream()
+                .collect(Collectors.toMap(CatalogAnime::getExternalId, Function.identity()));
+
+        List<CatalogAnime> rows = items.stream()
+                .map(item -> {
+                    CatalogAnime row = existing.computeIfAbsent(externalId.apply(item),
+                            id -> CatalogAnime.builder().source(source).build());
+                    update.accept(row, item);
+                    return row;
+                })
+                .toList();
+        animeRepository.saveAll(rows);
+        return rows.size();
+    }
+
+    // ranked by the title index once it is built, a plain substring match before that
+    private <T> Mono<List<T>> search(AnimeSource source, String query, int limit, Function<CatalogAnime, T> mapper) {
+        if (titleIndex.isReady(source)) {
+            return read(source, () -> {
+                List<Long> ids = titleIndex.search(source, query, limit);
+                Map<Long, CatalogAnime> rows = animeRepository.findAllById(ids).stream()
+                        .collect(Collectors.toMap(CatalogAnime::getId, Function.identity()));
+                List<T> results = ids.stream()
+                        .map(rows::get)
+                        .filter(Objects::nonNull)
+                        .map(mapper)
+                        .collect(Collectors.toList());
+                return results.isEmpty() ? null : results;
+            });
+        }
+
+        String pattern = "%" + query.trim().toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return read(source, () -> {
+            List<T> results = animeRepository.searchByTitle(source, pattern, PageRequest.of(0, limit)).stream()
+                    .map(mapper)
+                    .collect(Collectors.toList());
+            return results.isEmpty() ? null : results;
+        });
+    }
+
+    // blocking jpa work runs off the calling thread, inside a read-only transaction for the lazy collections
+    private <T> Mono<T> read(AnimeSource source, Supplier<T> query) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> readTransaction.execute(status -> isSynced(source) ? query.get() : null))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> e instanceof DataAccessException || e instanceof TransactionException, e -> {
+                    log.warn("Catalogue mirror read failed for {}: {}", source, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private boolean isSynced(AnimeSource source) {
+        return syncStateRepository.findById(source)
+                .map(state -> state.getCompletedAt() != null)
+                .orElse(false);
+    }
+}
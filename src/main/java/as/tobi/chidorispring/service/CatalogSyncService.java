@@ -0,0 +1,160 @@
+package as.tobi.chidorispring.service;
+
+import as.tobi.chidorispring.dto.kitsu.response.AnimeFullInfoResponse;
+import as.tobi.chidorispring.entity.CatalogSyncState;
+import as.tobi.chidorispring.enums.AnimeSource;
+import as.tobi.chidorispring.repository.CatalogSyncStateRepository;
+import as.tobi.chidorispring.utils.RedisLocks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+// Copies the Kitsu and Jikan catalogues into the local mirror a few pages per run, resuming
+// where the previous run stopped. A finished pass marks the mirror as servable. Kitsu is paged
+// most recently updated first, so after the first pass each run only reads down to the newest
+// updatedAt of the previous one (the watermark). Jikan has no such order: its next full pass
+// starts after pass-interval, overwriting the rows we have.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogSyncService {
+    private static final String LOCK_KEY = "catalog:sync:lock";
+
+    private final KitsuService kitsuService;
+    private final JikanService jikanService;
+    private final CatalogMirrorService catalogMirrorService;
+    private final CatalogSyncStateRepository syncStateRepository;
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${chidori.catalog.sync.enabled:true}")
+    private boolean enabled;
+
+    // requests go through the upstream rate limiters like any other call
+    @Value("${chidori.catalog.sync.pages-per-run:20}")
+    private int pagesPerRun;
+
+    @Value("${chidori.catalog.sync.pass-interval:1d}")
+    private Duration passInterval;
+
+    @Value("${chidori.catalog.sync.lock-ttl:10m}")
+    private Duration lockTtl;
+
+    @Scheduled(initialDelayString = "${chidori.catalog.sync.initial-delay:1m}",
+            fixedDelayString = "${chidori.catalog.sync.interval:5m}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+
+        // one node syncs at a time
+        String token = UUID.randomUUID().toString();
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, lockTtl))) {
+                log.debug("Catalogue sync is running on another node");
+                return;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Catalogue sync lock unavailable, skipping this run: {}", e.getMessage());
+            return;
+        }
+
+        try {
+            syncSource(AnimeSource.KITSU, KitsuService.CATALOG_PAGE_SIZE,
+                    kitsuService::fetchCatalogPage, catalogMirrorService::upsertKitsu, CatalogSyncService::kitsuUpdatedAt);
+            // jikan's catalogue cannot be ordered by last update, it is copied in full every pass-interval
+            syncSource(AnimeSource.JIKAN, JikanService.CATALOG_PAGE_SIZE,
+                    jikanService::fetchCatalogPage, catalogMirrorService::upsertJikan, null);
+        } finally {
+            if (!RedisLocks.release(redisTemplate, LOCK_KEY, token)) {
+                log.warn("Catalogue sync lock was lost or could not be released, it expires on its own");
+            }
+        }
+    }
+
+    // updatedAt is null for sources that cannot be paged newest-updated first, they get a full pass
+    // every pass-interval; the others start from page 1 every run and stop at the watermark
+    private <T> void syncSource(AnimeSource source, int pageSize,
+                                IntFunction<Mono<List<T>>> fetchPage,
+                                Function<List<T>, Integer> upsert,
+                                Function<T, Instant> updatedAt) {
+        CatalogSyncState state = syncStateRepository.findById(source)
+                .orElseGet(() -> CatalogSyncState.builder().source(source).nextPage(1).build());
+        LocalDateTime now = LocalDateTime.now();
+        boolean incremental = updatedAt != null;
+        if (!incremental && state.getNextPage() == 1 && state.getCompletedAt() != null
+                && state.getCompletedAt().plus(passInterval).isAfter(now)) {
+            return;
+        }
+
+        Instant watermark = incremental ? state.getWatermark() : null;
+        int written = 0;
+        try {
+            for (int i = 0; i < pagesPerRun; i++) {
+                List<T> page = fetchPage.apply(state.getNextPage()).block();
+                if (page == null) {
+                    break;
+                }
+                if (incremental && state.getNextPage() == 1 && !page.isEmpty()) {
+                    state.setNextWatermark(updatedAt.apply(page.get(0)));
+                }
+                // rows at or past the watermark are already mirrored
+                written += upsert.apply(watermark == null ? page : page.stream()
+                        .filter(item -> !isBefore(updatedAt.apply(item), watermark))
+                        .toList());
+
+                // a short page is the end of the catalogue, an entry older than the watermark the end of the changes
+                boolean caughtUp = watermark != null && !page.isEmpty()
+                        && isBefore(updatedAt.apply(page.get(page.size() - 1)), watermark);
+                if (page.size() < pageSize || caughtUp) {
+                    if (caughtUp) {
+                        log.debug("Catalogue sync for {} caught up at page {}", source, state.getNextPage());
+                    } else {
+                        log.info("Catalogue pass for {} finished at page {}", source, state.getNextPage());
+                    }
+                    state.setNextPage(1);
+                    state.setCompletedAt(LocalDateTime.now());
+                    if (state.getNextWatermark() != null) {
+                        state.setWatermark(state.getNextWatermark());
+                        state.setNextWatermark(null);
+                    }
+                    break;
+                }
+                state.setNextPage(state.getNextPage() + 1);
+            }
+        } catch (RuntimeException e) {
+            // the next run retries the same page
+            log.warn("Catalogue sync for {} stopped at page {}: {}", source, state.getNextPage(), e.getMessage());
+        } finally {
+            state.setLastSyncedAt(LocalDateTime.now());
+            syncStateRepository.save(state);
+        }
+        log.debug("Catalogue sync for {} wrote {} anime, next page {}", source, written, state.getNextPage());
+    }
+
+    // an unknown updatedAt is never before the watermark, the entry is written and paging goes on
+    private static boolean isBefore(Instant updatedAt, Instant watermark) {
+        return updatedAt != null && updatedAt.isBefore(watermark);
+    }
+
+    private static Instant kitsuUpdatedAt(AnimeFullInfoResponse anime) {
+        try {
+            return anime.getUpdatedAt() != null ? Instant.parse(anime.getUpdatedAt()) : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
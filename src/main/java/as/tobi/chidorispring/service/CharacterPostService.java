@@ -3,12 +3,13 @@ package as.tobi.chidorispring.service;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -19,6 +20,7 @@ import org.springframework.web.multipart.MultipartFile;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import as.tobi.chidorispring.dto.characterPost.CharacterPostDTO;
+import as.tobi.chidorispring.dto.characterPost.CharacterPostPageDTO;
 import as.tobi.chidorispring.dto.characterPost.UpdateCharacterPostDTO;
 import as.tobi.chidorispring.entity.CharacterPost;
 import as.tobi.chidorispring.entity.UserProfile;
@@ -27,7 +29,7 @@ import as.tobi.chidorispring.exceptions.InternalViolationType;
 import as.tobi.chidorispring.mapper.CharacterPostMapper;
 import as.tobi.chidorispring.repository.CharacterPostRepository;
 import as.tobi.chidorispring.repository.UserFavoritePostRepository;
-import as.tobi.chidorispring.repository.UserRelationshipRepository;
+import as.tobi.chidorispring.utils.PostCursor;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -44,9 +46,12 @@ public class CharacterPostService {
     @Autowired
     private UserFavoritePostRepository favoritePostRepository;
     @Autowired
-    private UserRelationshipRepository relationshipRepository;
+    private TimelineService timelineService;
+    @Autowired
+    private PostCacheService postCacheService;
 
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5 MB
+    private static final int MAX_CURSOR_PAGE_SIZE = 50;
 
     @Transactional
     public CharacterPostDTO createPost(CharacterPost post,
@@ -65,6 +70,8 @@ public class CharacterPostService {
 
         imageSizeCheck(characterImage);
         CharacterPost savedPost = postRepository.save(post);
+        timelineService.onPostCreated(savedPost);
+        postCacheService.evictAllPages();
 
         log.info("Post created successfully. Post ID: {}", savedPost.getId());
         return characterPostMapper.toDto(savedPost, user.getId());
@@ -72,16 +79,17 @@ public class CharacterPostService {
 
     public CharacterPostDTO findPostById(Long postId, String userEmail) {
         log.debug("Finding post by ID: {}", postId);
-        CharacterPost post = postRepository.findById(postId)
+        // the cached body is shared by all viewers, the viewer's flags are applied on top
+        CharacterPostDTO body = postCacheService.getPost(postId, () -> postRepository.findById(postId)
+                .map(characterPostMapper::toDto)
                 .orElseThrow(() -> {
                     log.error("Post not found for ID: {}", postId);
                     return new InternalViolationException(InternalViolationType.POST_IS_NOT_EXISTS);
-                });
+                }));
         Long currentUserId = userEmail != null ? userService.getUserByEmail(userEmail).getId() : null;
-        return characterPostMapper.toDto(post, currentUserId);
+        return characterPostMapper.applyViewerState(body, currentUserId);
     }
 
-    @Cacheable(value = "posts", key = "{#page, #size, #userEmail, #sortBy, #sortDirection, #anime, #genres}")
     public List<CharacterPostDTO> findAllPosts(
             int page, 
             int size, 
@@ -93,31 +101,54 @@ public class CharacterPostService {
         log.debug("Finding posts with pagination: page={}, size={}, sortBy={}, sortDirection={}, anime={}, genres={}", 
                 page, size, sortBy, sortDirection, anime, genres);
         
-        // Create sort object
-        Sort sort = Sort.by(
-            sortDirection != null && sortDirection.equalsIgnoreCase("desc") ? 
-            Sort.Direction.DESC : Sort.Direction.ASC,
-            sortBy != null ? sortBy : "createdAt"
-        );
+        // Create sort object, id keeps the order stable between pages
+        Sort.Direction direction = sortDirection != null && sortDirection.equalsIgnoreCase("desc") ?
+            Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direction, sortBy != null ? sortBy : "createdAt")
+            .and(Sort.by(direction, "id"));
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        
-        // Get posts based on filters
-        Page<CharacterPost> posts;
+
+        // the page is cached as a list of ids shared by every viewer, bodies come from the per-post cache
+        String pageKey = String.join(":", "page", String.valueOf(page), String.valueOf(size),
+                String.valueOf(sortBy), String.valueOf(sortDirection), String.valueOf(anime), String.valueOf(genres));
+        List<Long> postIds = postCacheService.getPageIds(pageKey, () -> {
+            // Get the page of post ids based on filters
+            if (anime != null && !anime.isEmpty()) {
+                return postRepository.findPostIdsByAnime(anime, pageable);
+            } else if (genres != null && !genres.isEmpty()) {
+                // TODO: Implement genre filtering
+                return postRepository.findPostIds(pageable);
+            }
+            return postRepository.findPostIds(pageable);
+        });
+
+        Long currentUserId = userEmail != null ? userService.getUserByEmail(userEmail).getId() : null;
+
+        return characterPostMapper.applyViewerState(loadPosts(postIds), currentUserId);
+    }
+
+    // Cursor-based feed: seeks past the last seen (createdAt, id) instead of skipping rows, no total count
+    public CharacterPostPageDTO findPostsPage(String cursor, int size, String userEmail, String anime) {
+        log.debug("Finding posts page: cursor={}, size={}, anime={}", cursor, size, anime);
+        PostCursor position = PostCursor.decode(cursor);
+        int pageSize = cursorPageSize(size);
+        // fetch one extra row to know whether there is a next page
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<CharacterPost> posts;
         if (anime != null && !anime.isEmpty()) {
-            posts = postRepository.findByAnimeContainingIgnoreCase(anime, pageable);
-        } else if (genres != null && !genres.isEmpty()) {
-            // TODO: Implement genre filtering
-            posts = postRepository.findAllWithLikesAndComments(pageable);
+            posts = position == null
+                    ? postRepository.findFeedFirstPageByAnime(anime, limit)
+                    : postRepository.findFeedPageAfterByAnime(anime, position.getCreatedAt(), position.getId(), limit);
         } else {
-            posts = postRepository.findAllWithLikesAndComments(pageable);
+            posts = position == null
+                    ? postRepository.findFeedFirstPage(limit)
+                    : postRepository.findFeedPageAfter(position.getCreatedAt(), position.getId(), limit);
         }
-        
-        Long currentUserId = userEmail != null ? userService.getUserByEmail(userEmail).getId() : null;
 
-        return posts.stream()
-                .map(post -> characterPostMapper.toDto(post, currentUserId))
-                .collect(Collectors.toList());
+        Long currentUserId = userEmail != null ? userService.getUserByEmail(userEmail).getId() : null;
+        return toCursorPage(characterPostMapper.toDtoList(posts, null), pageSize, currentUserId);
     }
 
     @Transactional
@@ -147,6 +178,7 @@ public class CharacterPostService {
         post.setUpdatedAt(LocalDateTime.now());
 
         CharacterPost updatedPost = postRepository.save(post);
+        postCacheService.evictPost(postId);
         log.info("Post ID: {} updated successfully", postId);
 
         return characterPostMapper.toDto(updatedPost, currentUserId);
@@ -183,6 +215,9 @@ public class CharacterPostService {
         // essentially Characterpost (connections with Likes and Comments)
 
         postRepository.delete(post);
+        timelineService.onPostDeleted(postId, currentUserId);
+        postCacheService.evictPost(postId);
+        postCacheService.evictAllPages();
         log.info("Post ID: {} deleted successfully by user ID: {}", postId, currentUserId);
     }
 
@@ -226,31 +261,68 @@ public class CharacterPostService {
         log.debug("Getting recommended posts for user: {}", userEmail);
         
         UserProfile currentUser = userService.getUserByEmail(userEmail);
-        Pageable pageable = PageRequest.of(page, size);
 
-        // Get posts from users that the current user follows
-        List<UserProfile> followingUsers = relationshipRepository.findFollowingByUser(currentUser);
-        List<Long> followingUserIds = followingUsers.stream()
-                .map(UserProfile::getId)
-                .collect(Collectors.toList());
-        
-        log.debug("Following users count: {}", followingUserIds.size());
+        // Posts from followed users come from the materialized home timeline
+        List<Long> timelineIds = timelineService.readTimeline(currentUser.getId(), null, (page + 1) * size);
+        int from = page * size;
+        if (from >= timelineIds.size()) {
+            log.debug("Timeline exhausted for user: {}, returning empty list", userEmail);
+            return new ArrayList<>();
+        }
+        List<Long> pageIds = timelineIds.subList(from, Math.min(from + size, timelineIds.size()));
+
+        log.debug("Found {} posts from followed users", pageIds.size());
+
+        return characterPostMapper.applyViewerState(loadPosts(pageIds), currentUser.getId());
+    }
+
+    // Cursor-based variant of getRecommendedPosts
+    public CharacterPostPageDTO getRecommendedPostsPage(String userEmail, String cursor, int size) {
+        log.debug("Getting recommended posts page for user: {}, cursor={}", userEmail, cursor);
+        PostCursor position = PostCursor.decode(cursor);
+        int pageSize = cursorPageSize(size);
+
+        UserProfile currentUser = userService.getUserByEmail(userEmail);
+        List<Long> timelineIds = timelineService.readTimeline(currentUser.getId(), position, pageSize + 1);
+
+        return toCursorPage(loadPosts(timelineIds), pageSize, currentUser.getId());
+    }
 
-        // If user has no following, return empty list
-        if (followingUserIds.isEmpty()) {
-            log.debug("User has no following, returning empty list");
+    // viewer-independent bodies for a page of ids, keeping the id order
+    private List<CharacterPostDTO> loadPosts(List<Long> postIds) {
+        if (postIds.isEmpty()) {
             return new ArrayList<>();
         }
+        return postCacheService.getPosts(postIds, missingIds -> characterPostMapper.toDtoList(hydratePosts(missingIds), null));
+    }
 
-        // Get posts from followed users
-        Page<CharacterPost> followedUsersPosts = postRepository.findByUserIdInOrderByCreatedAtDesc(
-                followingUserIds, pageable);
-        
-        log.debug("Found {} posts from followed users", followedUsersPosts.getContent().size());
+    // loads posts with author and genres for a page of ids, keeping the id order
+    private List<CharacterPost> hydratePosts(List<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, CharacterPost> postsById = postRepository.findAllWithAuthorAndGenresByIdIn(postIds).stream()
+                .collect(Collectors.toMap(CharacterPost::getId, Function.identity()));
 
-        return followedUsersPosts.getContent().stream()
-                .map(post -> characterPostMapper.toDto(post, currentUser.getId()))
+        return postIds.stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
+    private CharacterPostPageDTO toCursorPage(List<CharacterPostDTO> posts, int pageSize, Long currentUserId) {
+        boolean hasNext = posts.size() > pageSize;
+        List<CharacterPostDTO> page = hasNext ? posts.subList(0, pageSize) : posts;
+
+        return CharacterPostPageDTO.builder()
+                .posts(characterPostMapper.applyViewerState(page, currentUserId))
+                .nextCursor(hasNext ? PostCursor.of(page.get(page.size() - 1)).encode() : null)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    private int cursorPageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+    }
 }
\ No newline at end of file
@@ -11,9 +11,9 @@ import as.tobi.chidorispring.mapper.CharacterPostMapper;
 import as.tobi.chidorispring.repository.CommentRepository;
 import as.tobi.chidorispring.repository.LikeRepository;
 import as.tobi.chidorispring.repository.CharacterPostRepository;
+import as.tobi.chidorispring.utils.TransactionCallbacks;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -40,8 +40,16 @@ public class InteractionService {
     @Autowired
     private CharacterPostMapper characterPostMapper;
 
+    @Autowired
+    private PostCacheService postCacheService;
+
+    @Autowired
+    private PostViewerStateService viewerStateService;
+
+    @Autowired
+    private RecommendationEngine recommendationEngine;
+
     @Transactional
-    @CacheEvict(value = {"posts", "post"}, allEntries = true)
     public void addLike(Long postId, String userEmail) {
         log.debug("Adding like to post ID: {} by user: {}", postId, userEmail);
         CharacterPost post = postRepository.findById(postId)
@@ -64,11 +72,15 @@ public class InteractionService {
                 .build();
 
         likeRepository.save(like);
+        postRepository.incrementLikeCount(postId);
+        postCacheService.evictPost(postId);
+        viewerStateService.evict(user.getId());
+        Long userId = user.getId();
+        TransactionCallbacks.afterCommit(() -> recommendationEngine.onInteraction(userId));
         log.info("Like added to post ID: {} by user: {}", postId, userEmail);
     }
 
     @Transactional
-    @CacheEvict(value = {"posts", "post"}, allEntries = true)
     public void removeLike(Long postId, String userEmail) {
         log.debug("Removing like from post ID: {} by user: {}", postId, userEmail);
         UserProfile user = userService.getUserByEmail(userEmail);
@@ -79,11 +91,15 @@ public class InteractionService {
         }
 
         likeRepository.deleteByCharacterPostIdAndUserId(postId, user.getId());
+        postRepository.decrementLikeCount(postId);
+        postCacheService.evictPost(postId);
+        viewerStateService.evict(user.getId());
+        Long userId = user.getId();
+        TransactionCallbacks.afterCommit(() -> recommendationEngine.onInteraction(userId));
         log.info("Like removed from post ID: {} by user: {}", postId, userEmail);
     }
 
     @Transactional
-    @CacheEvict(value = {"posts", "post"}, allEntries = true)
     public CharacterPostCommentDTO addComment(Long postId, String content, String userEmail) {
         log.debug("Adding comment to post ID: {} by user: {}", postId, userEmail);
         CharacterPost post = postRepository.findById(postId)
@@ -102,6 +118,8 @@ public class InteractionService {
                 .build();
 
         CharacterPostComment savedComment = commentRepository.save(comment);
+        postRepository.incrementCommentCount(postId);
+        postCacheService.evictPost(postId);
         log.info("Comment added to post ID: {} by user: {}", postId, userEmail);
 
         return characterPostMapper.toCommentDto(savedComment);
@@ -124,6 +142,9 @@ public class InteractionService {
         }
 
         commentRepository.delete(comment);
+        Long postId = comment.getCharacterPost().getId();
+        postRepository.decrementCommentCount(postId);
+        postCacheService.evictPost(postId);
         log.info("Comment ID: {} deleted by user: {}", commentId, userEmail);
     }
 
@@ -1,43 +1,76 @@
 package as.tobi.chidorispring.service;
 
+import as.tobi.chidorispring.cache.ReactiveCache;
+import as.tobi.chidorispring.config.UpstreamProperties;
 import as.tobi.chidorispring.dto.jikan.JikanAnimeData;
+import as.tobi.chidorispring.dto.jikan.JikanPagination;
 import as.tobi.chidorispring.dto.jikan.response.AnimeFullInfoResponse;
 import as.tobi.chidorispring.dto.jikan.response.AnimeSimpleResponse;
 import as.tobi.chidorispring.dto.jikan.response.JikanResponse;
 import as.tobi.chidorispring.dto.jikan.response.PaginatedAnimeResponse;
+import as.tobi.chidorispring.enums.AnimeSource;
 import as.tobi.chidorispring.exceptions.AnimeViolationException;
 import as.tobi.chidorispring.exceptions.AnimeViolationType;
 import as.tobi.chidorispring.mapper.JikanAnimeMapper;
+import as.tobi.chidorispring.service.AnimeRequestTracker.AnimeRequest;
+import as.tobi.chidorispring.utils.PagedSearch;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
-@CacheConfig(cacheNames = "jikanAnimeCache")
+@CacheConfig(cacheNames = JikanService.CACHE_NAME)
 @Slf4j
 public class JikanService {
+    static final String CACHE_NAME = "jikanAnimeCache";
+    private static final int SEARCH_PAGE_SIZE = 25; // Jikan API max limit
+    static final int CATALOG_PAGE_SIZE = 25;
+
     private final WebClient jikanWebClient;
     private final JikanAnimeMapper jikanAnimeMapper;
+    private final ReactiveCache reactiveCache;
+    private final UpstreamProperties upstreamProperties;
+    private final CatalogMirrorService catalogMirrorService;
+    private final AnimeRequestTracker animeRequestTracker;
 
     // Fetches paginated anime with genres, caches result
-    @Cacheable(key = "{'page', #page, 'size', #size}", unless = "#result == null || #result.data.isEmpty()")
     public Mono<PaginatedAnimeResponse> getAnimeWithGenres(int page, int size) {
         // Validate pagination parameters
         if (page <= 0 || size <= 0) {
             return Mono.error(new AnimeViolationException(AnimeViolationType.INVALID_PAGE_PARAMS));
         }
 
+        animeRequestTracker.recordPage(AnimeSource.JIKAN, page, size);
+        return reactiveCache.get(CACHE_NAME, AnimeRequest.pageKey(page, size), PaginatedAnimeResponse.class,
+                () -> loadAnimePage(page, size),
+                response -> response.getData() != null && !response.getData().isEmpty());
+    }
+
+    // Reloads a cached page before it expires, used by AnimeCacheWarmer
+    Mono<PaginatedAnimeResponse> refreshAnimePage(int page, int size) {
+        return reactiveCache.refresh(CACHE_NAME, AnimeRequest.pageKey(page, size), PaginatedAnimeResponse.class,
+                () -> loadAnimePage(page, size),
+                response -> response.getData() != null && !response.getData().isEmpty());
+    }
+
+    // Serve from the local catalogue once synced, from Jikan otherwise
+    private Mono<PaginatedAnimeResponse> loadAnimePage(int page, int size) {
+        return catalogMirrorService.jikanPage(page, size)
+                .switchIfEmpty(Mono.defer(() -> fetchAnimePage(page, size)));
+    }
+
+    // Fetches one catalogue page from Jikan
+    private Mono<PaginatedAnimeResponse> fetchAnimePage(int page, int size) {
         return jikanWebClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/anime")
@@ -55,58 +88,127 @@ public class JikanService {
                 .map(response -> jikanAnimeMapper.toPaginatedResponse(response, page, size));
     }
 
+    // Fetches one page of the whole catalogue in MAL id order with full details, used by CatalogSyncService
+    Mono<List<AnimeFullInfoResponse>> fetchCatalogPage(int page) {
+        return jikanWebClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/anime")
+                        .queryParam("order_by", "mal_id")
+                        .queryParam("sort", "asc")
+                        .queryParam("page", page)
+                        .queryParam("limit", CATALOG_PAGE_SIZE)
+                        .build())
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response ->
+                        Mono.error(new AnimeViolationException(AnimeViolationType.JIKAN_API_ERROR)))
+                .bodyToMono(JikanResponse.class)
+                .switchIfEmpty(Mono.error(new AnimeViolationException(AnimeViolationType.INVALID_JIKAN_RESPONSE_FORMAT)))
+                .map(response -> response.getData().stream()
+                        .map(jikanAnimeMapper::toAnimeFullInfoResponse)
+                        .collect(Collectors.toList()));
+    }
+
     // Searches anime by query across pages, caches result
-    @Cacheable(key = "{'search', #query}", unless = "#result == null || #result.isEmpty()")
     public Mono<List<AnimeSimpleResponse>> searchAnimeAcrossAllPages(String query) {
         // Validate query
         if (query == null || query.trim().isEmpty()) {
             return Mono.error(new AnimeViolationException(AnimeViolationType.SEARCH_QUERY_EMPTY));
         }
 
-        return searchAnimeRecursive(query, 1, new ArrayList<>());
+        animeRequestTracker.recordSearch(AnimeSource.JIKAN, query);
+        return reactiveCache.get(CACHE_NAME, AnimeRequest.searchKey(query), List.class,
+                () -> searchAllPages(query),
+                results -> !results.isEmpty());
+    }
+
+    // Reloads a cached search before it expires, used by AnimeCacheWarmer
+    Mono<List<AnimeSimpleResponse>> refreshSearch(String query) {
+        return reactiveCache.refresh(CACHE_NAME, AnimeRequest.searchKey(query), List.class,
+                () -> searchAllPages(query),
+                results -> !results.isEmpty());
+    }
+
+    // Streams search results page by page, the first ones arrive before the other pages are fetched
+    public Flux<AnimeSimpleResponse> streamAnimeSearch(String query) {
+        // Validate query
+        if (query == null || query.trim().isEmpty()) {
+            return Flux.error(new AnimeViolationException(AnimeViolationType.SEARCH_QUERY_EMPTY));
+        }
+
+        // Replay a cached full search or the local catalogue, otherwise stream pages without filling the cache
+        return reactiveCache.<List<AnimeSimpleResponse>>getIfPresent(CACHE_NAME, AnimeRequest.searchKey(query), List.class)
+                .switchIfEmpty(catalogMirrorService.jikanSearch(query, searchLimit()))
+                .flatMapMany(Flux::fromIterable)
+                .switchIfEmpty(searchPages(query));
+    }
+
+    // Collects all pages of a search, the local catalogue answers first when it has matches
+    private Mono<List<AnimeSimpleResponse>> searchAllPages(String query) {
+        return catalogMirrorService.jikanSearch(query, searchLimit())
+                .switchIfEmpty(searchPages(query).collectList())
+                // Handle no results
+                .flatMap(results -> results.isEmpty()
+                        ? Mono.error(new AnimeViolationException(AnimeViolationType.ANIME_NOT_FOUND))
+                        : Mono.just(results));
     }
 
-    // Recursively searches anime across pages
-    private Mono<List<AnimeSimpleResponse>> searchAnimeRecursive(String query, int page,
-                                                                 List<AnimeSimpleResponse> accumulatedResults) {
-        final int PAGE_SIZE = 25; // Jikan API max limit
+    // Fetches the first page, then the remaining pages concurrently
+    private Flux<AnimeSimpleResponse> searchPages(String query) {
+        return PagedSearch.stream(upstreamProperties.getJikan().getSearch(), SEARCH_PAGE_SIZE,
+                page -> searchPage(query, page),
+                response -> response.getData().stream()
+                        .map(jikanAnimeMapper::toAnimeSimpleResponse)
+                        .collect(Collectors.toList()),
+                this::totalResults);
+    }
 
+    // As many results as the upstream search returns at most
+    private int searchLimit() {
+        return upstreamProperties.getJikan().getSearch().getMaxPages() * SEARCH_PAGE_SIZE;
+    }
+
+    // Fetches one page of search results
+    private Mono<JikanResponse> searchPage(String query, int page) {
         return jikanWebClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/anime")
                         .queryParam("q", query)
                         .queryParam("page", page)
-                        .queryParam("limit", PAGE_SIZE)
+                        .queryParam("limit", SEARCH_PAGE_SIZE)
                         .build())
                 .retrieve()
                 .onStatus(HttpStatusCode::isError, response ->
                         Mono.error(new AnimeViolationException(AnimeViolationType.JIKAN_API_ERROR)))
                 .bodyToMono(JikanResponse.class)
-                .switchIfEmpty(Mono.error(new AnimeViolationException(AnimeViolationType.INVALID_JIKAN_RESPONSE_FORMAT)))
-                .flatMap(response -> {
-                    // Map page results to DTOs
-                    List<AnimeSimpleResponse> pageResults = response.getData().stream()
-                            .map(jikanAnimeMapper::toAnimeSimpleResponse)
-                            .collect(Collectors.toList());
-
-                    accumulatedResults.addAll(pageResults);
+                .switchIfEmpty(Mono.error(new AnimeViolationException(AnimeViolationType.INVALID_JIKAN_RESPONSE_FORMAT)));
+    }
 
-                    // Continue if page is full and limit not reached
-                    if (pageResults.size() == PAGE_SIZE && page < 10) {
-                        return searchAnimeRecursive(query, page + 1, accumulatedResults);
-                    }
+    // Total matches from pagination, falls back to the last page number
+    private int totalResults(JikanResponse response) {
+        JikanPagination pagination = response.getPagination();
+        if (pagination == null) {
+            return 0;
+        }
+        if (pagination.getItems() != null && pagination.getItems().getTotal() > 0) {
+            return pagination.getItems().getTotal();
+        }
+        return pagination.getLastVisiblePage() * SEARCH_PAGE_SIZE;
+    }
 
-                    // Handle no results
-                    if (accumulatedResults.isEmpty()) {
-                        return Mono.error(new AnimeViolationException(AnimeViolationType.ANIME_NOT_FOUND));
-                    }
+    // title suggestions for autocomplete, answered by the local catalogue only and empty until it is synced
+    public Mono<List<AnimeSimpleResponse>> autocomplete(String query, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            return Mono.error(new AnimeViolationException(AnimeViolationType.SEARCH_QUERY_EMPTY));
+        }
+        if (limit <= 0 || limit > 20) {
+            return Mono.error(new AnimeViolationException(AnimeViolationType.INVALID_LIMIT));
+        }
 
-                    return Mono.just(accumulatedResults);
-                });
+        return catalogMirrorService.jikanSearch(query, limit)
+                .defaultIfEmpty(List.of());
     }
 
     // Searches anime by title with full details, caches result
-    @Cacheable(key = "{'fullSearch', #partialTitle, 'limit', #limit}", unless = "#result == null || #result.isEmpty()")
     public Mono<List<AnimeFullInfoResponse>> getAnimeFullInfoByTitle(String partialTitle, int limit) {
         // Validate inputs
         if (partialTitle == null || partialTitle.trim().isEmpty()) {
@@ -116,6 +218,14 @@ public class JikanService {
             return Mono.error(new AnimeViolationException(AnimeViolationType.INVALID_LIMIT));
         }
 
+        return reactiveCache.get(CACHE_NAME, List.of("fullSearch", partialTitle, "limit", limit), List.class,
+                () -> catalogMirrorService.jikanFullInfo(partialTitle, limit)
+                        .switchIfEmpty(Mono.defer(() -> fetchFullInfo(partialTitle, limit))),
+                results -> !results.isEmpty());
+    }
+
+    // Searches Jikan by title with full details
+    private Mono<List<AnimeFullInfoResponse>> fetchFullInfo(String partialTitle, int limit) {
         return jikanWebClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/anime")
@@ -161,14 +271,8 @@ public class JikanService {
     }
 
     // Clears all cache entries
-    @CacheEvict(value = "jikanAnimeCache", allEntries = true, beforeInvocation = true)
+    @CacheEvict(value = CACHE_NAME, allEntries = true, beforeInvocation = true)
     public void evictAllCache() {
         log.info("Evicting all jikanAnimeCache entries");
     }
-
-    // Clears cache for specific page and size
-    @CacheEvict(value = "jikanAnimeCache", key = "{'page', #page, 'size', #size}")
-    public void evictPaginatedCache(int page, int size) {
-        log.info("Evicting jikan cache for page {} size {}", page, size);
-    }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package as.tobi.chidorispring.service;
 
+import as.tobi.chidorispring.cache.ReactiveCache;
+import as.tobi.chidorispring.config.UpstreamProperties;
 import as.tobi.chidorispring.dto.kitsu.AnimeData;
 import as.tobi.chidorispring.dto.kitsu.KitsuResponse;
 import as.tobi.chidorispring.dto.kitsu.response.AnimeFullInfoResponse;
@@ -7,36 +9,47 @@ import as.tobi.chidorispring.dto.kitsu.response.AnimeSimpleResponse;
 import as.tobi.chidorispring.dto.kitsu.response.PaginatedAnimeResponse;
 import as.tobi.chidorispring.exceptions.AnimeViolationException;
 import as.tobi.chidorispring.exceptions.AnimeViolationType;
+import as.tobi.chidorispring.enums.AnimeSource;
 import as.tobi.chidorispring.mapper.AnimeMapper;
+import as.tobi.chidorispring.service.AnimeRequestTracker.AnimeRequest;
+import as.tobi.chidorispring.utils.PagedSearch;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
-@CacheConfig(cacheNames = "animeCache")
+@CacheConfig(cacheNames = KitsuService.CACHE_NAME)
 @Slf4j
 public class KitsuService {
+    static final String CACHE_NAME = "animeCache";
+    // kitsu api allows maximum 20 items per request
+    private static final int SEARCH_PAGE_SIZE = 20;
+    static final int CATALOG_PAGE_SIZE = 20;
+
     // web client for making http requests to kitsu api
     private final WebClient kitsuWebClient;
     // converts raw api data to our application's format
     private final AnimeMapper animeMapper;
+    // caches resolved results, one upstream call per key at a time
+    private final ReactiveCache reactiveCache;
+    // page budget and concurrency for multi-page searches
+    private final UpstreamProperties upstreamProperties;
+    // local copy of the kitsu catalogue, empty until synced
+    private final CatalogMirrorService catalogMirrorService;
+    // most requested pages and searches, refreshed ahead of expiry by AnimeCacheWarmer
+    private final AnimeRequestTracker animeRequestTracker;
 
-    @Cacheable(
-            key = "{'page', #page, 'size', #size}",
-            unless = "#result == null || #result.data.isEmpty()"
-    )
     // gets a page of anime with genre information
     public Mono<PaginatedAnimeResponse> getAnimeWithGenres(int page, int size) {
         // validate pagination parameters first
@@ -45,6 +58,27 @@ public class KitsuService {
             return Mono.error(new AnimeViolationException(AnimeViolationType.INVALID_PAGE_PARAMS));
         }
 
+        animeRequestTracker.recordPage(AnimeSource.KITSU, page, size);
+        return reactiveCache.get(CACHE_NAME, AnimeRequest.pageKey(page, size), PaginatedAnimeResponse.class,
+                () -> loadAnimePage(page, size),
+                response -> response.getData() != null && !response.getData().isEmpty());
+    }
+
+    // reloads a cached page before it expires, used by AnimeCacheWarmer
+    Mono<PaginatedAnimeResponse> refreshAnimePage(int page, int size) {
+        return reactiveCache.refresh(CACHE_NAME, AnimeRequest.pageKey(page, size), PaginatedAnimeResponse.class,
+                () -> loadAnimePage(page, size),
+                response -> response.getData() != null && !response.getData().isEmpty());
+    }
+
+    // the local catalogue answers once it is synced, kitsu otherwise
+    private Mono<PaginatedAnimeResponse> loadAnimePage(int page, int size) {
+        return catalogMirrorService.kitsuPage(page, size)
+                .switchIfEmpty(Mono.defer(() -> fetchAnimePage(page, size)));
+    }
+
+    // one page of the kitsu catalogue
+    private Mono<PaginatedAnimeResponse> fetchAnimePage(int page, int size) {
         // building the request uri with query parameters
         return kitsuWebClient.get()
                 .uri(uriBuilder -> uriBuilder
@@ -69,10 +103,24 @@ public class KitsuService {
                 .map(response -> animeMapper.toPaginatedResponse(response, page, size));
     }
 
-    @Cacheable(
-            key = "{'search', #query}",
-            unless = "#result == null || #result.isEmpty()"
-    )
+    // one page of the whole catalogue, most recently updated first, with full details; used by CatalogSyncService
+    Mono<List<AnimeFullInfoResponse>> fetchCatalogPage(int page) {
+        return kitsuWebClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/anime")
+                        .queryParam("sort", "-updatedAt")
+                        .queryParam("page[limit]", CATALOG_PAGE_SIZE)
+                        .queryParam("page[offset]", (page - 1) * CATALOG_PAGE_SIZE)
+                        .queryParam("include", "categories")
+                        .build())
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, response ->
+                        Mono.error(new AnimeViolationException(AnimeViolationType.KITSU_API_ERROR)))
+                .bodyToMono(KitsuResponse.class)
+                .switchIfEmpty(Mono.error(new AnimeViolationException(AnimeViolationType.INVALID_KITSU_RESPONSE_FORMAT)))
+                .map(response -> animeMapper.toAnimeFullInfoResponses(response.getData(), response.getIncluded()));
+    }
+
     // searches through all available pages to find matching anime
     public Mono<List<AnimeSimpleResponse>> searchAnimeAcrossAllPages(String query) {
         // validate search query isn't empty
@@ -80,26 +128,67 @@ public class KitsuService {
             return Mono.error(new AnimeViolationException(AnimeViolationType.SEARCH_QUERY_EMPTY));
         }
 
-        // start the recursive search from page 1 with empty results
-        return searchAnimeRecursive(query, 1, new ArrayList<>());
+        animeRequestTracker.recordSearch(AnimeSource.KITSU, query);
+        return reactiveCache.get(CACHE_NAME, AnimeRequest.searchKey(query), List.class,
+                () -> searchAllPages(query),
+                results -> !results.isEmpty());
     }
 
-    // helper method that searches page by page recursively
-    private Mono<List<AnimeSimpleResponse>> searchAnimeRecursive(String query, int page,
-                                                                 List<AnimeSimpleResponse> accumulatedResults) {
-        // kitsu api allows maximum 20 items per request
-        final int PAGE_SIZE = 20;
+    // reloads a cached search before it expires, used by AnimeCacheWarmer
+    Mono<List<AnimeSimpleResponse>> refreshSearch(String query) {
+        return reactiveCache.refresh(CACHE_NAME, AnimeRequest.searchKey(query), List.class,
+                () -> searchAllPages(query),
+                results -> !results.isEmpty());
+    }
 
+    // streams search results page by page, the first ones arrive before the other pages are fetched
+    public Flux<AnimeSimpleResponse> streamAnimeSearch(String query) {
+        // validate search query isn't empty
+        if (query == null || query.trim().isEmpty()) {
+            return Flux.error(new AnimeViolationException(AnimeViolationType.SEARCH_QUERY_EMPTY));
+        }
 
+        // a cached full search or the local catalogue is replayed, otherwise pages are streamed without filling the cache
+        return reactiveCache.<List<AnimeSimpleResponse>>getIfPresent(CACHE_NAME, AnimeRequest.searchKey(query), List.class)
+                .switchIfEmpty(catalogMirrorService.kitsuSearch(query, searchLimit()))
+                .flatMapMany(Flux::fromIterable)
+                .switchIfEmpty(searchPages(query));
+    }
 
-        // building the search request
+    // collects all pages of a search, the local catalogue answers first when it has matches
+    private Mono<List<AnimeSimpleResponse>> searchAllPages(String query) {
+        return catalogMirrorService.kitsuSearch(query, searchLimit())
+                .switchIfEmpty(searchPages(query).collectList())
+                .flatMap(results -> results.isEmpty()
+                        // return error if no results found after searching
+                        ? Mono.error(new AnimeViolationException(AnimeViolationType.ANIME_NOT_FOUND))
+                        : Mono.just(results));
+    }
+
+    // fetches the first page, then the rest of the matching pages concurrently
+    private Flux<AnimeSimpleResponse> searchPages(String query) {
+        return PagedSearch.stream(upstreamProperties.getKitsu().getSearch(), SEARCH_PAGE_SIZE,
+                page -> searchPage(query, page),
+                // convert each anime in the page to our format
+                response -> animeMapper.toAnimeSimpleResponses(response.getData(), response.getIncluded()),
+                // kitsu reports the total number of matches in meta.count
+                response -> response.getMeta() != null ? response.getMeta().getCount() : 0);
+    }
+
+    // as many results as the upstream search returns at most
+    private int searchLimit() {
+        return upstreamProperties.getKitsu().getSearch().getMaxPages() * SEARCH_PAGE_SIZE;
+    }
+
+    // one page of search results
+    private Mono<KitsuResponse> searchPage(String query, int page) {
         return kitsuWebClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/anime")
                         // text filter for searching
                         .queryParam("filter[text]", query)
-                        .queryParam("page[limit]", PAGE_SIZE)
-                        .queryParam("page[offset]", (page - 1) * PAGE_SIZE)
+                        .queryParam("page[limit]", SEARCH_PAGE_SIZE)
+                        .queryParam("page[offset]", (page - 1) * SEARCH_PAGE_SIZE)
                         .queryParam("include", "categories")
                         .build())
                 .retrieve()
@@ -108,36 +197,22 @@ public class KitsuService {
                         Mono.error(new AnimeViolationException(AnimeViolationType.KITSU_API_ERROR)))
                 .bodyToMono(KitsuResponse.class)
                 // handle invalid empty responses
-                .switchIfEmpty(Mono.error(new AnimeViolationException(AnimeViolationType.INVALID_KITSU_RESPONSE_FORMAT)))
-                .flatMap(response -> {
-                    // convert each anime in this page's results to our format
-                    List<AnimeSimpleResponse> pageResults = response.getData().stream()
-                            .map(anime -> animeMapper.toAnimeSimpleResponse(anime, response.getIncluded()))
-                            .collect(Collectors.toList());
-
-                    // add this page's results to our collection
-                    accumulatedResults.addAll(pageResults);
-
-                    // if we got a full page and haven't checked too many pages...
-                    if (pageResults.size() == PAGE_SIZE && page < 10) {
-                        // ...continue searching on the next page
-                        return searchAnimeRecursive(query, page + 1, accumulatedResults);
-                    }
+                .switchIfEmpty(Mono.error(new AnimeViolationException(AnimeViolationType.INVALID_KITSU_RESPONSE_FORMAT)));
+    }
 
-                    // return error if no results found after searching
-                    if (accumulatedResults.isEmpty()) {
-                        return Mono.error(new AnimeViolationException(AnimeViolationType.ANIME_NOT_FOUND));
-                    }
+    // title suggestions for autocomplete, answered by the local catalogue only and empty until it is synced
+    public Mono<List<AnimeSimpleResponse>> autocomplete(String query, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            return Mono.error(new AnimeViolationException(AnimeViolationType.SEARCH_QUERY_EMPTY));
+        }
+        if (limit <= 0 || limit > 20) {
+            return Mono.error(new AnimeViolationException(AnimeViolationType.INVALID_LIMIT));
+        }
 
-                    // otherwise return all results we've collected
-                    return Mono.just(accumulatedResults);
-                });
+        return catalogMirrorService.kitsuSearch(query, limit)
+                .defaultIfEmpty(List.of());
     }
 
-    @Cacheable(
-            key = "{'fullSearch', #partialTitle, 'limit', #limit}",
-            unless = "#result == null || #result.isEmpty()"
-    )
     // finds anime by partial title match (like "nar" for "naruto")
     public Mono<List<AnimeFullInfoResponse>> getAnimeFullInfoByTitle(String partialTitle, int limit) {
         // validate search parameters first
@@ -148,6 +223,14 @@ public class KitsuService {
             return Mono.error(new AnimeViolationException(AnimeViolationType.INVALID_LIMIT));
         }
 
+        return reactiveCache.get(CACHE_NAME, List.of("fullSearch", partialTitle, "limit", limit), List.class,
+                () -> catalogMirrorService.kitsuFullInfo(partialTitle, limit)
+                        .switchIfEmpty(Mono.defer(() -> fetchFullInfo(partialTitle, limit))),
+                results -> !results.isEmpty());
+    }
+
+    // title search with full details straight from kitsu
+    private Mono<List<AnimeFullInfoResponse>> fetchFullInfo(String partialTitle, int limit) {
         // building the search request
         return kitsuWebClient.get()
                 .uri(uriBuilder -> uriBuilder
@@ -174,9 +257,7 @@ public class KitsuService {
                     }
 
                     // convert each match to our full info format
-                    return Mono.just(matchingAnime.stream()
-                            .map(anime -> animeMapper.toAnimeFullInfoResponse(anime, response.getIncluded()))
-                            .collect(Collectors.toList()));
+                    return Mono.just(animeMapper.toAnimeFullInfoResponses(matchingAnime, response.getIncluded()));
                 });
     }
 
@@ -212,19 +293,11 @@ public class KitsuService {
     }
 
     @CacheEvict(
-            value = "animeCache",
+            value = CACHE_NAME,
             allEntries = true,
             beforeInvocation = true
     )
     public void evictAllCache() {
         log.info("Evicting all animeCache entries");
     }
-
-    @CacheEvict(
-            value = "animeCache",
-            key = "{'page', #page, 'size', #size}"
-    )
-    public void evictPaginatedCache(int page, int size) {
-        log.info("Evicting cache for page {} size {}", page, size);
-    }
 }
\ No newline at end of file
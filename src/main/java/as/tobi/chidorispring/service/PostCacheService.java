@@ -0,0 +1,105 @@
+package as.tobi.chidorispring.service;
+
+import as.tobi.chidorispring.cache.TwoLevelCache;
+import as.tobi.chidorispring.dto.characterPost.CharacterPostDTO;
+import as.tobi.chidorispring.utils.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Viewer-independent post caches.
+// "post" holds one CharacterPostDTO body per post id, shared by every page and every viewer;
+// "posts" holds only the ordered post ids of a feed page, keyed by the query.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostCacheService {
+    public static final String POST_CACHE = "post";
+    public static final String POSTS_CACHE = "posts";
+
+    private final CacheManager cacheManager;
+
+    public CharacterPostDTO getPost(Long postId, Supplier<CharacterPostDTO> loader) {
+        Cache cache = cache(POST_CACHE);
+        CharacterPostDTO cached = cache.get(postId, CharacterPostDTO.class);
+        if (cached != null) {
+            return cached;
+        }
+
+        CharacterPostDTO post = loader.get();
+        cache.put(postId, post);
+        return post;
+    }
+
+    // returns the bodies for the given ids in id order, loading all misses with a single loader call
+    public List<CharacterPostDTO> getPosts(List<Long> postIds, Function<List<Long>, List<CharacterPostDTO>> loader) {
+        Cache cache = cache(POST_CACHE);
+        // a two-level cache answers all L1 misses with a single MGET
+        List<Cache.ValueWrapper> cachedPosts = cache instanceof TwoLevelCache twoLevelCache
+                ? twoLevelCache.getAll(postIds)
+                : postIds.stream().map(cache::get).toList();
+        Map<Long, CharacterPostDTO> postsById = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (int i = 0; i < postIds.size(); i++) {
+            Cache.ValueWrapper cached = cachedPosts.get(i);
+            if (cached != null && cached.get() instanceof CharacterPostDTO post) {
+                postsById.put(postIds.get(i), post);
+            } else {
+                missingIds.add(postIds.get(i));
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            log.debug("Loading {} of {} post bodies missing from cache", missingIds.size(), postIds.size());
+            for (CharacterPostDTO post : loader.apply(missingIds)) {
+                cache.put(post.getId(), post);
+                postsById.put(post.getId(), post);
+            }
+        }
+
+        return postIds.stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Long> getPageIds(String pageKey, Supplier<List<Long>> loader) {
+        Cache cache = cache(POSTS_CACHE);
+        List<Long> cached = cache.get(pageKey, List.class);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<Long> postIds = loader.get();
+        if (!postIds.isEmpty()) {
+            cache.put(pageKey, postIds);
+        }
+        return postIds;
+    }
+
+    // a post's body changed (like, comment, edit): page id lists are unaffected
+    public void evictPost(Long postId) {
+        TransactionCallbacks.afterCommit(() -> cache(POST_CACHE).evict(postId));
+    }
+
+    // page composition changed (new or deleted post): every cached id list may be shifted
+    public void evictAllPages() {
+        TransactionCallbacks.afterCommit(() -> cache(POSTS_CACHE).clear());
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+}
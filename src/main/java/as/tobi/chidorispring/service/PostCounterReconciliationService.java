@@ -0,0 +1,49 @@
+package as.tobi.chidorispring.service;
+
+import as.tobi.chidorispring.repository.CharacterPostRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostCounterReconciliationService {
+    private final CharacterPostRepository postRepository;
+
+    // the counter columns start at 0 for existing posts, so they are filled before the first nightly run
+    @Value("${chidori.posts.counters.reconcile-on-startup:true}")
+    private boolean reconcileOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void reconcileOnStartup() {
+        if (reconcileOnStartup) {
+            reconcile();
+        }
+    }
+
+    // recounts like/comment counters from the source tables and fixes any drift
+    @Scheduled(cron = "${chidori.posts.counters.reconcile-cron:0 0 4 * * *}")
+    @Transactional
+    public void reconcileCounters() {
+        reconcile();
+    }
+
+    private void reconcile() {
+        log.debug("Reconciling post like/comment counters");
+        int likeFixes = postRepository.reconcileLikeCounts();
+        int commentFixes = postRepository.reconcileCommentCounts();
+
+        if (likeFixes > 0 || commentFixes > 0) {
+            log.warn("Repaired counter drift: {} like counters, {} comment counters", likeFixes, commentFixes);
+        } else {
+            log.info("Post counters are consistent");
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package as.tobi.chidorispring.service;
+
+import as.tobi.chidorispring.repository.CharacterPostRepository;
+import as.tobi.chidorispring.utils.IntFloatMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// In-memory content vectors of all posts for the recommender. A post is a sparse vector over its
+// genres, anime and character, each weighted by how rare it is (idf) and normalized to unit length.
+// An inverted index lists the posts having each feature, so scoring a user's profile only visits
+// posts sharing a feature with it. The index is rebuilt whenever posts were added, edited or deleted.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostFeatureIndex {
+    // the same anime or character says more than a shared genre
+    private static final float GENRE_WEIGHT = 1.0f;
+    private static final float ANIME_WEIGHT = 2.0f;
+    private static final float CHARACTER_WEIGHT = 2.0f;
+
+    private static final Comparator<ScoredPost> BEST_FIRST = Comparator.comparingDouble(ScoredPost::score).reversed()
+            .thenComparing(Comparator.comparingLong(ScoredPost::postId).reversed());
+
+    private final CharacterPostRepository postRepository;
+
+    private volatile Snapshot snapshot;
+    private IndexVersion indexedVersion;
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    // posts most similar to the weighted sum of the given posts, best first, the given posts themselves left out
+    public List<ScoredPost> recommend(Map<Long, Float> signals, int limit) {
+        Snapshot index = snapshot;
+        if (index == null || limit <= 0) {
+            return List.of();
+        }
+
+        IntFloatMap profile = new IntFloatMap(64);
+        BitSet seen = new BitSet(index.postIds.length);
+        signals.forEach((postId, weight) -> {
+            int post = index.position(postId);
+            if (post < 0) {
+                return;
+            }
+            seen.set(post);
+            for (int i = 0; i < index.features[post].length; i++) {
+                profile.add(index.features[post][i], index.weights[post][i] * weight);
+            }
+        });
+        if (profile.size() == 0) {
+            return List.of();
+        }
+
+        float[] squares = {0f};
+        profile.forEach((feature, weight) -> squares[0] += weight * weight);
+        float norm = (float) Math.sqrt(squares[0]);
+
+        // dot products through the inverted index, post vectors already have unit length
+        IntFloatMap scores = new IntFloatMap(256);
+        profile.forEach((feature, weight) -> {
+            int[] posts = index.postings[feature];
+            float[] postWeights = index.postingWeights[feature];
+            for (int i = 0; i < posts.length; i++) {
+                scores.add(posts[i], weight * postWeights[i]);
+            }
+        });
+
+        PriorityQueue<ScoredPost> top = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+        scores.forEach((post, dot) -> {
+            if (seen.get(post)) {
+                return;
+            }
+            top.add(new ScoredPost(index.postIds[post], dot / norm));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+        List<ScoredPost> ranked = new ArrayList<>(top);
+        ranked.sort(BEST_FIRST);
+        return ranked;
+    }
+
+    // how many of the given features (see genreFeature and the others) the post has
+    public int countMatches(long postId, Collection<String> featureKeys) {
+        Snapshot index = snapshot;
+        int post = index != null ? index.position(postId) : -1;
+        if (post < 0) {
+            return 0;
+        }
+        int matches = 0;
+        for (String key : featureKeys) {
+            Integer feature = index.featureIds.get(key);
+            if (feature != null && Arrays.stream(index.features[post]).anyMatch(f -> f == feature)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Scheduled(initialDelayString = "${chidori.recommendations.index.initial-delay:0s}",
+            fixedDelayString = "${chidori.recommendations.index.refresh-interval:1m}")
+    public synchronized void refresh() {
+        try {
+            IndexVersion version = new IndexVersion(postRepository.count(), postRepository.findLatestUpdatedAt());
+            if (version.equals(indexedVersion)) {
+                return;
+            }
+
+            long started = System.nanoTime();
+            Snapshot built = build(postRepository.findAllFeatureRows(), postRepository.findAllGenreRows());
+            snapshot = built;
+            indexedVersion = version;
+            log.info("Indexed {} posts with {} features in {} ms", built.postIds.length, built.postings.length,
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (DataAccessException e) {
+            // recommendations keep using the previous index
+            log.warn("Failed to rebuild the post feature index: {}", e.getMessage());
+        }
+    }
+
+    static String genreFeature(String genre) {
+        return feature("g:", genre);
+    }
+
+    static String animeFeature(String anime) {
+        return feature("a:", anime);
+    }
+
+    // by name alone, the LLM suggests characters without their anime
+    static String characterFeature(String characterName) {
+        return feature("c:", characterName);
+    }
+
+    private static String feature(String prefix, String value) {
+        String normalized = AnimeTitleIndex.normalize(value);
+        return normalized.isEmpty() ? null : prefix + normalized;
+    }
+
+    private static Snapshot build(List<CharacterPostRepository.FeatureRow> rows,
+                                  List<CharacterPostRepository.GenreRow> genreRows) {
+        List<CharacterPostRepository.FeatureRow> posts = new ArrayList<>(rows);
+        posts.sort(Comparator.comparing(CharacterPostRepository.FeatureRow::getId));
+        Map<Long, List<String>> genres = new HashMap<>();
+        for (CharacterPostRepository.GenreRow row : genreRows) {
+            genres.computeIfAbsent(row.getPostId(), id -> new ArrayList<>()).add(row.getGenre());
+        }
+
+        Map<String, Integer> featureIds = new HashMap<>();
+        long[] postIds = new long[posts.size()];
+        int[][] features = new int[posts.size()][];
+        float[][] weights = new float[posts.size()][];
+        for (int post = 0; post < posts.size(); post++) {
+            CharacterPostRepository.FeatureRow row = posts.get(post);
+            postIds[post] = row.getId();
+            IntFloatMap vector = new IntFloatMap(8);
+            for (String genre : genres.getOrDefault(row.getId(), List.of())) {
+                addFeature(vector, featureIds, genreFeature(genre), GENRE_WEIGHT);
+            }
+            addFeature(vector, featureIds, animeFeature(row.getAnime()), ANIME_WEIGHT);
+            addFeature(vector, featureIds, characterFeature(row.getCharacterName()), CHARACTER_WEIGHT);
+
+            int[] postFeatures = new int[vector.size()];
+            float[] postWeights = new float[vector.size()];
+            int[] next = {0};
+            vector.forEach((feature, weight) -> {
+                postFeatures[next[0]] = feature;
+                postWeights[next[0]++] = weight;
+            });
+            features[post] = postFeatures;
+            weights[post] = postWeights;
+        }
+
+        int[] documentFrequency = new int[featureIds.size()];
+        for (int[] postFeatures : features) {
+            for (int feature : postFeatures) {
+                documentFrequency[feature]++;
+            }
+        }
+
+        // idf weighting and unit length, then the inverted index over the final weights
+        int[][] postings = new int[featureIds.size()][];
+        float[][] postingWeights = new float[featureIds.size()][];
+        for (int feature = 0; feature < postings.length; feature++) {
+            postings[feature] = new int[documentFrequency[feature]];
+            postingWeights[feature] = new float[documentFrequency[feature]];
+        }
+        int[] filled = new int[featureIds.size()];
+        for (int post = 0; post < features.length; post++) {
+            float squares = 0f;
+            for (int i = 0; i < features[post].length; i++) {
+                float idf = (float) Math.log(1 + (double) postIds.length / documentFrequency[features[post][i]]);
+                weights[post][i] *= idf;
+                squares += weights[post][i] * weights[post][i];
+            }
+            // a post without any usable feature keeps its zero vector
+            float norm = squares > 0 ? (float) Math.sqrt(squares) : 1f;
+            for (int i = 0; i < features[post].length; i++) {
+                int feature = features[post][i];
+                weights[post][i] /= norm;
+                postings[feature][filled[feature]] = post;
+                postingWeights[feature][filled[feature]++] = weights[post][i];
+            }
+        }
+        return new Snapshot(postIds, features, weights, postings, postingWeights, featureIds);
+    }
+
+    private static void addFeature(IntFloatMap vector, Map<String, Integer> featureIds, String key, float weight) {
+        if (key != null) {
+            vector.add(featureIds.computeIfAbsent(key, k -> featureIds.size()), weight);
+        }
+    }
+
+    public record ScoredPost(long postId, float score) {
+    }
+
+    private record IndexVersion(long count, LocalDateTime latestUpdate) {
+    }
+
+    // post arrays are indexed by position in ascending id order, feature arrays by feature id
+    private record Snapshot(long[] postIds, int[][] features, float[][] weights,
+                            int[][] postings, float[][] postingWeights, Map<String, Integer> featureIds) {
+        int position(long postId) {
+            int position = Arrays.binarySearch(postIds, postId);
+            return position >= 0 ? position : -1;
+        }
+    }
+}
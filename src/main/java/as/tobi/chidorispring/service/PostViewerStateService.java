@@ -0,0 +1,142 @@
+package as.tobi.chidorispring.service;
+
+import as.tobi.chidorispring.dto.characterPost.PostViewerState;
+import as.tobi.chidorispring.repository.LikeRepository;
+import as.tobi.chidorispring.repository.UserFavoritePostRepository;
+import as.tobi.chidorispring.utils.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Per-viewer like/favorite state. Each user has a small Redis hash of post id -> flags, filled page by page
+// from the database, so cached post bodies can be personalised without loading the user's whole history.
+// A per-user version is bumped on every like/favorite change; a refill only lands if the version it read
+// before querying the database is still current, so a concurrent change can't be overwritten by stale flags.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostViewerStateService {
+    private static final String STATE_KEY_PREFIX = "viewer:state:";
+    private static final String VERSION_KEY_PREFIX = "viewer:version:";
+    private static final int LIKED = 1;
+    private static final int FAVORITED = 2;
+
+    // KEYS: state hash, version; ARGV: version read before the database query, ttl seconds, field/flags pairs
+    private static final RedisScript<Long> REFILL_SCRIPT = RedisScript.of(
+            "if (redis.call('get', KEYS[2]) or '') ~= ARGV[1] then return 0 end "
+                    + "local fresh = redis.call('exists', KEYS[1]) == 0 "
+                    + "redis.call('hset', KEYS[1], unpack(ARGV, 3)) "
+                    + "if fresh then redis.call('expire', KEYS[1], ARGV[2]) end "
+                    + "return 1",
+            Long.class);
+
+    private final LikeRepository likeRepository;
+    private final UserFavoritePostRepository favoritePostRepository;
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${chidori.posts.viewer-state.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    // resolves isLiked/isFavorited for a whole page, only the page's posts missing from the hash hit the database
+    public PostViewerState resolve(Collection<Long> postIds, Long userId) {
+        if (userId == null || postIds == null || postIds.isEmpty()) {
+            return PostViewerState.empty();
+        }
+
+        List<Long> ids = postIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (ids.isEmpty()) {
+            return PostViewerState.empty();
+        }
+
+        log.debug("Resolving viewer state for user ID: {} over {} posts", userId, ids.size());
+        try {
+            String stateKey = STATE_KEY_PREFIX + userId;
+            String versionKey = VERSION_KEY_PREFIX + userId;
+            String version = Objects.requireNonNullElse(redisTemplate.opsForValue().get(versionKey), "");
+            List<Object> fields = ids.stream().map(String::valueOf).collect(Collectors.toList());
+            List<Object> cached = redisTemplate.opsForHash().multiGet(stateKey, fields);
+
+            Set<Long> liked = new HashSet<>();
+            Set<Long> favorited = new HashSet<>();
+            List<Long> missingIds = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++) {
+                Object flags = cached != null ? cached.get(i) : null;
+                if (flags == null) {
+                    missingIds.add(ids.get(i));
+                } else {
+                    addFlags(ids.get(i), Integer.parseInt(flags.toString()), liked, favorited);
+                }
+            }
+            if (missingIds.isEmpty()) {
+                return new PostViewerState(liked, favorited);
+            }
+
+            PostViewerState loaded = load(userId, missingIds);
+            List<String> args = new ArrayList<>(List.of(version, String.valueOf(ttlMinutes * 60)));
+            for (Long postId : missingIds) {
+                int flags = (loaded.isLiked(postId) ? LIKED : 0)
+                        | (loaded.isFavorited(postId) ? FAVORITED : 0);
+                addFlags(postId, flags, liked, favorited);
+                args.add(postId.toString());
+                args.add(String.valueOf(flags));
+            }
+            redisTemplate.execute(REFILL_SCRIPT, List.of(stateKey, versionKey), args.toArray());
+            return new PostViewerState(liked, favorited);
+        } catch (DataAccessException e) {
+            // redis is unavailable, query just this page's flags
+            log.warn("Viewer state cache failed for user ID: {}, falling back to database: {}", userId, e.getMessage());
+            return load(userId, ids);
+        }
+    }
+
+    // the user liked/unliked or (un)favorited a post: refills already in flight are discarded
+    // and the flags are reloaded on the next read
+    public void evict(Long userId) {
+        TransactionCallbacks.afterCommit(() -> {
+            try {
+                String versionKey = VERSION_KEY_PREFIX + userId;
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection redis = (StringRedisConnection) connection;
+                    redis.incr(versionKey);
+                    redis.expire(versionKey, ttlMinutes * 60);
+                    redis.del(STATE_KEY_PREFIX + userId);
+                    return null;
+                });
+            } catch (DataAccessException e) {
+                log.warn("Failed to evict viewer state for user ID: {}: {}", userId, e.getMessage());
+            }
+        });
+    }
+
+    private PostViewerState load(Long userId, List<Long> postIds) {
+        return new PostViewerState(
+                new HashSet<>(likeRepository.findLikedPostIds(userId, postIds)),
+                new HashSet<>(favoritePostRepository.findFavoritedPostIds(userId, postIds)));
+    }
+
+    private static void addFlags(Long postId, int flags, Set<Long> liked, Set<Long> favorited) {
+        if ((flags & LIKED) != 0) {
+            liked.add(postId);
+        }
+        if ((flags & FAVORITED) != 0) {
+            favorited.add(postId);
+        }
+    }
+}
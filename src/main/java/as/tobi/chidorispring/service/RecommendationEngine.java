@@ -0,0 +1,256 @@
+package as.tobi.chidorispring.service;
+
+import as.tobi.chidorispring.dto.RecommendationJobDTO;
+import as.tobi.chidorispring.entity.CharacterPost;
+import as.tobi.chidorispring.entity.UserRecommendations;
+import as.tobi.chidorispring.enums.RecommendationStatus;
+import as.tobi.chidorispring.exceptions.InternalViolationException;
+import as.tobi.chidorispring.exceptions.InternalViolationType;
+import as.tobi.chidorispring.repository.CharacterPostRepository;
+import as.tobi.chidorispring.repository.UserRecommendationsRepository;
+import as.tobi.chidorispring.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Recommendations are computed in the background and stored per user, the endpoint only reads them.
+// A job is queued on request, when likes and favorites are added or removed and by a periodic sweep that
+// also recomputes outdated results and picks up jobs lost with their node. A small worker pool per node
+// runs the jobs, a job is claimed in the database first so each one runs once across all nodes. The job
+// state only changes through conditional updates, or under a row lock when a run stores its outcome,
+// so concurrent requests and a finishing run never overwrite each other.
+@Slf4j
+@Service
+public class RecommendationEngine {
+    private final UserRecommendationsRepository recommendationsRepository;
+    private final RecommendationService recommendationService;
+    private final CharacterPostRepository postRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transaction;
+    private ThreadPoolExecutor workers;
+
+    @Value("${chidori.recommendations.workers:2}")
+    private int workerCount;
+
+    @Value("${chidori.recommendations.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${chidori.recommendations.max-results:50}")
+    private int maxResults;
+
+    // requests within it of the last run wait for the sweep, several become one run
+    @Value("${chidori.recommendations.min-interval:1m}")
+    private Duration minInterval;
+
+    @Value("${chidori.recommendations.max-age:6h}")
+    private Duration maxAge;
+
+    @Value("${chidori.recommendations.retry-after:10m}")
+    private Duration retryAfter;
+
+    @Value("${chidori.recommendations.job-timeout:5m}")
+    private Duration jobTimeout;
+
+    @Value("${chidori.recommendations.sweep.batch-size:50}")
+    private int sweepBatchSize;
+
+    public RecommendationEngine(UserRecommendationsRepository recommendationsRepository,
+                                RecommendationService recommendationService,
+                                CharacterPostRepository postRepository,
+                                UserRepository userRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.recommendationsRepository = recommendationsRepository;
+        this.recommendationService = recommendationService;
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        // also called after other transactions commit, which must not be joined
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    void startWorkers() {
+        // a full queue rejects the job, it stays pending for the sweep
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("recommendations-"));
+    }
+
+    @PreDestroy
+    void stopWorkers() {
+        // running jobs are picked up again by another node after job-timeout
+        workers.shutdownNow();
+    }
+
+    // the stored recommendations, empty until the first run finished, which is queued then
+    public Optional<List<CharacterPost>> getRecommendations(Long userId) {
+        Optional<UserRecommendations> stored = recommendationsRepository.findById(userId)
+                .filter(recommendations -> recommendations.getComputedAt() != null);
+        if (stored.isEmpty()) {
+            requireUser(userId);
+            queue(userId);
+            return Optional.empty();
+        }
+
+        List<Long> postIds = stored.get().getPostIds();
+        if (postIds.isEmpty()) {
+            return Optional.of(List.of());
+        }
+        Map<Long, CharacterPost> posts = postRepository.findAllWithAuthorAndGenresByIdIn(postIds).stream()
+                .collect(Collectors.toMap(CharacterPost::getId, Function.identity()));
+        // in stored order, deleted posts are skipped
+        return Optional.of(postIds.stream()
+                .map(posts::get)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    public Optional<RecommendationJobDTO> getStatus(Long userId) {
+        return recommendationsRepository.findById(userId).map(this::toJob);
+    }
+
+    // explicit refresh, like an interaction it waits for the sweep if the last run started within min-interval
+    public RecommendationJobDTO requestRefresh(Long userId) {
+        requireUser(userId);
+        return toJob(queue(userId));
+    }
+
+    // a like or favorite changed what the user is interested in
+    public void onInteraction(Long userId) {
+        try {
+            queue(userId);
+        } catch (RuntimeException e) {
+            // the interaction itself already committed, the sweep recomputes later
+            log.warn("Could not queue recommendations of user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${chidori.recommendations.sweep.initial-delay:1m}",
+            fixedDelayString = "${chidori.recommendations.sweep.interval:1m}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        int abandoned = recommendationsRepository.requeueAbandoned(now.minus(jobTimeout), now);
+        int outdated = recommendationsRepository.requeueOutdated(now.minus(maxAge), now.minus(retryAfter), now);
+        List<Long> due = recommendationsRepository.findPendingUserIds(now.minus(minInterval), Limit.of(sweepBatchSize));
+        due.forEach(this::submit);
+        if (abandoned + outdated + due.size() > 0) {
+            log.info("Recommendation sweep: {} abandoned and {} outdated jobs requeued, {} submitted",
+                    abandoned, outdated, due.size());
+        }
+    }
+
+    private UserRecommendations queue(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        Queued queued = transaction.execute(status -> {
+            if (recommendationsRepository.insertIfAbsent(userId, now) == 1) {
+                return new Queued(recommendationsRepository.findById(userId).orElseThrow(), true);
+            }
+            boolean requeued = recommendationsRepository.requeue(userId, now) == 1;
+            if (!requeued) {
+                // a pending job stays as it is, a running one sees the newer request when it finishes
+                recommendationsRepository.requestWhileRunning(userId, now);
+            }
+            UserRecommendations recommendations = recommendationsRepository.findById(userId).orElseThrow();
+            boolean submit = requeued && (recommendations.getStartedAt() == null
+                    || recommendations.getStartedAt().isBefore(now.minus(minInterval)));
+            return new Queued(recommendations, submit);
+        });
+        if (queued.submit()) {
+            submit(userId);
+        }
+        return queued.recommendations();
+    }
+
+    private void submit(Long userId) {
+        try {
+            workers.execute(() -> compute(userId));
+        } catch (RejectedExecutionException e) {
+            log.debug("Recommendation queue is full, user {} waits for the sweep", userId);
+        }
+    }
+
+    void compute(Long userId) {
+        // the precision postgres keeps, finish compares it with the stored value
+        LocalDateTime startedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        // another worker took it, or it is no longer pending
+        if (recommendationsRepository.claim(userId, startedAt) == 0) {
+            return;
+        }
+
+        try {
+            List<Long> postIds = recommendationService.getRecommendedPostIds(userId, maxResults);
+            finish(userId, startedAt, recommendations -> {
+                recommendations.setPostIds(new ArrayList<>(postIds));
+                recommendations.setComputedAt(LocalDateTime.now());
+                recommendations.setError(null);
+                return RecommendationStatus.READY;
+            });
+            log.debug("Stored {} recommendations for user {}", postIds.size(), userId);
+        } catch (RuntimeException e) {
+            log.warn("Recommendations for user {} failed: {}", userId, e.toString());
+            finish(userId, startedAt, recommendations -> {
+                // only the kind of failure is exposed, the message stays in the log
+                recommendations.setError(e.getClass().getSimpleName());
+                return RecommendationStatus.FAILED;
+            });
+        }
+    }
+
+    // stores the outcome, a request that came in while running leaves the job pending for the sweep
+    private void finish(Long userId, LocalDateTime startedAt, Function<UserRecommendations, RecommendationStatus> outcome) {
+        transaction.executeWithoutResult(status -> recommendationsRepository.findByIdForUpdate(userId)
+                // a run that outlived job-timeout was requeued, the outcome is the newer run's to store
+                .filter(recommendations -> recommendations.getStatus() == RecommendationStatus.RUNNING
+                        && startedAt.equals(recommendations.getStartedAt()))
+                .ifPresent(recommendations -> {
+                    RecommendationStatus result = outcome.apply(recommendations);
+                    boolean requestedMeanwhile = recommendations.getRequestedAt() != null
+                            && recommendations.getRequestedAt().isAfter(startedAt);
+                    recommendations.setStatus(requestedMeanwhile ? RecommendationStatus.PENDING : result);
+                    recommendationsRepository.save(recommendations);
+                }));
+    }
+
+    private void requireUser(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new InternalViolationException(InternalViolationType.USER_NOT_FOUND);
+        }
+    }
+
+    private RecommendationJobDTO toJob(UserRecommendations recommendations) {
+        return RecommendationJobDTO.builder()
+                .userId(recommendations.getUserId())
+                .status(recommendations.getStatus())
+                .recommendationCount(recommendations.getPostIds().size())
+                .requestedAt(recommendations.getRequestedAt())
+                .startedAt(recommendations.getStartedAt())
+                .computedAt(recommendations.getComputedAt())
+                .error(recommendations.getError())
+                .build();
+    }
+
+    private record Queued(UserRecommendations recommendations, boolean submit) {
+    }
+}
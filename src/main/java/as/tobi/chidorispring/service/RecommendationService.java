@@ -1,114 +1,136 @@
 package as.tobi.chidorispring.service;
 
-import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import as.tobi.chidorispring.dto.RecommendationRequest;
 import as.tobi.chidorispring.dto.RecommendationResponse;
 import as.tobi.chidorispring.entity.CharacterPost;
 import as.tobi.chidorispring.repository.CharacterPostRepository;
+import as.tobi.chidorispring.repository.LikeRepository;
+import as.tobi.chidorispring.repository.UserFavoritePostRepository;
+import as.tobi.chidorispring.service.PostFeatureIndex.ScoredPost;
 import lombok.RequiredArgsConstructor;
 
+// Content-based recommendations: posts with genres, anime and characters like the ones the user saved,
+// liked and wrote, ranked locally by cosine similarity (see PostFeatureIndex). The LLM is optional and
+// only re-orders the best local candidates by the anime, genres and characters it suggests.
 @Service
 @RequiredArgsConstructor
 public class RecommendationService {
     private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
-    
+
+    // a saved post says more about the user's taste than a like
+    private static final float FAVORITE_WEIGHT = 2.0f;
+    private static final float LIKE_WEIGHT = 1.0f;
+    private static final float OWN_POST_WEIGHT = 1.0f;
+
+    // posts the LLM is shown to describe the user's taste
+    private static final int LLM_PROFILE_POSTS = 10;
+
     private final CharacterPostRepository characterPostRepository;
+    private final LikeRepository likeRepository;
+    private final UserFavoritePostRepository favoritePostRepository;
+    private final PostFeatureIndex postFeatureIndex;
     private final ChatGptService chatGptService;
 
-    public List<CharacterPost> getRecommendationsForUser(Long userId) {
-        log.info("Getting recommendations for user with ID: {}", userId);
-        
-        // get the last 10 selected user posts
-        List<CharacterPost> favoritePosts = characterPostRepository.findTop10ByUserIdOrderByCreatedAtDesc(userId);
-        log.info("Found {} favorite posts for user", favoritePosts.size());
-        
-        // Принудительная загрузка жанров
-        for (CharacterPost post : favoritePosts) {
-            List<String> directGenres = characterPostRepository.findGenresByCharacterPostId(post.getId());
-            log.error("Diagnostic - Post ID: {}, Direct Genre Query Result: {}", 
-                post.getId(), directGenres);
-            
-            // forcefully install genres if they are not loaded
-            if (post.getAnimeGenre() == null || post.getAnimeGenre().isEmpty()) {
-                post.setAnimeGenre(directGenres);
-            }
-            
-            log.error("Diagnostic - Post ID: {}, Loaded Genres: {}", 
-                post.getId(), 
-                post.getAnimeGenre() != null ? post.getAnimeGenre() : "NULL");
+    @Value("${chidori.recommendations.llm-rerank.enabled:false}")
+    private boolean llmRerank;
+
+    @Value("${chidori.recommendations.llm-rerank.candidates:30}")
+    private int rerankCandidates;
+
+    // score multiplier per suggested anime, genre or character a candidate has
+    @Value("${chidori.recommendations.llm-rerank.boost:0.25}")
+    private double rerankBoost;
+
+    // ids of the recommended posts, best first
+    public List<Long> getRecommendedPostIds(Long userId, int limit) {
+        Map<Long, Float> signals = new LinkedHashMap<>();
+        favoritePostRepository.findAllFavoritedPostIds(userId).forEach(id -> signals.merge(id, FAVORITE_WEIGHT, Float::sum));
+        likeRepository.findAllLikedPostIds(userId).forEach(id -> signals.merge(id, LIKE_WEIGHT, Float::sum));
+        characterPostRepository.findPostIdsByUserId(userId).forEach(id -> signals.merge(id, OWN_POST_WEIGHT, Float::sum));
+
+        if (signals.isEmpty()) {
+            // nothing to compare with yet, the user has no posts of their own to exclude either
+            log.debug("No interactions of user {}, recommending popular posts", userId);
+            return characterPostRepository.findTopPopularPosts(PageRequest.of(0, limit)).stream()
+                .map(CharacterPost::getId)
+                .toList();
         }
 
-        // If posts are less than 10, add empty
-        while (favoritePosts.size() < 10) {
-            CharacterPost emptyPost = CharacterPost.builder()
-                .characterName("Unknown")
-                .anime("Unknown")
-                .animeGenre(List.of("Unknown"))
-                .build();
-            favoritePosts.add(emptyPost);
+        if (!postFeatureIndex.isReady()) {
+            postFeatureIndex.refresh();
+        }
+        List<ScoredPost> ranked = postFeatureIndex.recommend(signals, llmRerank ? Math.max(limit, rerankCandidates) : limit);
+        if (llmRerank && !ranked.isEmpty()) {
+            ranked = rerank(ranked, signals.keySet().stream().limit(LLM_PROFILE_POSTS).toList());
         }
-        log.info("Total posts after filling (including empty ones): {}", favoritePosts.size());
+        if (ranked.isEmpty()) {
+            // the user's posts share no feature with any other post, popular ones beat an empty list
+            log.debug("No similar posts for user {}, recommending popular posts", userId);
+            return characterPostRepository.findTopPopularPostIdsExcluding(signals.keySet(), PageRequest.of(0, limit));
+        }
+        log.debug("Ranked {} posts for user {} from {} interactions", ranked.size(), userId, signals.size());
+        return ranked.stream()
+            .limit(limit)
+            .map(ScoredPost::postId)
+            .toList();
+    }
 
-        // convert to the ChatGPT format
+    // candidates having the anime, genres and characters the LLM suggests move up
+    private List<ScoredPost> rerank(List<ScoredPost> ranked, List<Long> profilePostIds) {
+        Map<Long, CharacterPost> posts = characterPostRepository.findAllWithAuthorAndGenresByIdIn(profilePostIds).stream()
+            .collect(Collectors.toMap(CharacterPost::getId, Function.identity()));
         RecommendationRequest request = new RecommendationRequest();
-        request.setFavoritePosts(favoritePosts.stream()
+        request.setFavoritePosts(profilePostIds.stream()
+            .map(posts::get)
+            .filter(Objects::nonNull)
             .map(post -> {
                 RecommendationRequest.PostData postData = new RecommendationRequest.PostData();
                 postData.setCharacterName(post.getCharacterName());
                 postData.setAnime(post.getAnime());
-                // use a direct request for genres if they are not loaded
-                List<String> genres = post.getAnimeGenre() != null && !post.getAnimeGenre().isEmpty() 
-                    ? post.getAnimeGenre() 
-                    : characterPostRepository.findGenresByCharacterPostId(post.getId());
-                postData.setAnimeGenre(genres.isEmpty() ? List.of() : genres);
+                postData.setAnimeGenre(post.getAnimeGenre() != null ? post.getAnimeGenre() : List.of());
                 return postData;
             })
-            .collect(Collectors.toList()));
-        log.debug("Prepared request for ChatGPT: {}", request);
-
-        // get recommendations from ChatGPT
-        log.info("Requesting recommendations from ChatGPT");
-        RecommendationResponse recommendations = chatGptService.getRecommendations(request);
-        log.info("Received recommendations from ChatGPT: {}", recommendations);
-
-        // looking for posts on recommendations
-        List<CharacterPost> recommendedPosts = new ArrayList<>();
-        
-        if (recommendations.getRecommendedAnime() != null && !recommendations.getRecommendedAnime().isEmpty()) {
-            log.info("Searching posts by recommended anime: {}", recommendations.getRecommendedAnime());
-            List<CharacterPost> animeResults = characterPostRepository.findByAnimeIn(recommendations.getRecommendedAnime());
-            log.info("Found {} posts by anime", animeResults.size());
-            recommendedPosts.addAll(animeResults);
-        }
-        
-        if (recommendations.getRecommendedGenres() != null && !recommendations.getRecommendedGenres().isEmpty()) {
-            log.info("Searching posts by recommended genres: {}", recommendations.getRecommendedGenres());
-            List<CharacterPost> genreResults = characterPostRepository.findByAnimeGenreIn(recommendations.getRecommendedGenres());
-            log.info("Found {} posts by genres", genreResults.size());
-            recommendedPosts.addAll(genreResults);
-        }
-        
-        if (recommendations.getRecommendedCharacters() != null && !recommendations.getRecommendedCharacters().isEmpty()) {
-            log.info("Searching posts by recommended characters: {}", recommendations.getRecommendedCharacters());
-            List<CharacterPost> characterResults = characterPostRepository.findByCharacterNameIn(recommendations.getRecommendedCharacters());
-            log.info("Found {} posts by characters", characterResults.size());
-            recommendedPosts.addAll(characterResults);
+            .toList());
+
+        RecommendationResponse suggestions = chatGptService.getRecommendations(request);
+        Set<String> suggested = new HashSet<>();
+        addFeatures(suggested, suggestions.getRecommendedAnime(), PostFeatureIndex::animeFeature);
+        addFeatures(suggested, suggestions.getRecommendedGenres(), PostFeatureIndex::genreFeature);
+        addFeatures(suggested, suggestions.getRecommendedCharacters(), PostFeatureIndex::characterFeature);
+        if (suggested.isEmpty()) {
+            // the LLM failed or had nothing to add, the local order stands
+            return ranked;
         }
 
-        // remove duplicates and posts of the current user
-        List<CharacterPost> filteredPosts = recommendedPosts.stream()
-            .distinct()
-            .filter(post -> !post.getUser().getId().equals(userId))
-            .collect(Collectors.toList());
-            
-        log.info("Final recommendations count (after filtering): {}", filteredPosts.size());
-        return filteredPosts;
+        return ranked.stream()
+            .map(post -> new ScoredPost(post.postId(),
+                (float) (post.score() * (1 + rerankBoost * postFeatureIndex.countMatches(post.postId(), suggested)))))
+            .sorted((a, b) -> Float.compare(b.score(), a.score()))
+            .toList();
+    }
+
+    private static void addFeatures(Set<String> features, List<String> values, Function<String, String> feature) {
+        if (values == null) {
+            return;
+        }
+        values.stream()
+            .map(feature)
+            .filter(Objects::nonNull)
+            .forEach(features::add);
     }
-} 
\ No newline at end of file
+}
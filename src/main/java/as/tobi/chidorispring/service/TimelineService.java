@@ -0,0 +1,356 @@
+package as.tobi.chidorispring.service;
+
+import as.tobi.chidorispring.entity.CharacterPost;
+import as.tobi.chidorispring.repository.CharacterPostRepository;
+import as.tobi.chidorispring.repository.UserRelationshipRepository;
+import as.tobi.chidorispring.utils.PostCursor;
+import as.tobi.chidorispring.utils.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.DefaultStringTuple;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// Materialized home timelines: one Redis sorted set of post ids per follower, scored by creation time.
+// Posts are pushed to followers on write; authors with very large audiences are merged in on read instead.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TimelineService {
+    private static final String TIMELINE_KEY_PREFIX = "timeline:";
+    private static final String BUILT_KEY_PREFIX = "timeline:built:";
+    private static final String CELEBRITIES_KEY = "timeline:celebrities";
+    private static final String BACKFILLED_KEY = "timeline:backfilled";
+    private static final String REBUILD_KEY_PREFIX = "timeline:rebuild:";
+    // a rebuild that died before the swap leaves its key behind only this long
+    private static final Duration REBUILD_KEY_TTL = Duration.ofMinutes(5);
+    // covers posts created before the snapshot but committed after it
+    private static final Duration REBUILD_CARRY_OVER = Duration.ofMinutes(1);
+    // KEYS: rebuilt timeline, live timeline, built marker; ARGV: lowest score carried over, max length
+    private static final RedisScript<Long> SWAP_SCRIPT = RedisScript.of(
+            "local recent = redis.call('zrangebyscore', KEYS[2], ARGV[1], '+inf', 'WITHSCORES') "
+                    + "for i = 1, #recent, 2 do redis.call('zadd', KEYS[1], recent[i + 1], recent[i]) end "
+                    + "if redis.call('exists', KEYS[1]) == 1 then "
+                    + "redis.call('zremrangebyrank', KEYS[1], 0, -(tonumber(ARGV[2]) + 1)) "
+                    + "redis.call('persist', KEYS[1]) "
+                    + "redis.call('rename', KEYS[1], KEYS[2]) "
+                    + "else redis.call('del', KEYS[2]) end "
+                    + "redis.call('set', KEYS[3], '1') "
+                    + "return 1",
+            Long.class);
+    // seek position that sorts after every real post, used for the first page
+    private static final PostCursor NEWEST = new PostCursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    private final StringRedisTemplate redisTemplate;
+    private final CharacterPostRepository postRepository;
+    private final UserRelationshipRepository relationshipRepository;
+
+    @Value("${chidori.timeline.max-length:800}")
+    private int maxLength;
+
+    @Value("${chidori.timeline.celebrity-follower-threshold:10000}")
+    private long celebrityFollowerThreshold;
+
+    @Value("${chidori.timeline.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    // pushes a new post to every follower's timeline once the post is committed
+    public void onPostCreated(CharacterPost post) {
+        Long authorId = post.getUser().getId();
+        PostCursor position = new PostCursor(post.getCreatedAt(), post.getId());
+
+        afterCommit(() -> {
+            if (isCelebrity(authorId)) {
+                // too many followers to push to, readers pull this author's posts instead
+                log.debug("Author ID: {} is a celebrity, post ID: {} is merged on read", authorId, position.getId());
+                return;
+            }
+            int followers = fanOut(authorId, List.of(position));
+            log.debug("Post ID: {} fanned out to {} timelines", position.getId(), followers);
+        });
+    }
+
+    public void onPostDeleted(Long postId, Long authorId) {
+        afterCommit(() -> {
+            List<Long> followerIds = relationshipRepository.findFollowerIdsByFollowingId(authorId);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (Long followerId : followerIds) {
+                    redis.zRem(timelineKey(followerId), postId.toString());
+                }
+                return null;
+            });
+        });
+    }
+
+    public void onFollow(Long followerId, Long authorId) {
+        afterCommit(() -> {
+            updateCelebrity(authorId);
+            if (!isBuilt(followerId) || isCelebrity(authorId)) {
+                return;
+            }
+            String key = timelineKey(followerId);
+            List<PostCursor> authorPosts = postRepository.findFeedPositionsByUserIds(
+                    List.of(authorId), NEWEST.getCreatedAt(), NEWEST.getId(), Limit.of(maxLength));
+            addAll(key, authorPosts);
+            redisTemplate.opsForZSet().removeRange(key, 0, -(maxLength + 1L));
+        });
+    }
+
+    public void onUnfollow(Long followerId, Long authorId) {
+        afterCommit(() -> {
+            List<PostCursor> authorPosts = postRepository.findFeedPositionsByUserIds(
+                    List.of(authorId), NEWEST.getCreatedAt(), NEWEST.getId(), Limit.of(maxLength));
+            if (!authorPosts.isEmpty()) {
+                redisTemplate.opsForZSet().remove(timelineKey(followerId),
+                        authorPosts.stream().map(position -> position.getId().toString()).toArray());
+            }
+            updateCelebrity(authorId);
+        });
+    }
+
+    // returns up to limit post ids of the user's home timeline, newest first, strictly after the given cursor
+    public List<Long> readTimeline(Long userId, PostCursor before, int limit) {
+        PostCursor from = before != null ? before : NEWEST;
+        try {
+            if (!isBuilt(userId)) {
+                rebuildTimeline(userId);
+            }
+
+            List<PostCursor> positions = new ArrayList<>(readPushed(userId, from, limit));
+            positions.addAll(readCelebrityPosts(userId, from, limit));
+
+            return positions.stream()
+                    .sorted(Comparator.comparing(PostCursor::getCreatedAt).thenComparing(PostCursor::getId).reversed())
+                    .map(PostCursor::getId)
+                    .collect(Collectors.toCollection(LinkedHashSet::new))
+                    .stream()
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        } catch (DataAccessException e) {
+            // redis is unavailable, read the followed authors' posts straight from the database
+            log.warn("Timeline read failed for user ID: {}, falling back to database: {}", userId, e.getMessage());
+            return postRepository.findFollowedFeedPositions(userId, from.getCreatedAt(), from.getId(), Limit.of(limit))
+                    .stream()
+                    .map(PostCursor::getId)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // builds the timeline aside and swaps it in, readers never see it half built
+    public void rebuildTimeline(Long userId) {
+        String key = timelineKey(userId);
+        // posts fanned out from here on may be missing from the snapshot, they are carried over from the live timeline
+        long carryOverScore = (long) toScore(LocalDateTime.now().minus(REBUILD_CARRY_OVER));
+        List<PostCursor> positions = postRepository.findFollowedFeedPositions(
+                userId, NEWEST.getCreatedAt(), NEWEST.getId(), Limit.of(maxLength));
+
+        String buildKey = REBUILD_KEY_PREFIX + userId + ":" + UUID.randomUUID();
+        addAll(buildKey, positions);
+        redisTemplate.expire(buildKey, REBUILD_KEY_TTL);
+        redisTemplate.execute(SWAP_SCRIPT, List.of(buildKey, key, BUILT_KEY_PREFIX + userId),
+                String.valueOf(carryOverScore), String.valueOf(maxLength));
+        log.debug("Rebuilt timeline for user ID: {} with {} posts", userId, positions.size());
+    }
+
+    // one-off backfill of every follower's timeline from user_relationships
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        try {
+            syncCelebrities();
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(BACKFILLED_KEY))) {
+                log.debug("Timelines already backfilled, skipping");
+                return;
+            }
+            backfillAllTimelines();
+        } catch (DataAccessException e) {
+            log.warn("Timeline backfill skipped, timelines will be built on first read: {}", e.getMessage());
+        }
+    }
+
+    public void backfillAllTimelines() {
+        log.info("Backfilling home timelines");
+        int page = 0;
+        int rebuilt = 0;
+        List<Long> followerIds;
+        do {
+            followerIds = relationshipRepository.findDistinctFollowerIds(PageRequest.of(page++, BACKFILL_BATCH_SIZE));
+            for (Long followerId : followerIds) {
+                rebuildTimeline(followerId);
+                rebuilt++;
+            }
+        } while (followerIds.size() == BACKFILL_BATCH_SIZE);
+
+        redisTemplate.opsForValue().set(BACKFILLED_KEY, LocalDateTime.now().toString());
+        log.info("Backfilled {} home timelines", rebuilt);
+    }
+
+    // brings the celebrity set in line with the follower counts, e.g. after the threshold was changed
+    public void syncCelebrities() {
+        Set<String> celebrities = relationshipRepository.findFollowingIdsWithMoreFollowersThan(celebrityFollowerThreshold)
+                .stream()
+                .map(String::valueOf)
+                .collect(Collectors.toSet());
+        Set<String> current = redisTemplate.opsForSet().members(CELEBRITIES_KEY);
+        if (current != null) {
+            for (String authorId : current) {
+                if (!celebrities.contains(authorId)) {
+                    leaveCelebrities(Long.valueOf(authorId));
+                }
+            }
+        }
+        if (!celebrities.isEmpty()) {
+            redisTemplate.opsForSet().add(CELEBRITIES_KEY, celebrities.toArray(String[]::new));
+        }
+        log.info("Timeline celebrity set holds {} authors", celebrities.size());
+    }
+
+    // celebrity status follows the author's follower count, not their posts
+    private void updateCelebrity(Long authorId) {
+        if (relationshipRepository.countByFollowingId(authorId) > celebrityFollowerThreshold) {
+            redisTemplate.opsForSet().add(CELEBRITIES_KEY, authorId.toString());
+        } else if (isCelebrity(authorId)) {
+            leaveCelebrities(authorId);
+        }
+    }
+
+    // the author's posts were merged on read so far, push the recent ones before readers stop merging them
+    private void leaveCelebrities(Long authorId) {
+        List<PostCursor> authorPosts = postRepository.findFeedPositionsByUserIds(
+                List.of(authorId), NEWEST.getCreatedAt(), NEWEST.getId(), Limit.of(maxLength));
+        int followers = fanOut(authorId, authorPosts);
+        redisTemplate.opsForSet().remove(CELEBRITIES_KEY, authorId.toString());
+        log.info("Author ID: {} is no longer a celebrity, pushed {} posts to {} timelines",
+                authorId, authorPosts.size(), followers);
+    }
+
+    // adds the author's posts to every follower's timeline, returns the number of followers
+    private int fanOut(Long authorId, List<PostCursor> positions) {
+        List<Long> followerIds = relationshipRepository.findFollowerIdsByFollowingId(authorId);
+        if (positions.isEmpty() || followerIds.isEmpty()) {
+            return followerIds.size();
+        }
+        Set<StringRedisConnection.StringTuple> tuples = positions.stream()
+                .map(position -> new DefaultStringTuple(position.getId().toString(), toScore(position.getCreatedAt())))
+                .collect(Collectors.toSet());
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            for (Long followerId : followerIds) {
+                String key = timelineKey(followerId);
+                redis.zAdd(key, tuples);
+                redis.zRemRange(key, 0, -(maxLength + 1L));
+            }
+            return null;
+        });
+        return followerIds.size();
+    }
+
+    private List<PostCursor> readPushed(Long userId, PostCursor from, int limit) {
+        double maxScore = toScore(from.getCreatedAt());
+        // a little slack for entries sharing the cursor's microsecond, which are filtered by id below
+        Set<ZSetOperations.TypedTuple<String>> entries = redisTemplate.opsForZSet()
+                .reverseRangeByScoreWithScores(timelineKey(userId), Double.NEGATIVE_INFINITY, maxScore, 0, limit + 10L);
+        if (entries == null) {
+            return List.of();
+        }
+
+        List<PostCursor> positions = new ArrayList<>();
+        for (ZSetOperations.TypedTuple<String> entry : entries) {
+            Long postId = Long.valueOf(entry.getValue());
+            double score = entry.getScore();
+            if (score == maxScore && postId >= from.getId()) {
+                continue;
+            }
+            positions.add(new PostCursor(fromScore(score), postId));
+        }
+        return positions;
+    }
+
+    private List<PostCursor> readCelebrityPosts(Long userId, PostCursor from, int limit) {
+        Set<String> celebrities = redisTemplate.opsForSet().members(CELEBRITIES_KEY);
+        if (celebrities == null || celebrities.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> followedCelebrities = relationshipRepository.findFollowingIdsAmong(
+                userId, celebrities.stream().map(Long::valueOf).collect(Collectors.toList()));
+        if (followedCelebrities.isEmpty()) {
+            return List.of();
+        }
+        return postRepository.findFeedPositionsByUserIds(
+                followedCelebrities, from.getCreatedAt(), from.getId(), Limit.of(limit));
+    }
+
+    private void addAll(String key, Collection<PostCursor> positions) {
+        if (positions.isEmpty()) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = positions.stream()
+                .map(position -> ZSetOperations.TypedTuple.of(position.getId().toString(), toScore(position.getCreatedAt())))
+                .collect(Collectors.toSet());
+        redisTemplate.opsForZSet().add(key, tuples);
+    }
+
+    private boolean isBuilt(Long userId) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(BUILT_KEY_PREFIX + userId));
+    }
+
+    private boolean isCelebrity(Long authorId) {
+        return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(CELEBRITIES_KEY, authorId.toString()));
+    }
+
+    // timeline writes must not fail or roll back the request that triggered them
+    private void afterCommit(Runnable action) {
+        TransactionCallbacks.afterCommit(() -> {
+            try {
+                action.run();
+            } catch (DataAccessException e) {
+                log.warn("Timeline update failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    private static String timelineKey(Long userId) {
+        return TIMELINE_KEY_PREFIX + userId;
+    }
+
+    // epoch microseconds, the precision postgres keeps, so scores round-trip to the exact database position;
+    // they stay well within the 53 bits a double holds exactly
+    private static double toScore(LocalDateTime createdAt) {
+        Instant instant = createdAt.atZone(ZoneId.systemDefault()).toInstant();
+        // rounded like the jdbc driver does when the timestamp is stored
+        return instant.getEpochSecond() * 1_000_000L + (instant.getNano() + 500) / 1_000;
+    }
+
+    private static LocalDateTime fromScore(double score) {
+        return LocalDateTime.ofInstant(Instant.EPOCH.plus((long) score, ChronoUnit.MICROS), ZoneId.systemDefault());
+    }
+}
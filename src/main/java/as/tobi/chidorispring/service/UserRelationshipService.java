@@ -20,6 +20,7 @@ public class UserRelationshipService {
     private final UserRelationshipRepository relationshipRepository;
     private final UserProfileRepository userProfileRepository;
     private final UserMapper userMapper;
+    private final TimelineService timelineService;
 
     @Transactional
     public void followUser(UserProfile follower, Long followingId) {
@@ -40,6 +41,7 @@ public class UserRelationshipService {
                 .build();
 
         relationshipRepository.save(relationship);
+        timelineService.onFollow(follower.getId(), followingId);
     }
 
     @Transactional
@@ -48,6 +50,7 @@ public class UserRelationshipService {
                 .orElseThrow(() -> new RuntimeException("User to unfollow not found"));
 
         relationshipRepository.deleteByFollowerAndFollowing(follower, following);
+        timelineService.onUnfollow(follower.getId(), followingId);
     }
 
     public List<UserProfileShortDTO> getFollowers(Long userId) {
@@ -16,10 +16,10 @@ import as.tobi.chidorispring.mapper.UserMapper;
 import as.tobi.chidorispring.repository.CharacterPostRepository;
 import as.tobi.chidorispring.repository.UserFavoritePostRepository;
 import as.tobi.chidorispring.repository.UserRepository;
+import as.tobi.chidorispring.utils.TransactionCallbacks;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -53,6 +53,12 @@ public class UserService implements UserDetailsService {
     @Autowired
     private UserFavoritePostRepository favoritePostRepository;
 
+    @Autowired
+    private PostViewerStateService viewerStateService;
+
+    @Autowired
+    private RecommendationEngine recommendationEngine;
+
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5 MB
 
     public List<UserProfileDTO> getAllUsers() {
@@ -153,7 +159,6 @@ public class UserService implements UserDetailsService {
     }
 
     @Transactional
-    @CacheEvict(value = {"posts", "post"}, allEntries = true)
     public void addFavoritePost(String email, Long postId) {
         log.debug("Adding favorite post ID: {} for user: {}", postId, email);
         UserProfile user = getUserByEmail(email);
@@ -172,11 +177,13 @@ public class UserService implements UserDetailsService {
                 .createdAt(LocalDateTime.now())
                 .build();
         favoritePostRepository.save(favoritePost);
+        viewerStateService.evict(user.getId());
+        Long userId = user.getId();
+        TransactionCallbacks.afterCommit(() -> recommendationEngine.onInteraction(userId));
         log.info("Post ID: {} saved as favorite by user: {}", postId, email);
     }
 
     @Transactional
-    @CacheEvict(value = {"posts", "post"}, allEntries = true)
     public void removeFavoritePost(String email, Long postId) {
         log.debug("Removing favorite post ID: {} for user: {}", postId, email);
         UserProfile user = getUserByEmail(email);
@@ -185,6 +192,9 @@ public class UserService implements UserDetailsService {
             throw new InternalViolationException(InternalViolationType.NOT_SAVED);
         }
         favoritePostRepository.deleteByUserIdAndCharacterPostId(user.getId(), postId);
+        viewerStateService.evict(user.getId());
+        Long userId = user.getId();
+        TransactionCallbacks.afterCommit(() -> recommendationEngine.onInteraction(userId));
         log.info("Post ID: {} removed from favorites by user: {}", postId, email);
     }
 
@@ -192,9 +202,7 @@ public class UserService implements UserDetailsService {
         log.debug("Retrieving favorite posts for user: {}", email);
         UserProfile user = getUserByEmail(email);
         List<CharacterPost> favoritePosts = postRepository.findFavoritePostsByUserId(user.getId());
-        return favoritePosts.stream()
-                .map(post -> characterPostMapper.toDto(post, user.getId()))
-                .collect(Collectors.toList());
+        return characterPostMapper.toDtoList(favoritePosts, user.getId());
     }
 
     @Transactional
@@ -0,0 +1,84 @@
+package as.tobi.chidorispring.utils;
+
+import java.util.Arrays;
+
+// Open-addressing int -> float map for sparse vectors and score accumulators, without a boxed
+// Integer and Float per entry. Keys are array indexes, so they are never negative.
+public final class IntFloatMap {
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private float[] values;
+    private int mask;
+    private int size;
+
+    public IntFloatMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSize * 2 - 1) << 1);
+        keys = new int[capacity];
+        values = new float[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, FREE);
+    }
+
+    public void add(int key, float delta) {
+        int slot = slot(key);
+        if (keys[slot] == FREE) {
+            keys[slot] = key;
+            values[slot] = delta;
+            // at most half full, probe sequences stay short
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        } else {
+            values[slot] += delta;
+        }
+    }
+
+    public float get(int key) {
+        int slot = slot(key);
+        return keys[slot] == FREE ? 0f : values[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(Entry action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) {
+                action.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    // the slot holding the key, or the free slot it would go to
+    private int slot(int key) {
+        int hash = key * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        float[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new float[oldValues.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, FREE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Entry {
+        void accept(int key, float value);
+    }
+}
@@ -0,0 +1,57 @@
+package as.tobi.chidorispring.utils;
+
+import as.tobi.chidorispring.config.UpstreamProperties;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+// Multi-page upstream search. The first page tells how many results there are, the remaining
+// pages are fetched concurrently (bounded by the search settings) and merged in page order.
+@Slf4j
+public final class PagedSearch {
+
+    private PagedSearch() {
+    }
+
+    // pages are numbered from 1, total is the result count the upstream reports (0 when unknown)
+    public static <R, T> Mono<List<T>> fetchAll(UpstreamProperties.Search settings,
+                                                int pageSize,
+                                                IntFunction<Mono<R>> pageLoader,
+                                                Function<R, List<T>> items,
+                                                ToIntFunction<R> total) {
+        return stream(settings, pageSize, pageLoader, items, total).collectList();
+    }
+
+    // same as fetchAll, but emits the items of each page as soon as it and the pages before it arrived;
+    // cancelling stops the pages not requested yet
+    public static <R, T> Flux<T> stream(UpstreamProperties.Search settings,
+                                        int pageSize,
+                                        IntFunction<Mono<R>> pageLoader,
+                                        Function<R, List<T>> items,
+                                        ToIntFunction<R> total) {
+        return pageLoader.apply(1).flatMapMany(first -> {
+            List<T> firstItems = items.apply(first);
+            Flux<T> firstPage = Flux.fromIterable(firstItems);
+            if (firstItems.size() < pageSize) {
+                return firstPage;
+            }
+
+            int pages = pageCount(total.applyAsInt(first), pageSize, settings.getMaxPages());
+            log.debug("Fetching {} more pages of {} results", pages - 1, total.applyAsInt(first));
+            return firstPage.concatWith(Flux.range(2, pages - 1)
+                    .flatMapSequential(page -> pageLoader.apply(page).flatMapIterable(items),
+                            Math.max(1, settings.getConcurrency())));
+        });
+    }
+
+    // an unknown total fetches up to the page budget, empty pages just add nothing
+    private static int pageCount(int total, int pageSize, int maxPages) {
+        int pages = total > 0 ? (total + pageSize - 1) / pageSize : maxPages;
+        return Math.max(1, Math.min(pages, maxPages));
+    }
+}
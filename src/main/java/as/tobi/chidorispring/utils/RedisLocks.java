@@ -0,0 +1,28 @@
+package as.tobi.chidorispring.utils;
+
+import java.util.List;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+// Redis locks taken with SET NX and a random token
+public final class RedisLocks {
+    // deletes the lock only if we still own it, a lock that expired and was taken over is left alone
+    public static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private RedisLocks() {
+    }
+
+    // true if the lock was still ours; on a redis failure the lock is left to expire
+    public static boolean release(StringRedisTemplate redisTemplate, String lockKey, String token) {
+        try {
+            Long released = redisTemplate.execute(RELEASE_SCRIPT, List.of(lockKey), token);
+            return released != null && released > 0;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package as.tobi.chidorispring;
+
+import java.time.Duration;
+import java.util.List;
+
+import as.tobi.chidorispring.dto.kitsu.response.AnimeFullInfoResponse;
+import as.tobi.chidorispring.enums.AnimeSource;
+import as.tobi.chidorispring.exceptions.AnimeViolationException;
+import as.tobi.chidorispring.exceptions.AnimeViolationType;
+import as.tobi.chidorispring.service.AnimeCatalogService;
+import as.tobi.chidorispring.service.JikanService;
+import as.tobi.chidorispring.service.KitsuService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class AnimeCatalogServiceTest {
+
+    @Mock
+    private KitsuService kitsuService;
+
+    @Mock
+    private JikanService jikanService;
+
+    @InjectMocks
+    private AnimeCatalogService animeCatalogService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(animeCatalogService, "providerTimeout", Duration.ofMillis(200));
+    }
+
+    @Test
+    void searchByTitle_WithSameAnimeAtBothProviders_ShouldMergeIt() {
+        // Arrange
+        when(kitsuService.getAnimeFullInfoByTitle("bebop", 5)).thenReturn(Mono.just(List.of(
+            kitsuAnime("1", "Cowboy Bebop", "1998-04-03", "Action"))));
+        when(jikanService.getAnimeFullInfoByTitle("bebop", 5)).thenReturn(Mono.just(List.of(
+            jikanAnime(1L, "Cowboy Bebop", "1998-04-03T00:00:00+00:00 to 1999-04-24T00:00:00+00:00", "Action", "Sci-Fi"),
+            jikanAnime(5L, "Cowboy Bebop: Tengoku no Tobira", "2001-09-01T00:00:00+00:00", "Action"))));
+
+        // Act & Assert
+        StepVerifier.create(animeCatalogService.searchByTitle("bebop", 5))
+            .expectNextMatches(response -> !response.isPartial()
+                && response.getResults().size() == 2
+                && "1".equals(response.getResults().get(0).getKitsuId())
+                && Long.valueOf(1L).equals(response.getResults().get(0).getMalId())
+                && response.getResults().get(0).getYear() == 1998
+                && response.getResults().get(0).getGenres().equals(List.of("Action", "Sci-Fi"))
+                && response.getResults().get(0).getSources().equals(List.of(AnimeSource.KITSU, AnimeSource.JIKAN))
+                && response.getResults().get(1).getKitsuId() == null)
+            .verifyComplete();
+    }
+
+    @Test
+    void searchByTitle_WhenProviderIsTooSlow_ShouldReturnPartialResults() {
+        // Arrange
+        when(kitsuService.getAnimeFullInfoByTitle("bebop", 5)).thenReturn(Mono.never());
+        when(jikanService.getAnimeFullInfoByTitle("bebop", 5)).thenReturn(Mono.just(List.of(
+            jikanAnime(1L, "Cowboy Bebop", null, "Action"))));
+
+        // Act & Assert
+        StepVerifier.create(animeCatalogService.searchByTitle("bebop", 5))
+            .expectNextMatches(response -> response.isPartial()
+                && response.getUnavailableSources().equals(List.of(AnimeSource.KITSU))
+                && response.getResults().size() == 1)
+            .verifyComplete();
+    }
+
+    @Test
+    void searchByTitle_WhenNoProviderAnswers_ShouldFail() {
+        // Arrange
+        when(kitsuService.getAnimeFullInfoByTitle("bebop", 5))
+            .thenReturn(Mono.error(new AnimeViolationException(AnimeViolationType.KITSU_API_ERROR)));
+        when(jikanService.getAnimeFullInfoByTitle("bebop", 5))
+            .thenReturn(Mono.error(new AnimeViolationException(AnimeViolationType.ANIME_NOT_FOUND)));
+
+        // Act & Assert
+        StepVerifier.create(animeCatalogService.searchByTitle("bebop", 5))
+            .expectErrorMatches(e -> e instanceof AnimeViolationException violation
+                && violation.getType() == AnimeViolationType.UPSTREAM_UNAVAILABLE)
+            .verify();
+    }
+
+    private AnimeFullInfoResponse kitsuAnime(String id, String title, String startDate, String... genres) {
+        AnimeFullInfoResponse anime = new AnimeFullInfoResponse();
+        anime.setId(id);
+        anime.setCanonicalTitle(title);
+        anime.setStartDate(startDate);
+        anime.setGenres(List.of(genres));
+        return anime;
+    }
+
+    private as.tobi.chidorispring.dto.jikan.response.AnimeFullInfoResponse jikanAnime(Long id, String title, String aired,
+                                                                                    String... genres) {
+        return as.tobi.chidorispring.dto.jikan.response.AnimeFullInfoResponse.builder()
+            .id(id)
+            .title(title)
+            .aired(aired)
+            .genres(List.of(genres))
+            .build();
+    }
+}
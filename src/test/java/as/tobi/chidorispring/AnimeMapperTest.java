@@ -0,0 +1,98 @@
+package as.tobi.chidorispring;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import as.tobi.chidorispring.dto.kitsu.AnimeAttributes;
+import as.tobi.chidorispring.dto.kitsu.AnimeData;
+import as.tobi.chidorispring.dto.kitsu.AnimeRelationships;
+import as.tobi.chidorispring.dto.kitsu.Included;
+import as.tobi.chidorispring.dto.kitsu.IncludedAttributes;
+import as.tobi.chidorispring.dto.kitsu.RelationshipData;
+import as.tobi.chidorispring.dto.kitsu.ResourceLink;
+import as.tobi.chidorispring.dto.kitsu.response.AnimeSimpleResponse;
+import as.tobi.chidorispring.mapper.AnimeMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AnimeMapperTest {
+
+    private AnimeMapper animeMapper;
+
+    @BeforeEach
+    void setUp() {
+        animeMapper = new AnimeMapper();
+    }
+
+    @Test
+    void toAnimeSimpleResponses_ShouldResolveGenresInLinkOrderAndSkipUnknownCategories() {
+        // Arrange
+        List<Included> included = List.of(
+            category("1", "Action", null),
+            category("2", null, "Comedy"),
+            category("1", "Duplicate", null),
+            included("3", "mediaRelationships", "Not a genre"));
+
+        // Act
+        List<AnimeSimpleResponse> results = animeMapper.toAnimeSimpleResponses(
+            List.of(anime("Cowboy Bebop", "2", "3", "1")), included);
+
+        // Assert
+        assertEquals(List.of("Comedy", "Action"), results.get(0).getGenres());
+    }
+
+    @Test
+    void toAnimeSimpleResponses_AcrossResponses_ShouldShareGenreInstances() {
+        // Arrange
+        List<Included> first = List.of(category("1", new String("Action"), null));
+        List<Included> second = List.of(category("1", new String("Action"), null));
+
+        // Act
+        String firstGenre = animeMapper.toAnimeSimpleResponses(List.of(anime("Trigun", "1")), first).get(0).getGenres().get(0);
+        String secondGenre = animeMapper.toAnimeSimpleResponses(List.of(anime("Naruto", "1")), second).get(0).getGenres().get(0);
+
+        // Assert
+        assertSame(firstGenre, secondGenre);
+    }
+
+    private AnimeData anime(String title, String... categoryIds) {
+        AnimeAttributes attributes = new AnimeAttributes();
+        attributes.setCanonicalTitle(title);
+
+        RelationshipData categories = new RelationshipData();
+        categories.setData(Arrays.stream(categoryIds)
+            .map(id -> {
+                ResourceLink link = new ResourceLink();
+                link.setId(id);
+                link.setType("categories");
+                return link;
+            })
+            .toList());
+        AnimeRelationships relationships = new AnimeRelationships();
+        relationships.setCategories(categories);
+
+        AnimeData anime = new AnimeData();
+        anime.setAttributes(attributes);
+        anime.setRelationships(relationships);
+        return anime;
+    }
+
+    private Included category(String id, String title, String name) {
+        Included item = included(id, "categories", name);
+        item.getAttributes().setTitle(title);
+        return item;
+    }
+
+    private Included included(String id, String type, String name) {
+        IncludedAttributes attributes = new IncludedAttributes();
+        attributes.setName(name);
+        Included item = new Included();
+        item.setId(id);
+        item.setType(type);
+        item.setAttributes(attributes);
+        return item;
+    }
+}
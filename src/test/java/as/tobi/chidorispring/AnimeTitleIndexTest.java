@@ -0,0 +1,87 @@
+package as.tobi.chidorispring;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import as.tobi.chidorispring.enums.AnimeSource;
+import as.tobi.chidorispring.repository.CatalogAnimeRepository;
+import as.tobi.chidorispring.service.AnimeTitleIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class AnimeTitleIndexTest {
+
+    @Mock
+    private CatalogAnimeRepository animeRepository;
+
+    private AnimeTitleIndex titleIndex;
+
+    @BeforeEach
+    void setUp() {
+        titleIndex = new AnimeTitleIndex(animeRepository);
+        ReflectionTestUtils.setField(titleIndex, "enabled", true);
+        ReflectionTestUtils.setField(titleIndex, "minSimilarity", 0.5);
+        when(animeRepository.findLatestSyncedAt()).thenReturn(LocalDateTime.of(2025, 5, 1, 12, 0));
+        when(animeRepository.findAllTitles()).thenReturn(List.of(
+            new Title(1L, AnimeSource.KITSU, "Naruto: Shippuden"),
+            new Title(2L, AnimeSource.KITSU, "Naruto"),
+            new Title(3L, AnimeSource.KITSU, "Attack on Titan"),
+            new Title(3L, AnimeSource.KITSU, "Shingeki no Kyōjin"),
+            new Title(3L, AnimeSource.KITSU, "進撃の巨人"),
+            new Title(4L, AnimeSource.KITSU, "Boruto: Naruto Next Generations")));
+        titleIndex.refresh();
+    }
+
+    @Test
+    void search_WithPrefix_ShouldRankShorterTitlePrefixMatchesFirst() {
+        // Act
+        List<Long> results = titleIndex.search(AnimeSource.KITSU, "nar", 10);
+
+        // Assert
+        assertEquals(List.of(2L, 1L, 4L), results);
+        assertTrue(titleIndex.isReady(AnimeSource.KITSU));
+        assertFalse(titleIndex.isReady(AnimeSource.JIKAN));
+    }
+
+    @Test
+    void search_WithTypos_ShouldMatchFuzzily() {
+        // Act & Assert
+        assertEquals(1L, titleIndex.search(AnimeSource.KITSU, "naruto shipuden", 10).get(0));
+        assertEquals(List.of(3L), titleIndex.search(AnimeSource.KITSU, "atack on titen", 10));
+    }
+
+    @Test
+    void search_AcrossScriptsAndAccents_ShouldMatchEachAnimeOnce() {
+        // Act & Assert
+        assertEquals(List.of(3L), titleIndex.search(AnimeSource.KITSU, "kyojin", 10));
+        assertEquals(List.of(3L), titleIndex.search(AnimeSource.KITSU, "巨人", 10));
+        assertEquals(List.of(3L), titleIndex.search(AnimeSource.KITSU, "ＳＨＩＮＧＥＫＩ", 10));
+    }
+
+    private record Title(Long id, AnimeSource source, String title) implements CatalogAnimeRepository.TitleRow {
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public AnimeSource getSource() {
+            return source;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+    }
+}
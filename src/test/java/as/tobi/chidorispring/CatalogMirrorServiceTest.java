@@ -0,0 +1,135 @@
+package as.tobi.chidorispring;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import as.tobi.chidorispring.dto.kitsu.response.AnimeFullInfoResponse;
+import as.tobi.chidorispring.entity.CatalogAnime;
+import as.tobi.chidorispring.entity.CatalogSyncState;
+import as.tobi.chidorispring.enums.AnimeSource;
+import as.tobi.chidorispring.mapper.CatalogAnimeMapper;
+import as.tobi.chidorispring.repository.CatalogAnimeRepository;
+import as.tobi.chidorispring.repository.CatalogSyncStateRepository;
+import as.tobi.chidorispring.service.AnimeTitleIndex;
+import as.tobi.chidorispring.service.CatalogMirrorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogMirrorServiceTest {
+
+    @Mock
+    private CatalogAnimeRepository animeRepository;
+
+    @Mock
+    private CatalogSyncStateRepository syncStateRepository;
+
+    @Mock
+    private AnimeTitleIndex titleIndex;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CatalogMirrorService catalogMirrorService;
+
+    @BeforeEach
+    void setUp() {
+        catalogMirrorService = new CatalogMirrorService(animeRepository, syncStateRepository,
+            new CatalogAnimeMapper(), titleIndex, transactionManager);
+        ReflectionTestUtils.setField(catalogMirrorService, "enabled", true);
+    }
+
+    @Test
+    void kitsuSearch_BeforeFirstCompletePass_ShouldBeEmpty() {
+        // Arrange
+        when(syncStateRepository.findById(AnimeSource.KITSU))
+            .thenReturn(Optional.of(CatalogSyncState.builder().source(AnimeSource.KITSU).nextPage(42).build()));
+
+        // Act & Assert
+        StepVerifier.create(catalogMirrorService.kitsuSearch("naruto", 10)).verifyComplete();
+        verifyNoInteractions(animeRepository);
+    }
+
+    @Test
+    void kitsuSearch_WhenSynced_ShouldEscapePatternAndMapResults() {
+        // Arrange
+        when(syncStateRepository.findById(AnimeSource.KITSU)).thenReturn(Optional.of(CatalogSyncState.builder()
+            .source(AnimeSource.KITSU).nextPage(1).completedAt(LocalDateTime.now()).build()));
+        CatalogAnime naruto = CatalogAnime.builder()
+            .source(AnimeSource.KITSU).externalId(11L).title("Naruto").genres(List.of("Action")).build();
+        when(animeRepository.searchByTitle(eq(AnimeSource.KITSU), eq("%100\\% naruto%"), any(Pageable.class)))
+            .thenReturn(List.of(naruto));
+
+        // Act & Assert
+        StepVerifier.create(catalogMirrorService.kitsuSearch("100% Naruto", 10))
+            .expectNextMatches(results -> results.size() == 1
+                && "11".equals(results.get(0).getId())
+                && "Naruto".equals(results.get(0).getTitle()))
+            .verifyComplete();
+    }
+
+    @Test
+    void kitsuSearch_WithTitleIndex_ShouldKeepIndexRanking() {
+        // Arrange
+        when(syncStateRepository.findById(AnimeSource.KITSU)).thenReturn(Optional.of(CatalogSyncState.builder()
+            .source(AnimeSource.KITSU).nextPage(1).completedAt(LocalDateTime.now()).build()));
+        when(titleIndex.isReady(AnimeSource.KITSU)).thenReturn(true);
+        when(titleIndex.search(AnimeSource.KITSU, "narto", 10)).thenReturn(List.of(2L, 1L));
+        when(animeRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(
+            CatalogAnime.builder().id(1L).source(AnimeSource.KITSU).externalId(1555L).title("Naruto: Shippuden").build(),
+            CatalogAnime.builder().id(2L).source(AnimeSource.KITSU).externalId(11L).title("Naruto").build()));
+
+        // Act & Assert
+        StepVerifier.create(catalogMirrorService.kitsuSearch("narto", 10))
+            .expectNextMatches(results -> results.size() == 2
+                && "Naruto".equals(results.get(0).getTitle())
+                && "Naruto: Shippuden".equals(results.get(1).getTitle()))
+            .verifyComplete();
+        verify(animeRepository, never()).searchByTitle(any(), any(), any());
+    }
+
+    @Test
+    void upsertKitsu_ShouldUpdateExistingRowsAndInsertNewOnes() {
+        // Arrange
+        CatalogAnime existing = CatalogAnime.builder().id(5L).source(AnimeSource.KITSU).externalId(1L).title("Old").build();
+        when(animeRepository.findBySourceAndExternalIdIn(eq(AnimeSource.KITSU), anyList())).thenReturn(List.of(existing));
+
+        // Act
+        int written = catalogMirrorService.upsertKitsu(List.of(kitsuAnime("1", "Cowboy Bebop"), kitsuAnime("2", "Trigun")));
+
+        // Assert
+        assertEquals(2, written);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CatalogAnime>> saved = ArgumentCaptor.forClass(List.class);
+        verify(animeRepository).saveAll(saved.capture());
+        assertEquals(5L, saved.getValue().get(0).getId());
+        assertEquals("Cowboy Bebop", saved.getValue().get(0).getTitle());
+        assertEquals(2L, saved.getValue().get(1).getExternalId());
+    }
+
+    private AnimeFullInfoResponse kitsuAnime(String id, String title) {
+        AnimeFullInfoResponse anime = new AnimeFullInfoResponse();
+        anime.setId(id);
+        anime.setCanonicalTitle(title);
+        anime.setGenres(List.of("Sci-Fi"));
+        return anime;
+    }
+}
@@ -4,31 +4,42 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import as.tobi.chidorispring.service.CharacterPostService;
 import as.tobi.chidorispring.service.CloudinaryService;
+import as.tobi.chidorispring.service.PostCacheService;
+import as.tobi.chidorispring.service.TimelineService;
 import as.tobi.chidorispring.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
 import as.tobi.chidorispring.dto.characterPost.CharacterPostDTO;
+import as.tobi.chidorispring.dto.characterPost.CharacterPostPageDTO;
 import as.tobi.chidorispring.dto.characterPost.UpdateCharacterPostDTO;
 import as.tobi.chidorispring.dto.userProfile.UserProfileShortDTO;
 import as.tobi.chidorispring.entity.CharacterPost;
@@ -37,7 +48,7 @@ import as.tobi.chidorispring.exceptions.InternalViolationException;
 import as.tobi.chidorispring.mapper.CharacterPostMapper;
 import as.tobi.chidorispring.repository.CharacterPostRepository;
 import as.tobi.chidorispring.repository.UserFavoritePostRepository;
-import as.tobi.chidorispring.repository.UserRelationshipRepository;
+import as.tobi.chidorispring.utils.PostCursor;
 
 @ExtendWith(MockitoExtension.class)
 class CharacterPostServiceTest {
@@ -58,7 +69,10 @@ class CharacterPostServiceTest {
     private UserFavoritePostRepository favoritePostRepository;
 
     @Mock
-    private UserRelationshipRepository relationshipRepository;
+    private TimelineService timelineService;
+
+    @Mock
+    private PostCacheService postCacheService;
 
     @InjectMocks
     private CharacterPostService characterPostService;
@@ -135,6 +149,7 @@ class CharacterPostServiceTest {
         assertEquals(testPostDTO.getId(), result.getId());
         verify(cloudinaryService).uploadProfilePicture(testImage);
         verify(postRepository).save(any(CharacterPost.class));
+        verify(timelineService).onPostCreated(testPost);
     }
 
     @Test
@@ -142,8 +157,9 @@ class CharacterPostServiceTest {
         // Arrange
         when(postRepository.findById(1L)).thenReturn(Optional.of(testPost));
         when(userService.getUserByEmail(anyString())).thenReturn(testUser);
-        when(characterPostMapper.toDto(any(CharacterPost.class), anyLong()))
-            .thenReturn(testPostDTO);
+        when(postCacheService.getPost(eq(1L), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        when(characterPostMapper.toDto(testPost)).thenReturn(testPostDTO);
+        when(characterPostMapper.applyViewerState(testPostDTO, 1L)).thenReturn(testPostDTO);
 
         // Act
         CharacterPostDTO result = characterPostService.findPostById(1L, "test@example.com");
@@ -152,12 +168,14 @@ class CharacterPostServiceTest {
         assertNotNull(result);
         assertEquals(testPostDTO.getId(), result.getId());
         verify(postRepository).findById(1L);
+        verify(characterPostMapper).applyViewerState(testPostDTO, 1L);
     }
 
     @Test
     void findPostById_WithInvalidId_ShouldThrowException() {
         // Arrange
         when(postRepository.findById(999L)).thenReturn(Optional.empty());
+        when(postCacheService.getPost(eq(999L), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
 
         // Act & Assert
         assertThrows(InternalViolationException.class, () -> 
@@ -165,6 +183,21 @@ class CharacterPostServiceTest {
         );
     }
 
+    @Test
+    void findPostById_WithCachedPost_ShouldNotQueryDatabase() {
+        // Arrange
+        when(userService.getUserByEmail(anyString())).thenReturn(testUser);
+        when(postCacheService.getPost(eq(1L), any())).thenReturn(testPostDTO);
+        when(characterPostMapper.applyViewerState(testPostDTO, 1L)).thenReturn(testPostDTO);
+
+        // Act
+        CharacterPostDTO result = characterPostService.findPostById(1L, "test@example.com");
+
+        // Assert
+        assertEquals(testPostDTO.getId(), result.getId());
+        verify(postRepository, never()).findById(anyLong());
+    }
+
     @Test
     void updatePost_WithValidData_ShouldUpdatePost() throws Exception {
         // Arrange
@@ -207,35 +240,33 @@ class CharacterPostServiceTest {
         // Assert
         verify(favoritePostRepository).deleteByCharacterPostId(1L);
         verify(postRepository).delete(testPost);
+        verify(postCacheService).evictPost(1L);
     }
 
     @Test
     void getRecommendedPosts_WithFollowingUsers_ShouldReturnPosts() {
         // Arrange
-        UserProfile followingUser = new UserProfile();
-        followingUser.setId(2L);
-        List<UserProfile> followingUsers = Arrays.asList(followingUser);
-        
         when(userService.getUserByEmail(anyString())).thenReturn(testUser);
-        when(relationshipRepository.findFollowingByUser(any(UserProfile.class)))
-            .thenReturn(followingUsers);
-        when(postRepository.findByUserIdInOrderByCreatedAtDesc(anyList(), any()))
-            .thenReturn(org.springframework.data.domain.Page.empty());
+        when(timelineService.readTimeline(1L, null, 10)).thenReturn(List.of(1L));
+        when(postRepository.findAllWithAuthorAndGenresByIdIn(List.of(1L))).thenReturn(List.of(testPost));
+        loadPostsThroughCache();
+        when(characterPostMapper.toDtoList(List.of(testPost), null)).thenReturn(List.of(testPostDTO));
+        when(characterPostMapper.applyViewerState(List.of(testPostDTO), 1L)).thenReturn(List.of(testPostDTO));
 
         // Act
         List<CharacterPostDTO> result = characterPostService.getRecommendedPosts("test@example.com", 0, 10);
 
         // Assert
         assertNotNull(result);
-        verify(relationshipRepository).findFollowingByUser(testUser);
+        assertEquals(1, result.size());
+        verify(timelineService).readTimeline(1L, null, 10);
     }
 
     @Test
     void getRecommendedPosts_WithNoFollowingUsers_ShouldReturnEmptyList() {
         // Arrange
         when(userService.getUserByEmail(anyString())).thenReturn(testUser);
-        when(relationshipRepository.findFollowingByUser(any(UserProfile.class)))
-            .thenReturn(List.of());
+        when(timelineService.readTimeline(anyLong(), any(), anyInt())).thenReturn(List.of());
 
         // Act
         List<CharacterPostDTO> result = characterPostService.getRecommendedPosts("test@example.com", 0, 10);
@@ -245,6 +276,78 @@ class CharacterPostServiceTest {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void findAllPosts_ShouldHydratePageInIdOrder() {
+        // Arrange
+        CharacterPost otherPost = new CharacterPost();
+        otherPost.setId(2L);
+        when(postRepository.findPostIds(any(Pageable.class))).thenReturn(List.of(2L, 1L));
+        when(postRepository.findAllWithAuthorAndGenresByIdIn(List.of(2L, 1L))).thenReturn(List.of(testPost, otherPost));
+        CharacterPostDTO otherPostDTO = testPostDTO.toBuilder().id(2L).build();
+        when(postCacheService.getPageIds(anyString(), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        loadPostsThroughCache();
+        when(characterPostMapper.toDtoList(List.of(otherPost, testPost), null)).thenReturn(List.of(otherPostDTO, testPostDTO));
+        when(characterPostMapper.applyViewerState(List.of(otherPostDTO, testPostDTO), null)).thenReturn(List.of(otherPostDTO, testPostDTO));
+
+        // Act
+        List<CharacterPostDTO> result = characterPostService.findAllPosts(0, 2, null, null, "desc", null, null);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(2L, result.get(0).getId());
+        verify(postRepository).findAllWithAuthorAndGenresByIdIn(List.of(2L, 1L));
+    }
+
+    @Test
+    void findPostsPage_WithMoreRows_ShouldReturnNextCursor() {
+        // Arrange
+        CharacterPost olderPost = new CharacterPost();
+        olderPost.setId(2L);
+        olderPost.setCreatedAt(testPost.getCreatedAt().minusMinutes(1));
+        List<CharacterPost> rows = Arrays.asList(testPost, olderPost);
+
+        CharacterPostDTO firstDTO = testPostDTO.toBuilder().createdAt(testPost.getCreatedAt()).build();
+        CharacterPostDTO olderDTO = testPostDTO.toBuilder().id(2L).createdAt(olderPost.getCreatedAt()).build();
+
+        when(postRepository.findFeedFirstPage(Limit.of(2))).thenReturn(rows);
+        when(characterPostMapper.toDtoList(rows, null)).thenReturn(List.of(firstDTO, olderDTO));
+        when(characterPostMapper.applyViewerState(List.of(firstDTO), null)).thenReturn(List.of(firstDTO));
+
+        // Act
+        CharacterPostPageDTO result = characterPostService.findPostsPage(null, 1, null, null);
+
+        // Assert
+        assertEquals(1, result.getPosts().size());
+        assertTrue(result.isHasNext());
+        PostCursor next = PostCursor.decode(result.getNextCursor());
+        assertEquals(testPost.getId(), next.getId());
+        assertEquals(testPost.getCreatedAt(), next.getCreatedAt());
+    }
+
+    @Test
+    void findPostsPage_WithLastPage_ShouldReturnNoCursor() {
+        // Arrange
+        PostCursor cursor = new PostCursor(LocalDateTime.now(), 5L);
+        when(postRepository.findFeedPageAfter(cursor.getCreatedAt(), 5L, Limit.of(11))).thenReturn(List.of(testPost));
+        when(characterPostMapper.toDtoList(List.of(testPost), null)).thenReturn(List.of(testPostDTO));
+        when(characterPostMapper.applyViewerState(List.of(testPostDTO), null)).thenReturn(List.of(testPostDTO));
+
+        // Act
+        CharacterPostPageDTO result = characterPostService.findPostsPage(cursor.encode(), 10, null, null);
+
+        // Assert
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void findPostsPage_WithMalformedCursor_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(InternalViolationException.class, () ->
+            characterPostService.findPostsPage("not-a-cursor", 10, null, null)
+        );
+    }
+
     @Test
     void createPost_WithLargeFile_ShouldThrowException() {
         // Arrange
@@ -261,4 +364,10 @@ class CharacterPostServiceTest {
             characterPostService.createPost(testPost, largeFile, testUser)
         );
     }
-} 
\ No newline at end of file
+
+    // the post body cache always misses and hands the ids to the loader
+    private void loadPostsThroughCache() {
+        when(postCacheService.getPosts(any(), any())).thenAnswer(invocation ->
+            invocation.<Function<List<Long>, List<CharacterPostDTO>>>getArgument(1).apply(invocation.getArgument(0)));
+    }
+}
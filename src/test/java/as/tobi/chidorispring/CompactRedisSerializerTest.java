@@ -0,0 +1,104 @@
+package as.tobi.chidorispring;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import as.tobi.chidorispring.cache.CompactRedisSerializer;
+import as.tobi.chidorispring.dto.characterPost.CharacterPostDTO;
+import as.tobi.chidorispring.dto.kitsu.response.AnimeSimpleResponse;
+import as.tobi.chidorispring.dto.kitsu.response.PaginatedAnimeResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CompactRedisSerializerTest {
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    }
+
+    @Test
+    void roundTrip_WithoutValueType_ShouldRestoreTopLevelType() {
+        // Arrange
+        CompactRedisSerializer serializer = new CompactRedisSerializer(objectMapper, null, -1);
+        PaginatedAnimeResponse page = animePage(3);
+
+        // Act
+        Object result = serializer.deserialize(serializer.serialize(page));
+
+        // Assert
+        assertEquals(page, result);
+    }
+
+    @Test
+    void roundTrip_WithImmutableList_ShouldRestoreElementType() {
+        // Arrange
+        CompactRedisSerializer serializer = new CompactRedisSerializer(objectMapper, null, -1);
+        List<CharacterPostDTO> posts = List.of(CharacterPostDTO.builder()
+            .id(1L)
+            .characterName("Itachi")
+            .createdAt(LocalDateTime.of(2025, 5, 1, 12, 0))
+            .build());
+
+        // Act
+        Object result = serializer.deserialize(serializer.serialize(posts));
+
+        // Assert
+        assertEquals(posts, result);
+    }
+
+    @Test
+    void serialize_AboveThreshold_ShouldCompress() {
+        // Arrange
+        CompactRedisSerializer plain = new CompactRedisSerializer(objectMapper, null, -1);
+        CompactRedisSerializer compressing = new CompactRedisSerializer(objectMapper, null, 256);
+        PaginatedAnimeResponse page = animePage(200);
+
+        // Act
+        byte[] uncompressed = plain.serialize(page);
+        byte[] compressed = compressing.serialize(page);
+
+        // Assert
+        assertTrue(compressed.length < uncompressed.length);
+        assertEquals(page, compressing.deserialize(compressed));
+    }
+
+    @Test
+    void deserialize_WithLegacyJsonEntry_ShouldReturnNull() {
+        // Arrange
+        CompactRedisSerializer serializer = new CompactRedisSerializer(objectMapper, null, -1);
+        byte[] legacy = "{\"data\":[],\"currentPage\":1}".getBytes(StandardCharsets.UTF_8);
+
+        // Act & Assert
+        assertNull(serializer.deserialize(legacy));
+    }
+
+    private PaginatedAnimeResponse animePage(int size) {
+        List<AnimeSimpleResponse> data = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            AnimeSimpleResponse anime = new AnimeSimpleResponse();
+            anime.setId(String.valueOf(i));
+            anime.setTitle("Naruto " + i);
+            anime.setGenres(List.of("Action", "Adventure"));
+            data.add(anime);
+        }
+
+        PaginatedAnimeResponse page = new PaginatedAnimeResponse();
+        page.setData(data);
+        page.setCurrentPage(1);
+        page.setPageSize(size);
+        page.setTotalItems(size);
+        page.setTotalPages(1);
+        return page;
+    }
+}
@@ -0,0 +1,46 @@
+package as.tobi.chidorispring;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import as.tobi.chidorispring.cache.HotKeyTracker;
+import org.junit.jupiter.api.Test;
+
+class HotKeyTrackerTest {
+
+    @Test
+    void top_ShouldKeepMostRequestedKeysInOrder() {
+        // Arrange
+        HotKeyTracker<String> tracker = new HotKeyTracker<>(1024, 2, 10_000);
+        record(tracker, "naruto", 30);
+        record(tracker, "bleach", 20);
+        for (int i = 0; i < 100; i++) {
+            tracker.record("one-off " + i);
+        }
+
+        // Act & Assert
+        assertEquals(List.of("naruto", "bleach"), tracker.top(10));
+        assertTrue(tracker.frequency("naruto") >= 30);
+    }
+
+    @Test
+    void record_AfterAging_ShouldLetNewlyPopularKeysTakeOver() {
+        // Arrange
+        HotKeyTracker<String> tracker = new HotKeyTracker<>(1024, 1, 100);
+        record(tracker, "naruto", 90);
+
+        // Act
+        record(tracker, "frieren", 60);
+
+        // Assert
+        assertEquals(List.of("frieren"), tracker.top(1));
+    }
+
+    private void record(HotKeyTracker<String> tracker, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.record(key);
+        }
+    }
+}
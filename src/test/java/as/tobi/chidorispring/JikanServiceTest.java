@@ -6,16 +6,25 @@ import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import as.tobi.chidorispring.cache.ChidoriCacheProperties;
+import as.tobi.chidorispring.cache.ReactiveCache;
+import as.tobi.chidorispring.cache.SingleFlight;
+import as.tobi.chidorispring.config.UpstreamProperties;
+import as.tobi.chidorispring.service.AnimeRequestTracker;
+import as.tobi.chidorispring.service.CatalogMirrorService;
 import as.tobi.chidorispring.service.JikanService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 
@@ -50,6 +59,19 @@ class JikanServiceTest {
     @Mock
     private JikanAnimeMapper jikanAnimeMapper;
 
+    @Spy
+    private ReactiveCache reactiveCache =
+            new ReactiveCache(new ConcurrentMapCacheManager(), new SingleFlight(null, null, localSingleFlight()));
+
+    @Mock
+    private CatalogMirrorService catalogMirrorService;
+
+    @Mock
+    private AnimeRequestTracker animeRequestTracker;
+
+    @Spy
+    private UpstreamProperties upstreamProperties = new UpstreamProperties();
+
     @InjectMocks
     private JikanService jikanService;
 
@@ -105,6 +127,7 @@ class JikanServiceTest {
     @Test
     void getAnimeWithGenres_WithValidParams_ShouldReturnPaginatedResponse() {
         // Arrange
+        when(catalogMirrorService.jikanPage(anyInt(), anyInt())).thenReturn(Mono.empty());
         when(jikanWebClient.get()).thenReturn(requestHeadersUriSpec);
         when(requestHeadersUriSpec.uri(any(Function.class))).thenReturn(requestHeadersSpec);
         when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
@@ -130,6 +153,7 @@ class JikanServiceTest {
     @Test
     void searchAnimeAcrossAllPages_WithValidQuery_ShouldReturnAnimeList() {
         // Arrange
+        when(catalogMirrorService.jikanSearch(anyString(), anyInt())).thenReturn(Mono.empty());
         when(jikanWebClient.get()).thenReturn(requestHeadersUriSpec);
         when(requestHeadersUriSpec.uri(any(Function.class))).thenReturn(requestHeadersSpec);
         when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
@@ -148,6 +172,24 @@ class JikanServiceTest {
             .verifyComplete();
     }
 
+    @Test
+    void streamAnimeSearch_WithValidQuery_ShouldEmitResults() {
+        // Arrange
+        when(catalogMirrorService.jikanSearch(anyString(), anyInt())).thenReturn(Mono.empty());
+        when(jikanWebClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(any(Function.class))).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(JikanResponse.class)).thenReturn(Mono.just(testJikanResponse));
+        when(jikanAnimeMapper.toAnimeSimpleResponse(any(JikanAnimeData.class)))
+            .thenReturn(testAnimeSimpleResponse);
+
+        // Act & Assert
+        StepVerifier.create(jikanService.streamAnimeSearch("Test"))
+            .expectNext(testAnimeSimpleResponse)
+            .verifyComplete();
+    }
+
     @Test
     void searchAnimeAcrossAllPages_WithEmptyQuery_ShouldThrowException() {
         // Act & Assert
@@ -159,6 +201,7 @@ class JikanServiceTest {
     @Test
     void getAnimeFullInfoByTitle_WithValidTitle_ShouldReturnFullInfoList() {
         // Arrange
+        when(catalogMirrorService.jikanFullInfo(anyString(), anyInt())).thenReturn(Mono.empty());
         when(jikanWebClient.get()).thenReturn(requestHeadersUriSpec);
         when(requestHeadersUriSpec.uri(any(Function.class))).thenReturn(requestHeadersSpec);
         when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
@@ -188,6 +231,7 @@ class JikanServiceTest {
     @Test
     void getAnimeFullInfoByTitle_WithNoResults_ShouldThrowException() {
         // Arrange
+        when(catalogMirrorService.jikanFullInfo(anyString(), anyInt())).thenReturn(Mono.empty());
         JikanResponse emptyResponse = new JikanResponse();
         emptyResponse.setData(List.of());
 
@@ -212,12 +256,9 @@ class JikanServiceTest {
         // В реальном приложении здесь можно было бы проверить состояние кэша
     }
 
-    @Test
-    void evictPaginatedCache_ShouldClearSpecificCache() {
-        // Act
-        jikanService.evictPaginatedCache(1, 10);
-
-        // Assert - проверяем, что метод выполнился без ошибок
-        // В реальном приложении здесь можно было бы проверить состояние кэша
+    private static ChidoriCacheProperties localSingleFlight() {
+        ChidoriCacheProperties properties = new ChidoriCacheProperties();
+        properties.getSingleFlight().setDistributed(false);
+        return properties;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package as.tobi.chidorispring;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import as.tobi.chidorispring.config.UpstreamProperties;
+import as.tobi.chidorispring.utils.PagedSearch;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class PagedSearchTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Test
+    void fetchAll_WithManyPages_ShouldMergeInPageOrder() {
+        // Arrange - later pages answer first
+        UpstreamProperties.Search settings = new UpstreamProperties.Search(10, 4);
+
+        // Act & Assert
+        StepVerifier.create(PagedSearch.fetchAll(settings, PAGE_SIZE, page -> page(page, 4),
+                        List::copyOf, first -> 4 * PAGE_SIZE))
+            .expectNext(IntStream.rangeClosed(1, 4 * PAGE_SIZE).boxed().toList())
+            .verifyComplete();
+        assertEquals(4, requests.get());
+    }
+
+    @Test
+    void fetchAll_AboveMaxPages_ShouldStopAtBudget() {
+        // Arrange
+        UpstreamProperties.Search settings = new UpstreamProperties.Search(2, 4);
+
+        // Act & Assert
+        StepVerifier.create(PagedSearch.fetchAll(settings, PAGE_SIZE, page -> page(page, 4),
+                        List::copyOf, first -> 100))
+            .expectNextMatches(results -> results.size() == 2 * PAGE_SIZE)
+            .verifyComplete();
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void fetchAll_WithPartialFirstPage_ShouldNotFetchMore() {
+        // Arrange
+        UpstreamProperties.Search settings = new UpstreamProperties.Search(10, 4);
+
+        // Act & Assert
+        StepVerifier.create(PagedSearch.fetchAll(settings, PAGE_SIZE,
+                        page -> {
+                            requests.incrementAndGet();
+                            return Mono.just(List.of(1, 2));
+                        },
+                        List::copyOf, first -> 0))
+            .expectNext(List.of(1, 2))
+            .verifyComplete();
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void stream_WhenCancelledAfterFirstPage_ShouldNotFetchMorePages() {
+        // Arrange
+        UpstreamProperties.Search settings = new UpstreamProperties.Search(10, 4);
+
+        // Act & Assert
+        StepVerifier.create(PagedSearch.stream(settings, PAGE_SIZE, page -> page(page, 4),
+                        List::copyOf, first -> 4 * PAGE_SIZE).take(PAGE_SIZE))
+            .expectNext(1, 2, 3)
+            .verifyComplete();
+        assertEquals(1, requests.get());
+    }
+
+    // page n holds the next PAGE_SIZE numbers, higher pages respond faster
+    private Mono<List<Integer>> page(int page, int pages) {
+        requests.incrementAndGet();
+        List<Integer> items = IntStream.range((page - 1) * PAGE_SIZE + 1, page * PAGE_SIZE + 1).boxed().toList();
+        return Mono.just(items).delayElement(Duration.ofMillis(10L * (pages - page)));
+    }
+}
@@ -0,0 +1,101 @@
+package as.tobi.chidorispring;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import as.tobi.chidorispring.repository.CharacterPostRepository;
+import as.tobi.chidorispring.service.PostFeatureIndex;
+import as.tobi.chidorispring.service.PostFeatureIndex.ScoredPost;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PostFeatureIndexTest {
+
+    @Mock
+    private CharacterPostRepository postRepository;
+
+    @InjectMocks
+    private PostFeatureIndex postFeatureIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(postRepository.count()).thenReturn(6L);
+        when(postRepository.findLatestUpdatedAt()).thenReturn(LocalDateTime.now());
+        when(postRepository.findAllFeatureRows()).thenReturn(List.of(
+            post(1L, "Naruto", "Naruto Uzumaki"),
+            post(2L, "Naruto", "Sasuke Uchiha"),
+            post(3L, "One Piece", "Monkey D. Luffy"),
+            post(4L, "Cowboy Bebop", "Spike Spiegel"),
+            post(5L, "Clannad", "Nagisa Furukawa"),
+            post(6L, "Cowboy Bebop", "Faye Valentine")));
+        when(postRepository.findAllGenreRows()).thenReturn(List.of(
+            genre(1L, "Action"), genre(1L, "Adventure"),
+            genre(2L, "Action"), genre(2L, "Adventure"),
+            genre(3L, "Action"), genre(3L, "Adventure"),
+            genre(4L, "Action"), genre(4L, "Sci-Fi"),
+            genre(5L, "Drama"),
+            genre(6L, "Action"), genre(6L, "Sci-Fi")));
+        postFeatureIndex.refresh();
+    }
+
+    @Test
+    void recommend_ShouldRankSameAnimeFirstAndSkipUnrelatedAndSeenPosts() {
+        // Act
+        List<ScoredPost> ranked = postFeatureIndex.recommend(Map.of(1L, 1.0f), 10);
+
+        // Assert
+        assertEquals(List.of(2L, 3L, 6L, 4L), ranked.stream().map(ScoredPost::postId).toList());
+        assertTrue(ranked.get(0).score() > ranked.get(1).score());
+        assertTrue(ranked.get(0).score() <= 1.0f);
+    }
+
+    @Test
+    void recommend_ShouldFollowTheMoreHeavilyWeightedInteraction() {
+        // Act
+        List<ScoredPost> towardsBebop = postFeatureIndex.recommend(Map.of(1L, 1.0f, 4L, 3.0f), 1);
+        List<ScoredPost> towardsNaruto = postFeatureIndex.recommend(Map.of(1L, 3.0f, 4L, 1.0f), 1);
+
+        // Assert
+        assertEquals(6L, towardsBebop.get(0).postId());
+        assertEquals(2L, towardsNaruto.get(0).postId());
+        assertEquals(1, postFeatureIndex.countMatches(6L, List.of("a:cowboy bebop", "g:drama")));
+    }
+
+    private CharacterPostRepository.FeatureRow post(Long id, String anime, String characterName) {
+        return new CharacterPostRepository.FeatureRow() {
+            public Long getId() {
+                return id;
+            }
+
+            public String getAnime() {
+                return anime;
+            }
+
+            public String getCharacterName() {
+                return characterName;
+            }
+        };
+    }
+
+    private CharacterPostRepository.GenreRow genre(Long postId, String genre) {
+        return new CharacterPostRepository.GenreRow() {
+            public Long getPostId() {
+                return postId;
+            }
+
+            public String getGenre() {
+                return genre;
+            }
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package as.tobi.chidorispring;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import as.tobi.chidorispring.dto.characterPost.PostViewerState;
+import as.tobi.chidorispring.repository.LikeRepository;
+import as.tobi.chidorispring.repository.UserFavoritePostRepository;
+import as.tobi.chidorispring.service.PostViewerStateService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class PostViewerStateServiceTest {
+
+    @Mock
+    private LikeRepository likeRepository;
+
+    @Mock
+    private UserFavoritePostRepository favoritePostRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @InjectMocks
+    private PostViewerStateService viewerStateService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(viewerStateService, "ttlMinutes", 30L);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(valueOperations.get("viewer:version:1")).thenReturn("4");
+    }
+
+    @Test
+    void resolve_ShouldLoadOnlyThePagesMissingPostsUnderTheVersionItRead() {
+        // Arrange
+        when(hashOperations.multiGet("viewer:state:1", List.of("10", "11", "12")))
+            .thenReturn(Arrays.asList("3", null, "0"));
+        when(likeRepository.findLikedPostIds(1L, List.of(11L))).thenReturn(List.of(11L));
+        when(favoritePostRepository.findFavoritedPostIds(1L, List.of(11L))).thenReturn(List.of());
+
+        // Act
+        PostViewerState state = viewerStateService.resolve(List.of(10L, 11L, 12L), 1L);
+
+        // Assert
+        assertEquals(Set.of(10L, 11L), state.getLikedPostIds());
+        assertEquals(Set.of(10L), state.getFavoritedPostIds());
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("viewer:state:1", "viewer:version:1")),
+            eq("4"), eq("1800"), eq("11"), eq("1"));
+    }
+
+    @Test
+    void resolve_WithAllPostsCached_ShouldNotQueryDatabase() {
+        // Arrange
+        when(hashOperations.multiGet("viewer:state:1", List.of("10", "11"))).thenReturn(List.of("2", "0"));
+
+        // Act
+        PostViewerState state = viewerStateService.resolve(List.of(10L, 11L), 1L);
+
+        // Assert
+        assertEquals(Set.of(), state.getLikedPostIds());
+        assertEquals(Set.of(10L), state.getFavoritedPostIds());
+        verify(likeRepository, never()).findLikedPostIds(anyLong(), anyList());
+    }
+}
@@ -0,0 +1,145 @@
+package as.tobi.chidorispring;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import as.tobi.chidorispring.cache.ChidoriCacheProperties;
+import as.tobi.chidorispring.cache.ReactiveCache;
+import as.tobi.chidorispring.cache.SingleFlight;
+import as.tobi.chidorispring.cache.StaleMarker;
+import as.tobi.chidorispring.cache.TwoLevelCacheManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+class ReactiveCacheTest {
+
+    private CacheManager cacheManager;
+    private ReactiveCache reactiveCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager();
+        reactiveCache = new ReactiveCache(cacheManager, new SingleFlight(cacheManager, null, localSingleFlight()));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_OnMiss_ShouldCacheResolvedValue() {
+        // Act
+        StepVerifier.create(load(List.of("Naruto"))).expectNext(List.of("Naruto")).verifyComplete();
+        StepVerifier.create(load(List.of("Bleach"))).expectNext(List.of("Naruto")).verifyComplete();
+
+        // Assert
+        assertEquals(1, loads.get());
+        assertEquals(List.of("Naruto"), cacheManager.getCache("anime").get("key").get());
+    }
+
+    @Test
+    void get_WhenPredicateRejectsValue_ShouldNotCache() {
+        // Act
+        StepVerifier.create(load(List.of())).expectNext(List.of()).verifyComplete();
+        StepVerifier.create(load(List.of())).expectNext(List.of()).verifyComplete();
+
+        // Assert
+        assertEquals(2, loads.get());
+        assertNull(cacheManager.getCache("anime").get("key"));
+    }
+
+    @Test
+    void get_WithCachedValueOfOtherType_ShouldLoad() {
+        // Arrange
+        cacheManager.getCache("anime").put("key", "stale");
+
+        // Act & Assert
+        StepVerifier.create(load(List.of("Naruto"))).expectNext(List.of("Naruto")).verifyComplete();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_WhenLoaderFails_ShouldServeStaleCopy() {
+        // Arrange
+        cacheManager = new ConcurrentMapCacheManager("anime", "anime" + ChidoriCacheProperties.STALE_SUFFIX);
+        reactiveCache = new ReactiveCache(cacheManager, new SingleFlight(cacheManager, null, localSingleFlight()));
+        StepVerifier.create(load(List.of("Naruto"))).expectNextCount(1).verifyComplete();
+        cacheManager.getCache("anime").clear();
+
+        StaleMarker staleMarker = new StaleMarker();
+
+        // Act & Assert
+        StepVerifier.create(reactiveCache.get("anime", "key", List.class,
+                    () -> Mono.error(new IllegalStateException("upstream down")),
+                    results -> true)
+                .contextWrite(Context.of(StaleMarker.CONTEXT_KEY, staleMarker)))
+            .expectNext(List.of("Naruto"))
+            .verifyComplete();
+        assertTrue(staleMarker.isStale());
+    }
+
+    @Test
+    void get_PastSoftTtl_ShouldServeCachedValueAndRefreshInBackground() throws InterruptedException {
+        // Arrange
+        cacheManager = new ConcurrentMapCacheManager("anime", "anime" + ChidoriCacheProperties.FRESH_SUFFIX);
+        reactiveCache = new ReactiveCache(cacheManager, new SingleFlight(cacheManager, null, localSingleFlight()));
+        cacheManager.getCache("anime").put("key", List.of("Naruto"));
+
+        // Act & Assert
+        StepVerifier.create(load(List.of("Boruto"))).expectNext(List.of("Naruto")).verifyComplete();
+        for (int i = 0; i < 50 && cacheManager.getCache("anime" + ChidoriCacheProperties.FRESH_SUFFIX).get("key") == null; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(List.of("Boruto"), cacheManager.getCache("anime").get("key").get());
+
+        // fresh again, no further reload
+        StepVerifier.create(load(List.of("Himawari"))).expectNext(List.of("Boruto")).verifyComplete();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void isDueWithin_ShouldCompareFreshMarkerTtlWithWindow() {
+        // Arrange
+        TwoLevelCacheManager twoLevelCacheManager = mock(TwoLevelCacheManager.class);
+        String freshName = "anime" + ChidoriCacheProperties.FRESH_SUFFIX;
+        when(twoLevelCacheManager.getCacheNames()).thenReturn(List.of("anime", freshName));
+        when(twoLevelCacheManager.getCache(freshName)).thenReturn(new ConcurrentMapCache(freshName));
+        when(twoLevelCacheManager.timeToLive(freshName, "fresh")).thenReturn(Optional.of(Duration.ofHours(2)));
+        when(twoLevelCacheManager.timeToLive(freshName, "expiring")).thenReturn(Optional.of(Duration.ofMinutes(10)));
+        when(twoLevelCacheManager.timeToLive(freshName, "missing")).thenReturn(Optional.empty());
+        reactiveCache = new ReactiveCache(twoLevelCacheManager, new SingleFlight(twoLevelCacheManager, null, localSingleFlight()));
+
+        // Act & Assert
+        assertFalse(reactiveCache.isDueWithin("anime", "fresh", Duration.ofMinutes(30)));
+        assertTrue(reactiveCache.isDueWithin("anime", "expiring", Duration.ofMinutes(30)));
+        assertTrue(reactiveCache.isDueWithin("anime", "missing", Duration.ofMinutes(30)));
+    }
+
+    private Mono<List<String>> load(List<String> value) {
+        return reactiveCache.get("anime", "key", List.class,
+                () -> Mono.fromSupplier(() -> {
+                    loads.incrementAndGet();
+                    return value;
+                }),
+                results -> !results.isEmpty());
+    }
+
+    private static ChidoriCacheProperties localSingleFlight() {
+        ChidoriCacheProperties properties = new ChidoriCacheProperties();
+        properties.getSingleFlight().setDistributed(false);
+        return properties;
+    }
+}
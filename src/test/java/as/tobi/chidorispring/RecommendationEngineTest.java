@@ -0,0 +1,253 @@
+package as.tobi.chidorispring;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import as.tobi.chidorispring.entity.CharacterPost;
+import as.tobi.chidorispring.entity.UserRecommendations;
+import as.tobi.chidorispring.enums.RecommendationStatus;
+import as.tobi.chidorispring.exceptions.InternalViolationException;
+import as.tobi.chidorispring.exceptions.InternalViolationType;
+import as.tobi.chidorispring.repository.CharacterPostRepository;
+import as.tobi.chidorispring.repository.UserRecommendationsRepository;
+import as.tobi.chidorispring.repository.UserRepository;
+import as.tobi.chidorispring.service.RecommendationEngine;
+import as.tobi.chidorispring.service.RecommendationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationEngineTest {
+
+    @Mock
+    private UserRecommendationsRepository recommendationsRepository;
+
+    @Mock
+    private RecommendationService recommendationService;
+
+    @Mock
+    private CharacterPostRepository postRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private RecommendationEngine recommendationEngine;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(recommendationEngine, "workerCount", 1);
+        ReflectionTestUtils.setField(recommendationEngine, "queueCapacity", 10);
+        ReflectionTestUtils.setField(recommendationEngine, "maxResults", 50);
+        ReflectionTestUtils.setField(recommendationEngine, "minInterval", Duration.ofMinutes(1));
+        ReflectionTestUtils.invokeMethod(recommendationEngine, "startWorkers");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(recommendationEngine, "stopWorkers");
+    }
+
+    @Test
+    void getRecommendations_WithStoredResults_ShouldKeepStoredOrderAndSkipDeletedPosts() {
+        // Arrange
+        when(recommendationsRepository.findById(7L)).thenReturn(Optional.of(UserRecommendations.builder()
+            .userId(7L)
+            .status(RecommendationStatus.READY)
+            .postIds(new ArrayList<>(List.of(3L, 9L, 1L)))
+            .computedAt(LocalDateTime.now())
+            .build()));
+        when(postRepository.findAllWithAuthorAndGenresByIdIn(List.of(3L, 9L, 1L))).thenReturn(List.of(post(1L), post(3L)));
+
+        // Act
+        Optional<List<CharacterPost>> result = recommendationEngine.getRecommendations(7L);
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(List.of(3L, 1L), result.get().stream().map(CharacterPost::getId).toList());
+    }
+
+    @Test
+    void getRecommendations_WithoutResults_ShouldComputeThemInTheBackground() {
+        // Arrange
+        UserRecommendations stored = UserRecommendations.builder()
+            .userId(7L)
+            .status(RecommendationStatus.PENDING)
+            .requestedAt(LocalDateTime.now().minusSeconds(1))
+            .build();
+        when(recommendationsRepository.findById(7L)).thenReturn(Optional.empty(), Optional.of(stored));
+        when(userRepository.existsById(7L)).thenReturn(true);
+        when(recommendationsRepository.insertIfAbsent(eq(7L), any(LocalDateTime.class))).thenReturn(1);
+        when(recommendationsRepository.claim(eq(7L), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            stored.setStatus(RecommendationStatus.RUNNING);
+            stored.setStartedAt(invocation.getArgument(1));
+            return 1;
+        });
+        when(recommendationsRepository.findByIdForUpdate(7L)).thenReturn(Optional.of(stored));
+        when(recommendationService.getRecommendedPostIds(7L, 50)).thenReturn(List.of(3L, 1L));
+
+        // Act
+        Optional<List<CharacterPost>> result = recommendationEngine.getRecommendations(7L);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(recommendationsRepository, timeout(1000)).save(stored);
+        assertEquals(RecommendationStatus.READY, stored.getStatus());
+        assertEquals(List.of(3L, 1L), stored.getPostIds());
+    }
+
+    @Test
+    void getRecommendations_ForUnknownUser_ShouldNotCreateAJob() {
+        // Arrange
+        when(recommendationsRepository.findById(7L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(7L)).thenReturn(false);
+
+        // Act & Assert
+        InternalViolationException exception = assertThrows(InternalViolationException.class,
+            () -> recommendationEngine.getRecommendations(7L));
+        assertEquals(InternalViolationType.USER_NOT_FOUND, exception.getType());
+        verify(recommendationsRepository, never()).insertIfAbsent(anyLong(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void requestRefresh_WhileRunning_ShouldOnlyNoteTheRequest() {
+        // Arrange
+        UserRecommendations running = UserRecommendations.builder()
+            .userId(7L)
+            .status(RecommendationStatus.RUNNING)
+            .startedAt(LocalDateTime.now().minusSeconds(1))
+            .build();
+        when(userRepository.existsById(7L)).thenReturn(true);
+        when(recommendationsRepository.findById(7L)).thenReturn(Optional.of(running));
+
+        // Act
+        recommendationEngine.requestRefresh(7L);
+
+        // Assert
+        verify(recommendationsRepository).requestWhileRunning(eq(7L), any(LocalDateTime.class));
+        verify(recommendationsRepository, never()).save(any(UserRecommendations.class));
+        verify(recommendationsRepository, never()).claim(anyLong(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void requestRefresh_WithinMinIntervalOfTheLastRun_ShouldLeaveTheJobToTheSweep() {
+        // Arrange
+        UserRecommendations requeued = UserRecommendations.builder()
+            .userId(7L)
+            .status(RecommendationStatus.PENDING)
+            .startedAt(LocalDateTime.now().minusSeconds(10))
+            .computedAt(LocalDateTime.now().minusSeconds(5))
+            .build();
+        when(userRepository.existsById(7L)).thenReturn(true);
+        when(recommendationsRepository.requeue(eq(7L), any(LocalDateTime.class))).thenReturn(1);
+        when(recommendationsRepository.findById(7L)).thenReturn(Optional.of(requeued));
+
+        // Act
+        recommendationEngine.requestRefresh(7L);
+
+        // Assert
+        verify(recommendationsRepository, after(200).never()).claim(anyLong(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void compute_WhenRequestedWhileRunning_ShouldStoreResultsAndStayPending() {
+        // Arrange
+        UserRecommendations stored = UserRecommendations.builder()
+            .userId(7L)
+            .status(RecommendationStatus.PENDING)
+            .build();
+        when(recommendationsRepository.claim(eq(7L), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            LocalDateTime startedAt = invocation.getArgument(1);
+            stored.setStatus(RecommendationStatus.RUNNING);
+            stored.setStartedAt(startedAt);
+            stored.setRequestedAt(startedAt.plusNanos(1_000));
+            return 1;
+        });
+        when(recommendationsRepository.findByIdForUpdate(7L)).thenReturn(Optional.of(stored));
+        when(recommendationService.getRecommendedPostIds(7L, 50)).thenReturn(List.of(4L));
+
+        // Act
+        ReflectionTestUtils.invokeMethod(recommendationEngine, "compute", 7L);
+
+        // Assert
+        assertEquals(RecommendationStatus.PENDING, stored.getStatus());
+        assertEquals(List.of(4L), stored.getPostIds());
+        verify(recommendationsRepository).save(stored);
+    }
+
+    @Test
+    void compute_AfterTheJobWasTakenOver_ShouldNotOverwriteTheNewerRun() {
+        // Arrange
+        UserRecommendations takenOver = UserRecommendations.builder()
+            .userId(7L)
+            .status(RecommendationStatus.RUNNING)
+            .startedAt(LocalDateTime.now().plusMinutes(1))
+            .build();
+        when(recommendationsRepository.claim(eq(7L), any(LocalDateTime.class))).thenReturn(1);
+        when(recommendationsRepository.findByIdForUpdate(7L)).thenReturn(Optional.of(takenOver));
+        when(recommendationService.getRecommendedPostIds(7L, 50)).thenReturn(List.of(4L));
+
+        // Act
+        ReflectionTestUtils.invokeMethod(recommendationEngine, "compute", 7L);
+
+        // Assert
+        assertEquals(RecommendationStatus.RUNNING, takenOver.getStatus());
+        assertTrue(takenOver.getPostIds().isEmpty());
+        verify(recommendationsRepository, never()).save(any(UserRecommendations.class));
+    }
+
+    @Test
+    void compute_WhenItFails_ShouldStoreOnlyTheFailureKind() {
+        // Arrange
+        UserRecommendations stored = UserRecommendations.builder()
+            .userId(7L)
+            .status(RecommendationStatus.PENDING)
+            .build();
+        when(recommendationsRepository.claim(eq(7L), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            stored.setStatus(RecommendationStatus.RUNNING);
+            stored.setStartedAt(invocation.getArgument(1));
+            return 1;
+        });
+        when(recommendationsRepository.findByIdForUpdate(7L)).thenReturn(Optional.of(stored));
+        when(recommendationService.getRecommendedPostIds(7L, 50))
+            .thenThrow(new IllegalStateException("connection to db-internal:5432 refused"));
+
+        // Act
+        ReflectionTestUtils.invokeMethod(recommendationEngine, "compute", 7L);
+
+        // Assert
+        assertEquals(RecommendationStatus.FAILED, stored.getStatus());
+        assertEquals("IllegalStateException", stored.getError());
+    }
+
+    private CharacterPost post(Long id) {
+        CharacterPost post = new CharacterPost();
+        post.setId(id);
+        return post;
+    }
+}
@@ -0,0 +1,81 @@
+package as.tobi.chidorispring;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import as.tobi.chidorispring.repository.CharacterPostRepository;
+import as.tobi.chidorispring.repository.LikeRepository;
+import as.tobi.chidorispring.repository.UserFavoritePostRepository;
+import as.tobi.chidorispring.service.ChatGptService;
+import as.tobi.chidorispring.service.PostFeatureIndex;
+import as.tobi.chidorispring.service.PostFeatureIndex.ScoredPost;
+import as.tobi.chidorispring.service.RecommendationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationServiceTest {
+
+    @Mock
+    private CharacterPostRepository characterPostRepository;
+
+    @Mock
+    private LikeRepository likeRepository;
+
+    @Mock
+    private UserFavoritePostRepository favoritePostRepository;
+
+    @Mock
+    private PostFeatureIndex postFeatureIndex;
+
+    @Mock
+    private ChatGptService chatGptService;
+
+    @InjectMocks
+    private RecommendationService recommendationService;
+
+    @Test
+    void getRecommendedPostIds_ShouldRankByWeightedInteractions() {
+        // Arrange
+        when(favoritePostRepository.findAllFavoritedPostIds(1L)).thenReturn(List.of(5L));
+        when(likeRepository.findAllLikedPostIds(1L)).thenReturn(List.of(5L, 6L));
+        when(characterPostRepository.findPostIdsByUserId(1L)).thenReturn(List.of());
+        when(postFeatureIndex.isReady()).thenReturn(true);
+        when(postFeatureIndex.recommend(Map.of(5L, 3.0f, 6L, 1.0f), 10))
+            .thenReturn(List.of(new ScoredPost(8L, 0.9f), new ScoredPost(2L, 0.4f)));
+
+        // Act
+        List<Long> result = recommendationService.getRecommendedPostIds(1L, 10);
+
+        // Assert
+        assertEquals(List.of(8L, 2L), result);
+    }
+
+    @Test
+    void getRecommendedPostIds_WithoutSimilarPosts_ShouldFallBackToPopularPostsTheUserHasNotSeen() {
+        // Arrange
+        when(favoritePostRepository.findAllFavoritedPostIds(1L)).thenReturn(List.of());
+        when(likeRepository.findAllLikedPostIds(1L)).thenReturn(List.of(5L));
+        when(characterPostRepository.findPostIdsByUserId(1L)).thenReturn(List.of(6L));
+        when(postFeatureIndex.isReady()).thenReturn(true);
+        when(postFeatureIndex.recommend(anyMap(), eq(10))).thenReturn(List.of());
+        when(characterPostRepository.findTopPopularPostIdsExcluding(Set.of(5L, 6L), PageRequest.of(0, 10)))
+            .thenReturn(List.of(9L, 3L));
+
+        // Act
+        List<Long> result = recommendationService.getRecommendedPostIds(1L, 10);
+
+        // Assert
+        assertEquals(List.of(9L, 3L), result);
+    }
+}
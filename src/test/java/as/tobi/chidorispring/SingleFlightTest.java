@@ -0,0 +1,73 @@
+package as.tobi.chidorispring;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import as.tobi.chidorispring.cache.ChidoriCacheProperties;
+import as.tobi.chidorispring.cache.SingleFlight;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class SingleFlightTest {
+
+    private SingleFlight singleFlight;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        ChidoriCacheProperties properties = new ChidoriCacheProperties();
+        properties.getSingleFlight().setDistributed(false);
+        singleFlight = new SingleFlight(null, null, properties);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void execute_WithConcurrentCallers_ShouldLoadOnce() {
+        // Arrange
+        Mono<String> first = singleFlight.execute("animeCache", List.of("page", 1), this::slowLoad);
+        Mono<String> second = singleFlight.execute("animeCache", List.of("page", 1), this::slowLoad);
+
+        // Act & Assert
+        StepVerifier.create(Mono.zip(first, second))
+            .assertNext(results -> {
+                assertEquals("naruto", results.getT1());
+                assertEquals("naruto", results.getT2());
+            })
+            .verifyComplete();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void execute_AfterCompletion_ShouldLoadAgain() {
+        // Act
+        singleFlight.execute("animeCache", List.of("page", 1), this::slowLoad).block();
+        singleFlight.execute("animeCache", List.of("page", 1), this::slowLoad).block();
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void execute_WithDifferentKeys_ShouldLoadEach() {
+        // Act
+        Mono.zip(
+            singleFlight.execute("animeCache", List.of("page", 1), this::slowLoad),
+            singleFlight.execute("animeCache", List.of("page", 2), this::slowLoad)
+        ).block();
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    private Mono<String> slowLoad() {
+        return Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return "naruto";
+        }).delayElement(Duration.ofMillis(50));
+    }
+}
@@ -0,0 +1,175 @@
+package as.tobi.chidorispring;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import as.tobi.chidorispring.repository.CharacterPostRepository;
+import as.tobi.chidorispring.repository.UserRelationshipRepository;
+import as.tobi.chidorispring.service.TimelineService;
+import as.tobi.chidorispring.utils.PostCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class TimelineServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    @Mock
+    private CharacterPostRepository postRepository;
+
+    @Mock
+    private UserRelationshipRepository relationshipRepository;
+
+    @InjectMocks
+    private TimelineService timelineService;
+
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(timelineService, "maxLength", 800);
+        ReflectionTestUtils.setField(timelineService, "celebrityFollowerThreshold", 10000L);
+        now = LocalDateTime.of(2025, 5, 1, 12, 0);
+    }
+
+    @Test
+    void readTimeline_ShouldMergePushedAndCelebrityPostsNewestFirst() {
+        // Arrange
+        Set<ZSetOperations.TypedTuple<String>> pushed = new LinkedHashSet<>();
+        pushed.add(ZSetOperations.TypedTuple.of("3", score(now)));
+        pushed.add(ZSetOperations.TypedTuple.of("1", score(now.minusHours(2))));
+
+        when(redisTemplate.hasKey("timeline:built:1")).thenReturn(true);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(zSetOperations.reverseRangeByScoreWithScores(eq("timeline:1"), anyDouble(), anyDouble(), anyLong(), anyLong()))
+            .thenReturn(pushed);
+        when(setOperations.members("timeline:celebrities")).thenReturn(Set.of("7"));
+        when(relationshipRepository.findFollowingIdsAmong(1L, List.of(7L))).thenReturn(List.of(7L));
+        when(postRepository.findFeedPositionsByUserIds(eq(List.of(7L)), any(), any(), eq(Limit.of(10))))
+            .thenReturn(List.of(new PostCursor(now.minusHours(1), 2L)));
+
+        // Act
+        List<Long> result = timelineService.readTimeline(1L, null, 10);
+
+        // Assert
+        assertEquals(List.of(3L, 2L, 1L), result);
+    }
+
+    @Test
+    void readTimeline_ShouldKeepPostsWithinTheCursorsMillisecond() {
+        // Arrange
+        LocalDateTime cursorTime = now.plusNanos(300_000);
+        Set<ZSetOperations.TypedTuple<String>> pushed = new LinkedHashSet<>();
+        pushed.add(ZSetOperations.TypedTuple.of("9", score(now) + 300));
+        pushed.add(ZSetOperations.TypedTuple.of("8", score(now) + 100));
+
+        when(redisTemplate.hasKey("timeline:built:1")).thenReturn(true);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(zSetOperations.reverseRangeByScoreWithScores(eq("timeline:1"), anyDouble(), eq(score(now) + 300), anyLong(), anyLong()))
+            .thenReturn(pushed);
+
+        // Act
+        List<Long> result = timelineService.readTimeline(1L, new PostCursor(cursorTime, 9L), 10);
+
+        // Assert
+        assertEquals(List.of(8L), result);
+    }
+
+    @Test
+    void onUnfollow_WhenAuthorDropsUnderThreshold_ShouldPushTheirPostsBeforeLeavingCelebrities() {
+        // Arrange
+        ReflectionTestUtils.setField(timelineService, "celebrityFollowerThreshold", 1L);
+        when(postRepository.findFeedPositionsByUserIds(eq(List.of(7L)), any(), any(), eq(Limit.of(800))))
+            .thenReturn(List.of(new PostCursor(now, 2L)));
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(relationshipRepository.countByFollowingId(7L)).thenReturn(1L);
+        when(setOperations.isMember("timeline:celebrities", "7")).thenReturn(true);
+        when(relationshipRepository.findFollowerIdsByFollowingId(7L)).thenReturn(List.of(3L));
+
+        // Act
+        timelineService.onUnfollow(1L, 7L);
+
+        // Assert
+        InOrder inOrder = inOrder(redisTemplate, setOperations);
+        inOrder.verify(redisTemplate).executePipelined(any(RedisCallback.class));
+        inOrder.verify(setOperations).remove("timeline:celebrities", "7");
+    }
+
+    @Test
+    void rebuildTimeline_ShouldBuildAsideAndSwapInCarryingOverRecentFanOut() {
+        // Arrange
+        when(postRepository.findFollowedFeedPositions(eq(1L), any(), any(), eq(Limit.of(800))))
+            .thenReturn(List.of(new PostCursor(now, 5L)));
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+
+        // Act
+        timelineService.rebuildTimeline(1L);
+
+        // Assert
+        ArgumentCaptor<String> buildKey = ArgumentCaptor.forClass(String.class);
+        verify(zSetOperations).add(buildKey.capture(), anySet());
+        assertTrue(buildKey.getValue().startsWith("timeline:rebuild:1:"));
+        verify(redisTemplate).execute(any(RedisScript.class),
+            eq(List.of(buildKey.getValue(), "timeline:1", "timeline:built:1")), anyString(), eq("800"));
+        verify(redisTemplate, never()).delete("timeline:1");
+    }
+
+    @Test
+    void readTimeline_WithRedisDown_ShouldFallBackToDatabase() {
+        // Arrange
+        when(redisTemplate.hasKey(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        when(postRepository.findFollowedFeedPositions(eq(1L), any(), any(), eq(Limit.of(10))))
+            .thenReturn(List.of(new PostCursor(now, 5L), new PostCursor(now.minusMinutes(1), 4L)));
+
+        // Act
+        List<Long> result = timelineService.readTimeline(1L, null, 10);
+
+        // Assert
+        assertEquals(List.of(5L, 4L), result);
+    }
+
+    private double score(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() * 1_000L;
+    }
+}
@@ -0,0 +1,149 @@
+package as.tobi.chidorispring;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import as.tobi.chidorispring.cache.ChidoriCacheProperties;
+import as.tobi.chidorispring.cache.TwoLevelCache;
+import as.tobi.chidorispring.cache.TwoLevelCacheManager;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+class TwoLevelCacheTest {
+
+    private ConcurrentMapCache remote;
+    private TwoLevelCache cache;
+    private List<String> published;
+
+    @BeforeEach
+    void setUp() {
+        remote = new ConcurrentMapCache("animeCache");
+        published = new ArrayList<>();
+        cache = new TwoLevelCache("animeCache", remote, Caffeine.newBuilder().maximumSize(10).build(),
+            (cacheName, key) -> published.add(cacheName + ":" + key));
+    }
+
+    @Test
+    void get_AfterRemoteHit_ShouldServeFromLocalCopy() {
+        // Arrange
+        remote.put("page-1", "value");
+
+        // Act
+        cache.get("page-1");
+        remote.evict("page-1");
+        String result = cache.get("page-1", String.class);
+
+        // Assert
+        assertEquals("value", result);
+    }
+
+    @Test
+    void getAll_ShouldReadLocalMissesFromRemoteInOneCallAndKeepKeyOrder() {
+        // Arrange
+        List<List<?>> remoteCalls = new ArrayList<>();
+        cache = new TwoLevelCache("post", remote, Caffeine.newBuilder().maximumSize(10).build(),
+            (cacheName, key) -> published.add(cacheName + ":" + key),
+            keys -> {
+                remoteCalls.add(keys);
+                return keys.stream().map(remote::get).toList();
+            });
+        cache.put(1L, "one");
+        remote.put(2L, "two");
+
+        // Act
+        List<String> result = cache.getAll(List.of(1L, 3L, 2L)).stream()
+            .map(value -> value != null ? (String) value.get() : null)
+            .toList();
+
+        // Assert
+        assertEquals(Arrays.asList("one", null, "two"), result);
+        assertEquals(List.of(List.of(3L, 2L)), remoteCalls);
+    }
+
+    @Test
+    void getAll_FromRedis_ShouldTreatUnreadableValueAsMissAndKeepCachedNull() {
+        // Arrange
+        RedisSerializer<Object> serializer = new RedisSerializer<>() {
+            @Override
+            public byte[] serialize(Object value) {
+                return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public Object deserialize(byte[] bytes) {
+                String value = new String(bytes, StandardCharsets.UTF_8);
+                return switch (value) {
+                    case "unreadable" -> null;
+                    case "cached-null" -> NullValue.INSTANCE;
+                    default -> value;
+                };
+            }
+        };
+        RedisCache redisCache = mock(RedisCache.class);
+        when(redisCache.getName()).thenReturn("post");
+        when(redisCache.getCacheConfiguration()).thenReturn(RedisCacheConfiguration.defaultCacheConfig()
+            .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer)));
+        CacheManager remoteCacheManager = mock(CacheManager.class);
+        when(remoteCacheManager.getCache("post")).thenReturn(redisCache);
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        doReturn(List.of(serializer.serialize("two"), serializer.serialize("unreadable"), serializer.serialize("cached-null")))
+            .when(redisTemplate).execute(any(RedisCallback.class));
+        TwoLevelCache cache = (TwoLevelCache) new TwoLevelCacheManager(remoteCacheManager, new ChidoriCacheProperties(), redisTemplate)
+            .getCache("post");
+
+        // Act
+        List<Cache.ValueWrapper> result = cache.getAll(List.of(2L, 3L, 4L));
+
+        // Assert
+        assertEquals("two", result.get(0).get());
+        assertNull(result.get(1));
+        assertNull(result.get(2).get());
+    }
+
+    @Test
+    void evict_ShouldDropBothLevelsAndPublish() {
+        // Arrange
+        cache.put("page-1", "value");
+
+        // Act
+        cache.evict("page-1");
+
+        // Assert
+        assertNull(cache.get("page-1"));
+        assertNull(remote.get("page-1"));
+        assertEquals(List.of("animeCache:page-1", "animeCache:page-1"), published);
+    }
+
+    @Test
+    void clear_ShouldPublishWholeCacheInvalidation() {
+        // Arrange
+        cache.put("page-1", "value");
+
+        // Act
+        cache.clear();
+
+        // Assert
+        assertNull(cache.get("page-1"));
+        assertEquals("animeCache:null", published.get(published.size() - 1));
+    }
+}
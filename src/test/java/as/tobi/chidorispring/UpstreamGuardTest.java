@@ -0,0 +1,94 @@
+package as.tobi.chidorispring;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import as.tobi.chidorispring.client.UpstreamGuard;
+import as.tobi.chidorispring.config.UpstreamProperties;
+import as.tobi.chidorispring.exceptions.AnimeViolationException;
+import as.tobi.chidorispring.exceptions.AnimeViolationType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class UpstreamGuardTest {
+
+    private final ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.example/anime")).build();
+
+    private UpstreamProperties.Upstream settings;
+    private Deque<ClientResponse> responses;
+    private AtomicInteger exchanges;
+    private ExchangeFunction exchange;
+
+    @BeforeEach
+    void setUp() {
+        settings = new UpstreamProperties.Upstream(new UpstreamProperties.Search(10, 4),
+            List.of(new UpstreamProperties.RateLimit(100, Duration.ofSeconds(1))));
+        settings.getRetry().setMinBackoff(Duration.ofMillis(1));
+        settings.getRetry().setMaxBackoff(Duration.ofMillis(5));
+        responses = new ArrayDeque<>();
+        exchanges = new AtomicInteger();
+        exchange = clientRequest -> {
+            exchanges.incrementAndGet();
+            return Mono.just(responses.isEmpty() ? ClientResponse.create(HttpStatus.OK).build() : responses.poll());
+        };
+    }
+
+    @Test
+    void filter_WithServerErrorThenOk_ShouldRetry() {
+        // Arrange
+        UpstreamGuard guard = new UpstreamGuard("test", settings);
+        responses.add(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+
+        // Act & Assert
+        StepVerifier.create(guard.filter(request, exchange))
+            .expectNextMatches(response -> response.statusCode() == HttpStatus.OK)
+            .verifyComplete();
+        assertEquals(2, exchanges.get());
+    }
+
+    @Test
+    void filter_WithLongRetryAfter_ShouldReturnResponseWithoutRetrying() {
+        // Arrange
+        UpstreamGuard guard = new UpstreamGuard("test", settings);
+        responses.add(ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "60").build());
+
+        // Act & Assert
+        StepVerifier.create(guard.filter(request, exchange))
+            .expectNextMatches(response -> response.statusCode() == HttpStatus.TOO_MANY_REQUESTS)
+            .verifyComplete();
+        assertEquals(1, exchanges.get());
+    }
+
+    @Test
+    void filter_AfterRepeatedFailures_ShouldOpenCircuit() {
+        // Arrange
+        settings.getRetry().setMaxAttempts(1);
+        settings.getCircuitBreaker().setFailureThreshold(2);
+        UpstreamGuard guard = new UpstreamGuard("test", settings);
+        responses.add(ClientResponse.create(HttpStatus.BAD_GATEWAY).build());
+        responses.add(ClientResponse.create(HttpStatus.BAD_GATEWAY).build());
+        guard.filter(request, exchange).block();
+        guard.filter(request, exchange).block();
+
+        // Act & Assert
+        StepVerifier.create(guard.filter(request, exchange))
+            .expectErrorMatches(e -> e instanceof AnimeViolationException violation
+                && violation.getType() == AnimeViolationType.UPSTREAM_UNAVAILABLE)
+            .verify();
+        assertEquals(2, exchanges.get());
+    }
+}
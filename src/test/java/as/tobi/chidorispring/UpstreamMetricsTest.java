@@ -0,0 +1,81 @@
+package as.tobi.chidorispring;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import as.tobi.chidorispring.cache.ReactiveCache;
+import as.tobi.chidorispring.client.UpstreamGuard;
+import as.tobi.chidorispring.client.UpstreamMetrics;
+import as.tobi.chidorispring.config.UpstreamProperties;
+import as.tobi.chidorispring.exceptions.AnimeViolationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+class UpstreamMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UpstreamMetrics metrics = new UpstreamMetrics("kitsu", meterRegistry, 0);
+    private final ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.example/anime")).build();
+
+    @Test
+    void filter_ShouldRecordStatusAndCacheMiss() {
+        // Arrange
+        ClientResponse upstream = ClientResponse.create(HttpStatus.OK).body("{\"data\":[]}").build();
+
+        // Act
+        StepVerifier.create(metrics.filter(request, clientRequest -> Mono.just(upstream))
+                .flatMap(response -> response.bodyToMono(String.class))
+                .contextWrite(Context.of(ReactiveCache.CACHE_MISS_CONTEXT_KEY, "animeCache")))
+            .expectNext("{\"data\":[]}")
+            .verifyComplete();
+
+        // Assert
+        assertEquals(1, meterRegistry.get("chidori.upstream.requests")
+            .tags("upstream", "kitsu", "status", "200", "cache", "animeCache")
+            .timer().count());
+        assertEquals(11, meterRegistry.get("chidori.upstream.response.size").summary().totalAmount());
+    }
+
+    @Test
+    void filter_WithConnectionError_ShouldRecordIoError() {
+        // Act
+        StepVerifier.create(metrics.filter(request, clientRequest -> Mono.error(new IllegalStateException("reset"))))
+            .expectError(IllegalStateException.class)
+            .verify();
+
+        // Assert
+        assertEquals(1, meterRegistry.get("chidori.upstream.requests")
+            .tags("status", "IO_ERROR", "cache", "none")
+            .timer().count());
+    }
+
+    @Test
+    void filter_InsideGuardThatTimesOut_ShouldRecordTimeout() {
+        // Arrange
+        UpstreamProperties.Upstream settings = new UpstreamProperties.Upstream(new UpstreamProperties.Search(10, 4),
+            List.of(new UpstreamProperties.RateLimit(100, Duration.ofSeconds(1))));
+        settings.setTimeout(Duration.ofMillis(50));
+        settings.getRetry().setMaxAttempts(1);
+        UpstreamGuard guard = new UpstreamGuard("kitsu", settings);
+
+        // Act
+        StepVerifier.create(guard.filter(request, clientRequest -> metrics.filter(clientRequest, inner -> Mono.never())))
+            .expectError(AnimeViolationException.class)
+            .verify(Duration.ofSeconds(5));
+
+        // Assert
+        assertEquals(1, meterRegistry.get("chidori.upstream.requests")
+            .tags("status", "TIMEOUT", "outcome", "UNKNOWN")
+            .timer().count());
+    }
+}
@@ -10,6 +10,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import as.tobi.chidorispring.service.TimelineService;
 import as.tobi.chidorispring.service.UserRelationshipService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -40,6 +41,9 @@ class UserRelationshipServiceTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private TimelineService timelineService;
+
     @InjectMocks
     private UserRelationshipService userRelationshipService;
 
@@ -16,6 +16,8 @@ import as.tobi.chidorispring.repository.CharacterPostRepository;
 import as.tobi.chidorispring.repository.UserFavoritePostRepository;
 import as.tobi.chidorispring.repository.UserRepository;
 import as.tobi.chidorispring.service.CloudinaryService;
+import as.tobi.chidorispring.service.PostViewerStateService;
+import as.tobi.chidorispring.service.RecommendationEngine;
 import as.tobi.chidorispring.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -56,6 +58,12 @@ class UserServiceTest {
     @Mock
     private UserFavoritePostRepository favoritePostRepository;
 
+    @Mock
+    private PostViewerStateService viewerStateService;
+
+    @Mock
+    private RecommendationEngine recommendationEngine;
+
     @InjectMocks
     private UserService userService;
 
@@ -218,6 +226,8 @@ class UserServiceTest {
         userService.addFavoritePost("test@example.com", 1L);
 
         verify(favoritePostRepository).save(any(UserFavoritePost.class));
+        verify(viewerStateService).evict(testUser.getId());
+        verify(recommendationEngine).onInteraction(testUser.getId());
     }
 
     @Test
@@ -228,6 +238,7 @@ class UserServiceTest {
         userService.removeFavoritePost("test@example.com", 1L);
 
         verify(favoritePostRepository).deleteByUserIdAndCharacterPostId(anyLong(), anyLong());
+        verify(recommendationEngine).onInteraction(testUser.getId());
     }
 
     @Test
@@ -237,7 +248,7 @@ class UserServiceTest {
 
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
         when(postRepository.findFavoritePostsByUserId(anyLong())).thenReturn(posts);
-        when(characterPostMapper.toDto(any(CharacterPost.class), anyLong())).thenReturn(characterPostDTO);
+        when(characterPostMapper.toDtoList(posts, testUser.getId())).thenReturn(expectedDtos);
 
         List<CharacterPostDTO> result = userService.getFavoritePosts("test@example.com");
 